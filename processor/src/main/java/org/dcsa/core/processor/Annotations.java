@@ -0,0 +1,128 @@
+package org.dcsa.core.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads annotations by name, so the processor does not depend on the libraries defining them
+ */
+final class Annotations {
+
+  static final String TABLE = "org.springframework.data.relational.core.mapping.Table";
+  static final String COLUMN = "org.springframework.data.relational.core.mapping.Column";
+  static final String ID = "org.springframework.data.annotation.Id";
+  static final String TRANSIENT = "org.springframework.data.annotation.Transient";
+  static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+  static final String FOREIGN_KEY = "org.dcsa.core.model.ForeignKey";
+  static final String JOINED_WITH_MODEL = "org.dcsa.core.model.JoinedWithModel";
+  static final String JOINED_WITH_MODEL_LIST = "org.dcsa.core.model.JoinedWithModel.List";
+  static final String MAP_ENTITY = "org.dcsa.core.model.MapEntity";
+
+  private Annotations() {}
+
+  /**
+   * @return The annotation declared on the element or null
+   */
+  static AnnotationMirror find(Element element, String annotationName) {
+    return find(element.getAnnotationMirrors(), annotationName);
+  }
+
+  /**
+   * @return The annotation declared on (or inherited by) the type or null
+   */
+  static AnnotationMirror findInherited(Elements elements, TypeElement type, String annotationName) {
+    return find(elements.getAllAnnotationMirrors(type), annotationName);
+  }
+
+  static boolean isPresent(Element element, String annotationName) {
+    return find(element, annotationName) != null;
+  }
+
+  /**
+   * @return The annotations of a repeatable annotation (declared directly or via its container)
+   */
+  static List<AnnotationMirror> findRepeatable(Elements elements, Element element, String annotationName, String containerName) {
+    List<AnnotationMirror> result = new ArrayList<>();
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      String name = getName(annotation);
+      if (name.equals(annotationName)) {
+        result.add(annotation);
+      } else if (name.equals(containerName)) {
+        for (AnnotationValue value : getArray(elements, annotation, "value")) {
+          result.add((AnnotationMirror) value.getValue());
+        }
+      }
+    }
+    return result;
+  }
+
+  static String getString(Elements elements, AnnotationMirror annotation, String name) {
+    return (String) getValue(elements, annotation, name).getValue();
+  }
+
+  static boolean getBoolean(Elements elements, AnnotationMirror annotation, String name) {
+    return (Boolean) getValue(elements, annotation, name).getValue();
+  }
+
+  /**
+   * @return The name of the enum constant
+   */
+  static String getEnum(Elements elements, AnnotationMirror annotation, String name) {
+    return ((VariableElement) getValue(elements, annotation, name).getValue()).getSimpleName().toString();
+  }
+
+  /**
+   * @return The class or null if the value cannot be resolved to a class
+   */
+  static TypeElement getClassValue(Elements elements, AnnotationMirror annotation, String name) {
+    Object value = getValue(elements, annotation, name).getValue();
+    if (value instanceof DeclaredType) {
+      return (TypeElement) ((DeclaredType) value).asElement();
+    }
+    return null;
+  }
+
+  static List<String> getStrings(Elements elements, AnnotationMirror annotation, String name) {
+    List<String> result = new ArrayList<>();
+    for (AnnotationValue value : getArray(elements, annotation, name)) {
+      result.add((String) value.getValue());
+    }
+    return result;
+  }
+
+  static String getName(AnnotationMirror annotation) {
+    return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<? extends AnnotationValue> getArray(Elements elements, AnnotationMirror annotation, String name) {
+    return (List<? extends AnnotationValue>) getValue(elements, annotation, name).getValue();
+  }
+
+  private static AnnotationValue getValue(Elements elements, AnnotationMirror annotation, String name) {
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(annotation).entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue();
+      }
+    }
+    throw new IllegalArgumentException("@" + getName(annotation) + " has no attribute " + name);
+  }
+
+  private static AnnotationMirror find(List<? extends AnnotationMirror> annotations, String annotationName) {
+    for (AnnotationMirror annotation : annotations) {
+      if (getName(annotation).equals(annotationName)) {
+        return annotation;
+      }
+    }
+    return null;
+  }
+
+  static boolean isClass(TypeMirror type) {
+    return type instanceof DeclaredType && ((DeclaredType) type).asElement() instanceof TypeElement;
+  }
+}
@@ -0,0 +1,71 @@
+package org.dcsa.core.processor;
+
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+import static org.dcsa.core.processor.Sources.stringLiteral;
+
+/**
+ * Generates the {@code <Model>_DBEntityAnalysis} class (an org.dcsa.core.query.GeneratedDBEntityAnalysis)
+ */
+final class DBEntityAnalysisGenerator {
+
+  static final String SUFFIX = "_DBEntityAnalysis";
+  private static final String INTERFACE = "org.dcsa.core.query.GeneratedDBEntityAnalysis";
+  private static final String JOIN_TYPE = "org.springframework.data.relational.core.sql.Join.JoinType";
+
+  private final Elements elements;
+
+  DBEntityAnalysisGenerator(Elements elements) {
+    this.elements = elements;
+  }
+
+  /**
+   * @return The source of the generated class or null if it cannot refer to all the classes it needs
+   */
+  String generate(ModelAnalysis modelAnalysis, String generatedClassName) {
+    TypeElement model = modelAnalysis.getModel();
+    PackageElement packageElement = elements.getPackageOf(model);
+    for (TypeElement type : modelAnalysis.getReferencedTypes()) {
+      if (!Sources.isAccessibleFrom(elements, type, packageElement)) {
+        return null;
+      }
+    }
+    String modelName = model.getQualifiedName().toString();
+    StringBuilder source = new StringBuilder();
+    Sources.appendClassHeader(source, elements, generatedClassName,
+      "The tables, joins and fields of {@link " + modelName + "} (generated from the annotations of the model)",
+      INTERFACE + "<" + modelName + ">");
+    source.append("\n")
+      .append("  @Override\n")
+      .append("  public Class<").append(modelName).append("> getModelClass() {\n")
+      .append("    return ").append(modelName).append(".class;\n")
+      .append("  }\n")
+      .append("\n")
+      .append("  @Override\n")
+      .append("  public void registerFieldsAndJoins(").append(INTERFACE).append(".Registrar registrar) {\n");
+    for (ModelAnalysis.Join join : modelAnalysis.getJoins()) {
+      source.append("    registrar.registerJoin(").append(JOIN_TYPE).append('.').append(join.joinType)
+        .append(", ").append(stringLiteral(join.lhsAlias))
+        .append(", ").append(stringLiteral(join.lhsColumnName))
+        .append(", ").append(join.rhsModel.getQualifiedName()).append(".class")
+        .append(", ").append(stringLiteral(join.rhsTableName))
+        .append(", ").append(stringLiteral(join.rhsAlias))
+        .append(", ").append(stringLiteral(join.rhsColumnName))
+        .append(", ").append(join.toOne)
+        .append(");\n");
+    }
+    for (ModelAnalysis.Field field : modelAnalysis.getFields()) {
+      source.append("    registrar.registerField(").append(stringLiteral(field.tableAlias))
+        .append(", ").append(field.declaringClass.getQualifiedName()).append(".class")
+        .append(", ").append(stringLiteral(field.fieldName))
+        .append(", ").append(stringLiteral(field.columnName))
+        .append(", ").append(stringLiteral(field.jsonName))
+        .append(");\n");
+    }
+    source.append("  }\n")
+      .append("}\n");
+    return source.toString();
+  }
+}
@@ -0,0 +1,250 @@
+package org.dcsa.core.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.*;
+
+/**
+ * Generates the {@code <Model>_FieldAccessors} class (an org.dcsa.core.query.GeneratedFieldAccessors)
+ *
+ * The generated code must compile, so it only calls constructors and setters it knows to exist.  Besides the
+ * declared members, this includes the ones Lombok will generate (Lombok may run before or after this processor).
+ * Everything else is left to the row mapping, which falls back to reflection.
+ */
+final class FieldAccessorsGenerator {
+
+  static final String SUFFIX = "_FieldAccessors";
+  private static final String INTERFACE = "org.dcsa.core.query.GeneratedFieldAccessors";
+
+  private static final String LOMBOK_DATA = "lombok.Data";
+  private static final String LOMBOK_SETTER = "lombok.Setter";
+  private static final String LOMBOK_ACCESSORS = "lombok.experimental.Accessors";
+  private static final String LOMBOK_NO_ARGS_CONSTRUCTOR = "lombok.NoArgsConstructor";
+  // Lombok annotations that generate a constructor (which replaces the default constructor)
+  private static final Set<String> LOMBOK_CONSTRUCTORS = Set.of(
+    "lombok.AllArgsConstructor",
+    "lombok.RequiredArgsConstructor",
+    "lombok.Value",
+    "lombok.Builder",
+    "lombok.experimental.SuperBuilder",
+    LOMBOK_DATA
+  );
+
+  private final Elements elements;
+  private final Types types;
+
+  FieldAccessorsGenerator(Elements elements, Types types) {
+    this.elements = elements;
+    this.types = types;
+  }
+
+  /**
+   * @return The source of the generated class or null if it cannot refer to the model
+   */
+  String generate(TypeElement model, String generatedClassName) {
+    PackageElement packageElement = elements.getPackageOf(model);
+    if (!Sources.isAccessibleFrom(elements, model, packageElement) || !model.getTypeParameters().isEmpty()) {
+      return null;
+    }
+    String modelName = model.getQualifiedName().toString();
+    StringBuilder source = new StringBuilder();
+    Sources.appendClassHeader(source, elements, generatedClassName,
+      "Accessors for the fields of {@link " + modelName + "} (generated from the model)",
+      INTERFACE + "<" + modelName + ">");
+    source.append("\n")
+      .append("  @Override\n")
+      .append("  public Class<").append(modelName).append("> getModelClass() {\n")
+      .append("    return ").append(modelName).append(".class;\n")
+      .append("  }\n")
+      .append("\n")
+      .append("  @Override\n")
+      .append("  public java.util.function.Supplier<").append(modelName).append("> getConstructor() {\n")
+      .append("    return ").append(hasAccessibleNoArgsConstructor(model) ? modelName + "::new" : "null").append(";\n")
+      .append("  }\n")
+      .append("\n")
+      .append("  @Override\n")
+      .append("  @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+      .append("  public java.util.function.BiConsumer<").append(modelName).append(", Object> getSetter(String fieldName) {\n")
+      .append("    switch (fieldName) {\n");
+    for (Map.Entry<String, String> setter : getSetters(model, packageElement).entrySet()) {
+      source.append("      case ").append(Sources.stringLiteral(setter.getKey())).append(":\n")
+        .append("        return (entity, value) -> ").append(setter.getValue()).append(";\n");
+    }
+    source.append("      default:\n")
+      .append("        return null;\n")
+      .append("    }\n")
+      .append("  }\n")
+      .append("}\n");
+    return source.toString();
+  }
+
+  private boolean hasAccessibleNoArgsConstructor(TypeElement model) {
+    if (model.getModifiers().contains(Modifier.ABSTRACT)
+      || (model.getNestingKind() == NestingKind.MEMBER && !model.getModifiers().contains(Modifier.STATIC))) {
+      return false;
+    }
+    // The generated class is in the same package, so only private constructors are out of reach
+    AnnotationMirror noArgsConstructor = Annotations.find(model, LOMBOK_NO_ARGS_CONSTRUCTOR);
+    if (noArgsConstructor != null) {
+      return isPublicLombokMember(noArgsConstructor, "access") && getString(noArgsConstructor, "staticName").isEmpty();
+    }
+    boolean hasNoArgsConstructor = false;
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty()) {
+        hasNoArgsConstructor = !constructor.getModifiers().contains(Modifier.PRIVATE);
+      }
+    }
+    if (!hasNoArgsConstructor) {
+      return false;
+    }
+    // It may be the default constructor, which a constructor generated by Lombok would replace.  That is fine
+    // for @Data when its constructor has no arguments.
+    for (AnnotationMirror annotation : model.getAnnotationMirrors()) {
+      String name = Annotations.getName(annotation);
+      if (name.equals(LOMBOK_DATA)) {
+        if (!getString(annotation, "staticConstructor").isEmpty() || hasRequiredArguments(model)) {
+          return false;
+        }
+      } else if (LOMBOK_CONSTRUCTORS.contains(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Whether @RequiredArgsConstructor (e.g. via @Data) would have arguments
+  private static boolean hasRequiredArguments(TypeElement model) {
+    for (VariableElement field : ElementFilter.fieldsIn(model.getEnclosedElements())) {
+      if (field.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+      if (field.getModifiers().contains(Modifier.FINAL)) {
+        return true;
+      }
+      for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+        if (annotation.getAnnotationType().asElement().getSimpleName().contentEquals("NonNull")) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /*
+   * The setter expressions by field name for the fields of the model and its super classes (a field hidden by a
+   * subclass is only included once).  Like the row mapping (and Jackson), this prefers the setter over the field.
+   */
+  private Map<String, String> getSetters(TypeElement model, PackageElement packageElement) {
+    Map<String, String> setters = new LinkedHashMap<>();
+    Set<String> seenFields = new HashSet<>();
+    List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(model));
+    for (TypeElement type = model; type != null; type = ModelAnalyzer.getSuperclass(type)) {
+      for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+        String fieldName = field.getSimpleName().toString();
+        if (field.getModifiers().contains(Modifier.STATIC) || !seenFields.add(fieldName)) {
+          continue;
+        }
+        if (field.getModifiers().contains(Modifier.FINAL)) {
+          continue;
+        }
+        String typeName = getCastTypeName(field.asType(), packageElement);
+        if (typeName == null || !Sources.isAccessibleFrom(elements, type, packageElement)) {
+          continue;
+        }
+        String value = "(" + typeName + ") value";
+        String setterName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        if (hasSetter(methods, setterName, field) || hasLombokSetter(methods, setterName, field, type)) {
+          setters.put(fieldName, "entity." + setterName + "(" + value + ")");
+        } else if (!field.getModifiers().contains(Modifier.PRIVATE)
+          && (field.getModifiers().contains(Modifier.PUBLIC) || elements.getPackageOf(type).equals(packageElement))) {
+          setters.put(fieldName, "entity." + fieldName + " = " + value);
+        }
+      }
+    }
+    return setters;
+  }
+
+  private boolean hasSetter(List<ExecutableElement> methods, String setterName, VariableElement field) {
+    for (ExecutableElement method : methods) {
+      if (method.getSimpleName().contentEquals(setterName) && method.getParameters().size() == 1
+        && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+        && types.isSameType(types.erasure(method.getParameters().get(0).asType()), types.erasure(field.asType()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Whether Lombok will generate a public setter with the given name
+  private boolean hasLombokSetter(List<ExecutableElement> methods, String setterName, VariableElement field, TypeElement declaringType) {
+    for (ExecutableElement method : methods) {
+      if (method.getSimpleName().contentEquals(setterName)) {
+        // Lombok does not generate a setter when there is a method with that name
+        return false;
+      }
+    }
+    // Lombok drops the "is" prefix of boolean fields, so its setter has a different name
+    String fieldName = field.getSimpleName().toString();
+    if (field.asType().getKind().isPrimitive() && fieldName.startsWith("is") && fieldName.length() > 2
+      && Character.isUpperCase(fieldName.charAt(2))) {
+      return false;
+    }
+    if (Annotations.isPresent(field, LOMBOK_ACCESSORS) || Annotations.isPresent(declaringType, LOMBOK_ACCESSORS)) {
+      return false;
+    }
+    AnnotationMirror setter = Annotations.find(field, LOMBOK_SETTER);
+    if (setter == null) {
+      setter = Annotations.find(declaringType, LOMBOK_SETTER);
+    }
+    if (setter != null) {
+      return isPublicLombokMember(setter, "value");
+    }
+    return Annotations.isPresent(declaringType, LOMBOK_DATA);
+  }
+
+  private boolean isPublicLombokMember(AnnotationMirror annotation, String accessLevelAttribute) {
+    return Annotations.getEnum(elements, annotation, accessLevelAttribute).equals("PUBLIC");
+  }
+
+  private String getString(AnnotationMirror annotation, String attribute) {
+    return Annotations.getString(elements, annotation, attribute);
+  }
+
+  /*
+   * The type to cast the value to (the boxed type for primitives and the erasure for generic types) or null if
+   * the generated code cannot refer to it.
+   */
+  private String getCastTypeName(TypeMirror type, PackageElement packageElement) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+      case CHAR:
+      case FLOAT:
+      case DOUBLE:
+        return types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+      case ARRAY:
+        TypeMirror componentType = ((ArrayType) type).getComponentType();
+        String componentTypeName = componentType.getKind().isPrimitive()
+          ? componentType.getKind().name().toLowerCase(Locale.ROOT)
+          : getCastTypeName(componentType, packageElement);
+        return componentTypeName != null ? componentTypeName + "[]" : null;
+      case DECLARED:
+        TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+        return Sources.isAccessibleFrom(elements, typeElement, packageElement)
+          ? typeElement.getQualifiedName().toString()
+          : null;
+      default:
+        // Type variables (the setter of a subclass might take a more specific type) and error types
+        return null;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.dcsa.core.processor;
+
+import javax.lang.model.element.TypeElement;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The joins and fields of a model in the order DefaultDBEntityAnalysisBuilder registers them
+ */
+final class ModelAnalysis {
+
+  private final TypeElement model;
+  private final List<Join> joins;
+  private final List<Field> fields;
+  private final Set<TypeElement> referencedTypes;
+
+  ModelAnalysis(TypeElement model, List<Join> joins, List<Field> fields, Set<TypeElement> referencedTypes) {
+    this.model = model;
+    this.joins = List.copyOf(joins);
+    this.fields = List.copyOf(fields);
+    this.referencedTypes = Set.copyOf(referencedTypes);
+  }
+
+  TypeElement getModel() {
+    return model;
+  }
+
+  List<Join> getJoins() {
+    return joins;
+  }
+
+  List<Field> getFields() {
+    return fields;
+  }
+
+  /**
+   * @return The model and all classes the generated code refers to (the models of the joins and the classes
+   * declaring the fields).
+   */
+  Set<TypeElement> getReferencedTypes() {
+    return referencedTypes;
+  }
+
+  static final class Join {
+    final String joinType;
+    final String lhsAlias;
+    final String lhsColumnName;
+    final TypeElement rhsModel;
+    final String rhsTableName;
+    final String rhsAlias;
+    final String rhsColumnName;
+    final boolean toOne;
+
+    Join(String joinType, String lhsAlias, String lhsColumnName, TypeElement rhsModel, String rhsTableName,
+         String rhsAlias, String rhsColumnName, boolean toOne) {
+      this.joinType = joinType;
+      this.lhsAlias = lhsAlias;
+      this.lhsColumnName = lhsColumnName;
+      this.rhsModel = rhsModel;
+      this.rhsTableName = rhsTableName;
+      this.rhsAlias = rhsAlias;
+      this.rhsColumnName = rhsColumnName;
+      this.toOne = toOne;
+    }
+  }
+
+  static final class Field {
+    final String tableAlias;
+    final TypeElement declaringClass;
+    final String fieldName;
+    final String columnName;
+    final String jsonName;
+
+    Field(String tableAlias, TypeElement declaringClass, String fieldName, String columnName, String jsonName) {
+      this.tableAlias = tableAlias;
+      this.declaringClass = declaringClass;
+      this.fieldName = fieldName;
+      this.columnName = columnName;
+      this.jsonName = jsonName;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package org.dcsa.core.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Generates the DBEntityAnalysis and the field accessors of each {@code @Table} model at compile time
+ *
+ * For each model (a class annotated with or inheriting {@code @Table}), the processor generates:
+ * <ul>
+ *   <li>{@code <Model>_DBEntityAnalysis} (an {@code org.dcsa.core.query.GeneratedDBEntityAnalysis}) with the
+ *   joins and fields that DCSA-Core would otherwise derive via reflection from {@code @ForeignKey},
+ *   {@code @JoinedWithModel}, {@code @MapEntity}, {@code @Column}, {@code @JsonProperty} and {@code @Transient}
+ *   on the first request.</li>
+ *   <li>{@code <Model>_FieldAccessors} (an {@code org.dcsa.core.query.GeneratedFieldAccessors}) with the
+ *   constructor and the setters the row mapping uses.</li>
+ * </ul>
+ * Errors in those annotations fail the build instead of the first request.  Options:
+ * <ul>
+ *   <li>{@code -Adcsa.core.modelErrors=warning} reports them as warnings (e.g., for a model that is only used with a
+ *   custom ExtendedRequest that does not load the fields and joins from the model).  The model then falls back
+ *   to reflection.</li>
+ *   <li>{@code -Adcsa.core.fieldAccessors=false} turns off the generation of the field accessors (e.g., when
+ *   lombok.config changes the names of the setters).</li>
+ * </ul>
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({ModelAnalysisProcessor.MODEL_ERRORS_OPTION, ModelAnalysisProcessor.FIELD_ACCESSORS_OPTION})
+public class ModelAnalysisProcessor extends AbstractProcessor {
+
+  static final String MODEL_ERRORS_OPTION = "dcsa.core.modelErrors";
+  static final String FIELD_ACCESSORS_OPTION = "dcsa.core.fieldAccessors";
+
+  private final Set<String> generatedClassNames = new HashSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    String modelErrors = processingEnv.getOptions().getOrDefault(MODEL_ERRORS_OPTION, "error");
+    if (!modelErrors.equals("error") && !modelErrors.equals("warning")) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Invalid value for -A" + MODEL_ERRORS_OPTION
+        + ": " + modelErrors + " (must be \"error\" or \"warning\")");
+    }
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Elements elements = processingEnv.getElementUtils();
+    TypeElement table = elements.getTypeElement(Annotations.TABLE);
+    if (table == null) {
+      // Not a project with Spring Data models
+      return false;
+    }
+    // Includes the classes inheriting @Table
+    for (Element element : roundEnv.getElementsAnnotatedWith(table)) {
+      if (element.getKind() == ElementKind.CLASS) {
+        processModel((TypeElement) element);
+      }
+    }
+    // Other processors may also need the annotations
+    return false;
+  }
+
+  private void processModel(TypeElement model) {
+    Elements elements = processingEnv.getElementUtils();
+    ModelAnalysis modelAnalysis;
+    try {
+      modelAnalysis = new ModelAnalyzer(elements, model).analyze();
+    } catch (ModelException e) {
+      boolean lenient = processingEnv.getOptions().getOrDefault(MODEL_ERRORS_OPTION, "error").equals("warning");
+      processingEnv.getMessager().printMessage(lenient ? Diagnostic.Kind.WARNING : Diagnostic.Kind.ERROR,
+        e.getMessage(), e.getElement());
+      return;
+    }
+    Element[] originatingElements = modelAnalysis.getReferencedTypes().toArray(new Element[0]);
+    if (model.getTypeParameters().isEmpty()) {
+      String className = Sources.getGeneratedClassName(elements, model, DBEntityAnalysisGenerator.SUFFIX);
+      write(className, new DBEntityAnalysisGenerator(elements).generate(modelAnalysis, className), originatingElements);
+    }
+    if (!processingEnv.getOptions().getOrDefault(FIELD_ACCESSORS_OPTION, "true").equals("false")) {
+      String className = Sources.getGeneratedClassName(elements, model, FieldAccessorsGenerator.SUFFIX);
+      write(className, new FieldAccessorsGenerator(elements, processingEnv.getTypeUtils()).generate(model, className),
+        model);
+    }
+  }
+
+  private void write(String className, String source, Element... originatingElements) {
+    // A null source means the model uses classes the generated code cannot refer to (it falls back to reflection)
+    if (source == null || !generatedClassNames.add(className)) {
+      return;
+    }
+    try (Writer writer = processingEnv.getFiler().createSourceFile(className, originatingElements).openWriter()) {
+      writer.write(source);
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + className + ": "
+        + e.getMessage(), originatingElements[0]);
+    }
+  }
+}
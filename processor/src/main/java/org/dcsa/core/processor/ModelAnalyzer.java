@@ -0,0 +1,435 @@
+package org.dcsa.core.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.dcsa.core.processor.Annotations.*;
+
+/**
+ * Analyses a model like DefaultDBEntityAnalysisBuilder.loadFieldsAndJoinsFromModel() does via reflection
+ *
+ * The entity tree, the table aliases, the joins and the (prefixed) JSON names are derived by the same rules.  The
+ * errors that the builder would throw on the first request are thrown as {@link ModelException}s instead.  Errors
+ * that a custom ExtendedRequest can still fix (like a join without any fields) are left to the builder.
+ */
+final class ModelAnalyzer {
+
+  private static final String JOIN = "JOIN";
+  private static final String LEFT_OUTER_JOIN = "LEFT_OUTER_JOIN";
+  private static final String RIGHT_OUTER_JOIN = "RIGHT_OUTER_JOIN";
+
+  private final Elements elements;
+  private final TypeElement entityType;
+  private final Deque<TypeElement> modelsBeingLoaded = new ArrayDeque<>();
+  private final Set<String> tableAliases = new HashSet<>();
+
+  ModelAnalyzer(Elements elements, TypeElement entityType) {
+    this.elements = elements;
+    this.entityType = entityType;
+  }
+
+  ModelAnalysis analyze() throws ModelException {
+    Node root = new Node(null, entityType, null, null, null, null);
+    loadModelDeep(entityType, root, false);
+    generateTablesDeep(root, "");
+    List<ModelAnalysis.Join> joins = new ArrayList<>();
+    generateJoinsDeep(root, joins);
+    List<ModelAnalysis.Field> fields = new ArrayList<>();
+    generateFieldsDeep(root, fields);
+    verifyNames(fields);
+
+    Set<TypeElement> referencedTypes = new LinkedHashSet<>();
+    referencedTypes.add(entityType);
+    joins.forEach(join -> referencedTypes.add(join.rhsModel));
+    fields.forEach(field -> referencedTypes.add(field.declaringClass));
+    return new ModelAnalysis(entityType, joins, fields, referencedTypes);
+  }
+
+  private void loadModelDeep(TypeElement modelType, Node currentNode, boolean skipQueryFields) throws ModelException {
+    if (modelsBeingLoaded.contains(modelType)) {
+      // DefaultDBEntityAnalysisBuilder would recurse until it runs out of stack
+      List<TypeElement> cycle = new ArrayList<>(modelsBeingLoaded);
+      Collections.reverse(cycle);
+      cycle.add(modelType);
+      throw new ModelException("The joins of " + entityType.getSimpleName() + " form a cycle: "
+        + cycle.stream().map(t -> t.getSimpleName().toString()).collect(Collectors.joining(" -> ")), entityType);
+    }
+    modelsBeingLoaded.push(modelType);
+    loadJoinedWithModelAnnotationsDeep(modelType, currentNode);
+    loadFieldsDeep(modelType, currentNode, skipQueryFields);
+    modelsBeingLoaded.pop();
+  }
+
+  private void loadFieldsDeep(TypeElement modelType, Node currentNode, boolean skipQueryFields) throws ModelException {
+    for (VariableElement field : getAllFields(modelType)) {
+      AnnotationMirror foreignKey = find(field, FOREIGN_KEY);
+      AnnotationMirror mapEntity = find(field, MAP_ENTITY);
+      if (foreignKey != null && mapEntity != null) {
+        throw new ModelException(modelType.getSimpleName() + "." + field.getSimpleName()
+          + " has both @MapEntity and @ForeignKey.  Please remove one of them.", field);
+      }
+
+      if (mapEntity != null) {
+        String alias = getAliasOrTableName(getModelType(field), getString(elements, mapEntity, "joinAlias"), field);
+        currentNode.getChild(alias, field).selectName = getJsonName(field);
+      }
+
+      if (foreignKey != null) {
+        String intoFieldName = getString(elements, foreignKey, "into");
+        String fromFieldName = getString(elements, foreignKey, "fromFieldName");
+        VariableElement intoField;
+        VariableElement fromField;
+        if (intoFieldName.isEmpty() && fromFieldName.isEmpty()) {
+          throw new ModelException("Invalid @ForeignKey on " + modelType.getSimpleName() + "."
+            + field.getSimpleName() + ": exactly one of \"into\" OR \"fromFieldName\" must be given (neither were given)", field);
+        }
+        if (!intoFieldName.isEmpty() && !fromFieldName.isEmpty()) {
+          throw new ModelException("Invalid @ForeignKey on " + modelType.getSimpleName() + "."
+            + field.getSimpleName() + ": exactly one of \"into\" OR \"fromFieldName\" must be given (both were given)", field);
+        }
+        if (intoFieldName.isEmpty()) {
+          intoField = field;
+          intoFieldName = field.getSimpleName().toString();
+          fromField = getDeclaredField(modelType, fromFieldName);
+          if (fromField == null) {
+            throw new ModelException("Invalid @ForeignKey on " + modelType.getSimpleName() + "." + field.getSimpleName()
+              + ": " + modelType.getSimpleName() + " has no field called " + fromFieldName + " (fromFieldName)", field);
+          }
+        } else {
+          fromField = field;
+          intoField = getDeclaredField(modelType, intoFieldName);
+          if (intoField == null) {
+            throw new ModelException("Invalid @ForeignKey on " + modelType.getSimpleName() + "." + field.getSimpleName()
+              + ": " + modelType.getSimpleName() + " has no field called " + intoFieldName + " (into)", field);
+          }
+        }
+        TypeElement intoModelType = getModelType(intoField);
+        String foreignFieldName = getString(elements, foreignKey, "foreignFieldName");
+        Node intoNode = new Node(currentNode, intoModelType, getString(elements, foreignKey, "viaJoinAlias"),
+          getEnum(elements, foreignKey, "joinType"), fromField.getSimpleName().toString(), foreignFieldName);
+        intoNode.selectName = intoFieldName;
+        intoNode.toOne = getBoolean(elements, foreignKey, "toOne") || isIdField(intoModelType, foreignFieldName);
+        currentNode.addChild(intoNode);
+        loadModelDeep(intoModelType, intoNode, skipQueryFields);
+      }
+
+      // @Transient check must come after @ForeignKey as @ForeignKey can be used on the model field
+      if (isPresent(field, TRANSIENT)) {
+        continue;
+      }
+
+      if (!skipQueryFields) {
+        currentNode.queryFields.add(field);
+      }
+    }
+  }
+
+  private void loadJoinedWithModelAnnotationsDeep(TypeElement modelType, Node currentNode) throws ModelException {
+    Set<String> mapEntityJoinAliases = new HashSet<>();
+    for (VariableElement field : getAllFields(modelType)) {
+      AnnotationMirror mapEntity = find(field, MAP_ENTITY);
+      if (mapEntity != null) {
+        String joinAlias = getAliasOrTableName(getModelType(field), getString(elements, mapEntity, "joinAlias"), field);
+        if (!mapEntityJoinAliases.add(joinAlias)) {
+          throw new ModelException("Join alias " + joinAlias + " used twice for different @MapEntity fields", field);
+        }
+      }
+    }
+
+    for (AnnotationMirror joinAnnotation : findRepeatable(elements, modelType, JOINED_WITH_MODEL, JOINED_WITH_MODEL_LIST)) {
+      String joinType = getEnum(elements, joinAnnotation, "joinType");
+      TypeElement lhsModel = getClassValue(elements, joinAnnotation, "lhsModel");
+      TypeElement rhsModel = getClassValue(elements, joinAnnotation, "rhsModel");
+      if (lhsModel == null || rhsModel == null) {
+        throw new ModelException("Invalid @JoinedWithModel on " + modelType.getSimpleName()
+          + ": Cannot resolve the " + (lhsModel == null ? "lhsModel" : "rhsModel"), modelType);
+      }
+      if (lhsModel.getQualifiedName().contentEquals(Object.class.getName())) {
+        lhsModel = modelType;
+      }
+
+      String lhsJoinAlias = getAliasOrTableName(lhsModel, getString(elements, joinAnnotation, "lhsJoinAlias"), modelType);
+      String lhsFieldName = getString(elements, joinAnnotation, "lhsFieldName");
+
+      String rhsJoinAlias = getAliasOrTableName(rhsModel, getString(elements, joinAnnotation, "rhsJoinAlias"), modelType);
+      String rhsFieldName = getString(elements, joinAnnotation, "rhsFieldName");
+
+      Node rhsNode = new Node(currentNode, rhsModel, rhsJoinAlias, joinType, lhsFieldName, rhsFieldName);
+      rhsNode.toOne = getBoolean(elements, joinAnnotation, "toOne") || isIdField(rhsModel, rhsFieldName);
+      if (lhsModel.equals(modelType)) {
+        currentNode.addChild(rhsNode);
+      } else {
+        // Add to previously created rhsNode referenced by alias
+        currentNode.getChild(lhsJoinAlias, modelType).addChild(rhsNode);
+      }
+      boolean noMapEntityAnnotation = !mapEntityJoinAliases.contains(rhsJoinAlias);
+      loadModelDeep(rhsModel, rhsNode, noMapEntityAnnotation);
+      checkJoinType(joinType, modelType);
+      for (String fieldName : getStrings(elements, joinAnnotation, "filterFields")) {
+        VariableElement field = getDeclaredField(rhsModel, fieldName);
+        if (field == null) {
+          throw new ModelException("Invalid @JoinedWithModel on " + entityType.getSimpleName()
+            + ": The rhsModel " + rhsModel.getSimpleName() + " does not have a field called "
+            + fieldName + ", but it is listed under filterFields.", modelType);
+        }
+        rhsNode.queryFields.add(field);
+      }
+    }
+  }
+
+  private static void checkJoinType(String joinType, TypeElement modelType) throws ModelException {
+    switch (joinType) {
+      case JOIN:
+      case LEFT_OUTER_JOIN:
+        break;
+      case RIGHT_OUTER_JOIN:
+        throw new ModelException("Cannot generate query for " + modelType.getSimpleName()
+          + ": Please replace RIGHT JOINs with LEFT JOINs", modelType);
+      default:
+        throw new ModelException("Unsupported joinType: " + joinType + " on " + modelType.getSimpleName(), modelType);
+    }
+  }
+
+  private void generateTablesDeep(Node currentNode, String prefix) throws ModelException {
+    currentNode.tableName = getTableName(currentNode.modelType, entityType);
+    currentNode.tableAlias = prefix + currentNode.getAlias();
+    if (!tableAliases.add(currentNode.tableAlias)) {
+      throw new ModelException("Invalid joins on " + entityType.getSimpleName() + ": The join alias \""
+        + currentNode.tableAlias + "\" for " + currentNode.modelType.getSimpleName() + " is already in use."
+        + "  Note if you need to join the same table twice, you need to use lhsJoinAlias / rhsJoinAlias"
+        + " (or viaJoinAlias with @ForeignKey) to avoid name clashes.", entityType);
+    }
+
+    String newPrefix = "";
+    if (!currentNode.modelType.equals(entityType)) {
+      // Avoid "." which causes issues for SQL - we use "__" to make more distinct and less likely clash by accident.
+      newPrefix = currentNode.tableAlias + "__";
+    }
+    for (Node childNode : currentNode.children) {
+      generateTablesDeep(childNode, newPrefix);
+    }
+  }
+
+  private void generateJoinsDeep(Node currentNode, List<ModelAnalysis.Join> joins) throws ModelException {
+    for (Node childNode : currentNode.children) {
+      String lhsColumnName = getColumnName(currentNode.modelType, childNode.lhsFieldName, "lhs");
+      String rhsColumnName = getColumnName(childNode.modelType, childNode.rhsFieldName, "rhs");
+      joins.add(new ModelAnalysis.Join(childNode.joinType, currentNode.tableAlias, lhsColumnName, childNode.modelType,
+        childNode.tableName, childNode.tableAlias, rhsColumnName, childNode.toOne));
+      generateJoinsDeep(childNode, joins);
+    }
+  }
+
+  private void generateFieldsDeep(Node currentNode, List<ModelAnalysis.Field> fields) {
+    for (VariableElement field : currentNode.queryFields) {
+      fields.add(new ModelAnalysis.Field(currentNode.tableAlias, (TypeElement) field.getEnclosingElement(),
+        field.getSimpleName().toString(), getColumnName(field), currentNode.selectNamePrefix + getJsonName(field)));
+    }
+
+    for (Node childNode : currentNode.children) {
+      String newPrefix = childNode.parentModelNode.selectNamePrefix;
+      if (childNode.selectName != null) {
+        newPrefix = newPrefix + childNode.selectName + ".";
+      }
+      childNode.selectNamePrefix = newPrefix;
+      generateFieldsDeep(childNode, fields);
+    }
+  }
+
+  private void verifyNames(List<ModelAnalysis.Field> fields) throws ModelException {
+    Map<String, ModelAnalysis.Field> jsonName2Field = new HashMap<>();
+    Map<String, ModelAnalysis.Field> column2Field = new HashMap<>();
+    for (ModelAnalysis.Field field : fields) {
+      ModelAnalysis.Field clash = jsonName2Field.putIfAbsent(field.jsonName, field);
+      if (clash != null) {
+        throw new ModelException("Error in " + entityType.getSimpleName() + ": The fields " + describe(clash)
+          + " and " + describe(field) + " both use \"" + field.jsonName + "\" as JSON key. "
+          + "Probably one or both of them has a invalid @JsonProperty", entityType);
+      }
+      String column = field.tableAlias + "." + field.columnName;
+      clash = column2Field.putIfAbsent(column, field);
+      if (clash != null) {
+        throw new ModelException("Error in " + entityType.getSimpleName() + ": The fields " + describe(clash)
+          + " and " + describe(field) + " both use the column \"" + column + "\". "
+          + "This can happen with explicit @Column names in the combined model class.", entityType);
+      }
+    }
+  }
+
+  private static String describe(ModelAnalysis.Field field) {
+    return field.declaringClass.getSimpleName() + "." + field.fieldName;
+  }
+
+  private String getColumnName(TypeElement clazz, String fieldName, String annotationVariablePrefix) throws ModelException {
+    VariableElement field = getDeclaredField(clazz, fieldName);
+    if (field == null) {
+      throw new ModelException("Cannot resolve field " + fieldName + " on class "
+        + clazz.getSimpleName() + ".  It was defined in @JoinedWithModel or via @ForeignKey on " + entityType.getSimpleName()
+        + " via " + annotationVariablePrefix + "Model and " + annotationVariablePrefix + "FieldName", entityType);
+    }
+    return getColumnName(field);
+  }
+
+  private String getColumnName(VariableElement field) {
+    AnnotationMirror column = find(field, COLUMN);
+    return column != null ? getString(elements, column, "value") : field.getSimpleName().toString();
+  }
+
+  private String getJsonName(VariableElement field) {
+    AnnotationMirror jsonProperty = find(field, JSON_PROPERTY);
+    // JsonProperty.USE_DEFAULT_NAME is ""
+    String jsonName = jsonProperty != null ? getString(elements, jsonProperty, "value") : "";
+    return jsonName.isEmpty() ? field.getSimpleName().toString() : jsonName;
+  }
+
+  private String getAliasOrTableName(TypeElement model, String alias, Element element) throws ModelException {
+    if (alias == null || alias.isEmpty()) {
+      return getTableName(model, element);
+    }
+    return alias;
+  }
+
+  private String getTableName(TypeElement model, Element element) throws ModelException {
+    AnnotationMirror table = findInherited(elements, model, TABLE);
+    if (table == null) {
+      throw new ModelException("@Table not defined on class: " + model.getSimpleName()
+        + " (referenced from " + entityType.getSimpleName() + ")", element);
+    }
+    return getString(elements, table, "value");
+  }
+
+  private TypeElement getModelType(VariableElement field) throws ModelException {
+    TypeMirror type = field.asType();
+    if (type.getKind() != TypeKind.DECLARED) {
+      throw new ModelException(field.getEnclosingElement().getSimpleName() + "." + field.getSimpleName()
+        + " must have a model class as type", field);
+    }
+    return (TypeElement) ((DeclaredType) type).asElement();
+  }
+
+  private boolean isIdField(TypeElement modelType, String fieldName) {
+    VariableElement field = getDeclaredField(modelType, fieldName);
+    // A missing field is reported when the join is generated
+    return field != null && isPresent(field, ID);
+  }
+
+  /*
+   * The fields of the class and its super classes (a field hidden by a subclass is only included once), like
+   * ReflectUtility.visitAllFields
+   */
+  private static List<VariableElement> getAllFields(TypeElement type) {
+    List<VariableElement> fields = new ArrayList<>();
+    Set<String> seenFields = new HashSet<>();
+    for (TypeElement currentType = type; currentType != null; currentType = getSuperclass(currentType)) {
+      for (VariableElement field : ElementFilter.fieldsIn(currentType.getEnclosedElements())) {
+        if (field.getModifiers().contains(Modifier.STATIC) || !seenFields.add(field.getSimpleName().toString())) {
+          continue;
+        }
+        fields.add(field);
+      }
+    }
+    return fields;
+  }
+
+  /*
+   * Like ReflectUtility.getDeclaredField
+   */
+  static VariableElement getDeclaredField(TypeElement type, String fieldName) {
+    for (TypeElement currentType = type; currentType != null; currentType = getSuperclass(currentType)) {
+      for (VariableElement field : ElementFilter.fieldsIn(currentType.getEnclosedElements())) {
+        if (field.getSimpleName().contentEquals(fieldName)) {
+          return field;
+        }
+      }
+    }
+    return null;
+  }
+
+  static TypeElement getSuperclass(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    TypeElement superclassElement = (TypeElement) ((DeclaredType) superclass).asElement();
+    if (superclassElement.getQualifiedName().contentEquals(Object.class.getName())) {
+      return null;
+    }
+    return superclassElement;
+  }
+
+  /*
+   * Mirror of EntityTreeNode (plus the table and the select name prefix of the node)
+   */
+  private class Node {
+    private final Node parentModelNode;
+    private final TypeElement modelType;
+    private final String alias;
+    private final String joinType;
+    private final String lhsFieldName;
+    private final String rhsFieldName;
+    private final List<Node> children = new ArrayList<>();
+    private final Map<String, Node> alias2Child = new HashMap<>();
+    private final List<VariableElement> queryFields = new ArrayList<>();
+    private String selectName;
+    private String selectNamePrefix = "";
+    private boolean toOne;
+    private String tableName;
+    private String tableAlias;
+
+    private Node(Node parentModelNode, TypeElement modelType, String alias, String joinType, String lhsFieldName,
+                 String rhsFieldName) {
+      this.parentModelNode = parentModelNode;
+      this.modelType = modelType;
+      this.alias = alias;
+      this.joinType = joinType;
+      this.lhsFieldName = lhsFieldName;
+      this.rhsFieldName = rhsFieldName;
+    }
+
+    private void addChild(Node child) throws ModelException {
+      children.add(child);
+      String childAlias = child.getAlias();
+      if (alias2Child.putIfAbsent(childAlias, child) != null) {
+        throw new ModelException("Invalid joins on " + entityType.getSimpleName() + ": The join alias " + childAlias
+          + " is used twice.  Please use lhsJoinAlias / rhsJoinAlias (or viaJoinAlias with @ForeignKey) to"
+          + " avoid name clashes.", entityType);
+      }
+    }
+
+    private Node getChild(String childAlias, Element element) throws ModelException {
+      Node result = findChild(childAlias);
+      if (result == null) {
+        throw new ModelException("Invalid joins on " + entityType.getSimpleName() + ": No join with the alias "
+          + childAlias + " (below " + getAlias() + ").  Hint: The join must be declared with @JoinedWithModel.", element);
+      }
+      return result;
+    }
+
+    private Node findChild(String childAlias) {
+      Node result = alias2Child.get(childAlias);
+      if (result != null) {
+        return result;
+      }
+      for (Node child : children) {
+        result = child.findChild(childAlias);
+        if (result != null) {
+          return result;
+        }
+      }
+      return null;
+    }
+
+    private String getAlias() throws ModelException {
+      if (alias == null || alias.isEmpty()) {
+        return getTableName(modelType, entityType);
+      }
+      return alias;
+    }
+  }
+}
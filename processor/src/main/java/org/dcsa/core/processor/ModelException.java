@@ -0,0 +1,20 @@
+package org.dcsa.core.processor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * An error in the annotations of a model (reported on the given element)
+ */
+class ModelException extends Exception {
+
+  private final transient Element element;
+
+  ModelException(String message, Element element) {
+    super(message);
+    this.element = element;
+  }
+
+  Element getElement() {
+    return element;
+  }
+}
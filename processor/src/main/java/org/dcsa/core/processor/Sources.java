@@ -0,0 +1,93 @@
+package org.dcsa.core.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.util.Elements;
+
+/**
+ * Helpers for writing the generated sources
+ */
+final class Sources {
+
+  static final String GENERATED_ANNOTATION = "javax.annotation.processing.Generated";
+
+  private Sources() {}
+
+  /**
+   * @return The qualified name of the class generated for the model (in the package of the model).  It must match
+   * the name GeneratedModelClasses (in dcsa_core) loads.
+   */
+  static String getGeneratedClassName(Elements elements, TypeElement model, String suffix) {
+    return elements.getBinaryName(model).toString().replace('$', '_') + suffix;
+  }
+
+  static String getSimpleName(String qualifiedName) {
+    return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+  }
+
+  /**
+   * @return Whether code in the given package can refer to the type
+   */
+  static boolean isAccessibleFrom(Elements elements, TypeElement type, PackageElement packageElement) {
+    for (Element element = type; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+      if (!(element instanceof TypeElement)) {
+        // Local or anonymous class
+        return false;
+      }
+      if (element.getModifiers().contains(Modifier.PRIVATE)) {
+        return false;
+      }
+      if (!element.getModifiers().contains(Modifier.PUBLIC) && !elements.getPackageOf(element).equals(packageElement)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static String stringLiteral(String value) {
+    StringBuilder builder = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (c < 0x20 || c > 0x7e) {
+            builder.append(String.format("\\u%04x", (int) c));
+          } else {
+            builder.append(c);
+          }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  /**
+   * Appends the package declaration and the class header (with @Generated, if available)
+   */
+  static void appendClassHeader(StringBuilder source, Elements elements, String generatedClassName, String javadoc,
+                                String implementedInterface) {
+    int lastDot = generatedClassName.lastIndexOf('.');
+    if (lastDot > 0) {
+      source.append("package ").append(generatedClassName, 0, lastDot).append(";\n\n");
+    }
+    source.append("/**\n * ").append(javadoc).append("\n */\n");
+    if (elements.getTypeElement(GENERATED_ANNOTATION) != null) {
+      source.append('@').append(GENERATED_ANNOTATION).append('(')
+        .append(stringLiteral(ModelAnalysisProcessor.class.getName())).append(")\n");
+    }
+    source.append("public final class ").append(getSimpleName(generatedClassName))
+      .append(" implements ").append(implementedInterface).append(" {\n");
+  }
+}
@@ -0,0 +1,246 @@
+package org.dcsa.core.processor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class ModelAnalysisProcessorTest {
+
+    // Minimal versions of the annotations and of the interfaces the generated classes implement (the processor
+    // only looks at the names and attributes of the annotations)
+    private static final Map<String, String> STUB_SOURCES = Map.ofEntries(
+            Map.entry("org.springframework.data.relational.core.mapping.Table",
+                    "package org.springframework.data.relational.core.mapping;\n"
+                            + "@java.lang.annotation.Inherited public @interface Table { String value() default \"\"; }"),
+            Map.entry("org.springframework.data.relational.core.mapping.Column",
+                    "package org.springframework.data.relational.core.mapping;\n"
+                            + "public @interface Column { String value() default \"\"; }"),
+            Map.entry("org.springframework.data.relational.core.sql.Join",
+                    "package org.springframework.data.relational.core.sql;\n"
+                            + "public class Join { public enum JoinType { JOIN, LEFT_OUTER_JOIN, RIGHT_OUTER_JOIN } }"),
+            Map.entry("org.springframework.data.annotation.Id",
+                    "package org.springframework.data.annotation;\npublic @interface Id {}"),
+            Map.entry("org.springframework.data.annotation.Transient",
+                    "package org.springframework.data.annotation;\npublic @interface Transient {}"),
+            Map.entry("com.fasterxml.jackson.annotation.JsonProperty",
+                    "package com.fasterxml.jackson.annotation;\npublic @interface JsonProperty { String value() default \"\"; }"),
+            Map.entry("org.dcsa.core.model.ForeignKey",
+                    "package org.dcsa.core.model;\n"
+                            + "import org.springframework.data.relational.core.sql.Join;\n"
+                            + "public @interface ForeignKey {\n"
+                            + "    String into() default \"\"; String fromFieldName() default \"\"; String foreignFieldName();\n"
+                            + "    String viaJoinAlias() default \"\"; Join.JoinType joinType() default Join.JoinType.JOIN;\n"
+                            + "    boolean toOne() default false;\n"
+                            + "}"),
+            Map.entry("org.dcsa.core.model.JoinedWithModel",
+                    "package org.dcsa.core.model;\n"
+                            + "import org.springframework.data.relational.core.sql.Join;\n"
+                            + "@java.lang.annotation.Repeatable(JoinedWithModel.List.class)\n"
+                            + "public @interface JoinedWithModel {\n"
+                            + "    Class<?> rhsModel(); Class<?> lhsModel() default Object.class;\n"
+                            + "    String rhsJoinAlias() default \"\"; String lhsJoinAlias() default \"\";\n"
+                            + "    String rhsFieldName(); String lhsFieldName();\n"
+                            + "    Join.JoinType joinType() default Join.JoinType.JOIN; boolean toOne() default false;\n"
+                            + "    String[] filterFields() default {};\n"
+                            + "    @interface List { JoinedWithModel[] value() default {}; }\n"
+                            + "}"),
+            Map.entry("org.dcsa.core.model.MapEntity",
+                    "package org.dcsa.core.model;\npublic @interface MapEntity { String joinAlias() default \"\"; }"),
+            Map.entry("org.dcsa.core.query.GeneratedDBEntityAnalysis",
+                    "package org.dcsa.core.query;\n"
+                            + "public interface GeneratedDBEntityAnalysis<T> {\n"
+                            + "    Class<T> getModelClass(); void registerFieldsAndJoins(Registrar registrar);\n"
+                            + "    interface Registrar {\n"
+                            + "        void registerJoin(org.springframework.data.relational.core.sql.Join.JoinType joinType,"
+                            + " String lhsAlias, String lhsColumnName, Class<?> rhsModel, String rhsTableName, String rhsAlias,"
+                            + " String rhsColumnName, boolean toOne);\n"
+                            + "        void registerField(String tableAlias, Class<?> declaringClass, String fieldName,"
+                            + " String columnName, String jsonName);\n"
+                            + "    }\n"
+                            + "}"),
+            Map.entry("org.dcsa.core.query.GeneratedFieldAccessors",
+                    "package org.dcsa.core.query;\n"
+                            + "public interface GeneratedFieldAccessors<T> {\n"
+                            + "    Class<T> getModelClass(); java.util.function.Supplier<T> getConstructor();\n"
+                            + "    java.util.function.BiConsumer<T, Object> getSetter(String fieldName);\n"
+                            + "}")
+    );
+
+    private static final String ADDRESS = "package test;\n"
+            + "import org.springframework.data.annotation.Id;\n"
+            + "import org.springframework.data.relational.core.mapping.*;\n"
+            + "@Table(\"address_table\")\n"
+            + "public class Address {\n"
+            + "    @Id Long id;\n"
+            + "    @Column(\"street_name\") String street;\n"
+            + "    private String city;\n"
+            + "    public void setCity(String city) { this.city = city; }\n"
+            + "}";
+
+    private static final String CUSTOMER = "package test;\n"
+            + "import com.fasterxml.jackson.annotation.JsonProperty;\n"
+            + "import org.dcsa.core.model.ForeignKey;\n"
+            + "import org.springframework.data.annotation.Transient;\n"
+            + "import org.springframework.data.relational.core.mapping.Table;\n"
+            + "@Table(\"customer_table\")\n"
+            + "public class Customer {\n"
+            + "    @JsonProperty(\"customerName\") String name;\n"
+            + "    Long addressId;\n"
+            + "    @Transient @ForeignKey(fromFieldName = \"addressId\", foreignFieldName = \"id\") Address address;\n"
+            + "}";
+
+    @Test
+    public void testGeneratedDBEntityAnalysis() {
+        Result result = process(Map.of("test.Address", ADDRESS, "test.Customer", CUSTOMER));
+        Assertions.assertEquals(List.of(), result.errors);
+        String analysis = result.generated.get("test.Customer_DBEntityAnalysis");
+        Assertions.assertNotNull(analysis);
+        assertContainsInOrder(analysis,
+                "registrar.registerJoin(org.springframework.data.relational.core.sql.Join.JoinType.JOIN,"
+                        + " \"customer_table\", \"addressId\", test.Address.class, \"address_table\", \"address_table\", \"id\", true);",
+                "registrar.registerField(\"customer_table\", test.Customer.class, \"name\", \"name\", \"customerName\");",
+                "registrar.registerField(\"customer_table\", test.Customer.class, \"addressId\", \"addressId\", \"addressId\");",
+                "registrar.registerField(\"address_table\", test.Address.class, \"id\", \"id\", \"address.id\");",
+                "registrar.registerField(\"address_table\", test.Address.class, \"street\", \"street_name\", \"address.street\");",
+                "registrar.registerField(\"address_table\", test.Address.class, \"city\", \"city\", \"address.city\");"
+        );
+        Assertions.assertFalse(analysis.contains("test.Customer.class, \"address\""), "The transient model field must not be a query field");
+    }
+
+    @Test
+    public void testGeneratedFieldAccessors() {
+        Result result = process(Map.of("test.Address", ADDRESS));
+        Assertions.assertEquals(List.of(), result.errors);
+        String accessors = result.generated.get("test.Address_FieldAccessors");
+        Assertions.assertNotNull(accessors);
+        assertContainsInOrder(accessors,
+                "return test.Address::new;",
+                "case \"id\":",
+                "return (entity, value) -> entity.id = (java.lang.Long) value;",
+                "case \"street\":",
+                "case \"city\":",
+                "return (entity, value) -> entity.setCity((java.lang.String) value);"
+        );
+    }
+
+    @Test
+    public void testInvalidForeignKeyFailsTheBuild() {
+        String broken = "package test;\n"
+                + "import org.dcsa.core.model.ForeignKey;\n"
+                + "import org.springframework.data.relational.core.mapping.Table;\n"
+                + "@Table(\"broken_table\")\n"
+                + "public class Broken {\n"
+                + "    @ForeignKey(fromFieldName = \"addressId\", foreignFieldName = \"id\") Address address;\n"
+                + "}";
+        Map<String, String> sources = Map.of("test.Address", ADDRESS, "test.Broken", broken);
+        Result result = process(sources);
+        Assertions.assertEquals(1, result.errors.size());
+        Assertions.assertTrue(result.errors.get(0).contains("Broken has no field called addressId (fromFieldName)"),
+                result.errors.get(0));
+        Assertions.assertFalse(result.generated.containsKey("test.Broken_DBEntityAnalysis"));
+
+        Result lenientResult = process(sources, "-A" + ModelAnalysisProcessor.MODEL_ERRORS_OPTION + "=warning");
+        Assertions.assertEquals(List.of(), lenientResult.errors);
+        Assertions.assertEquals(1, lenientResult.warnings.size());
+        Assertions.assertFalse(lenientResult.generated.containsKey("test.Broken_DBEntityAnalysis"));
+    }
+
+    @Test
+    public void testRightJoinFailsTheBuild() {
+        String rightJoined = "package test;\n"
+                + "import org.dcsa.core.model.JoinedWithModel;\n"
+                + "import org.springframework.data.relational.core.mapping.Table;\n"
+                + "import org.springframework.data.relational.core.sql.Join;\n"
+                + "@Table(\"right_table\")\n"
+                + "@JoinedWithModel(lhsFieldName = \"addressId\", rhsModel = Address.class, rhsFieldName = \"id\","
+                + " joinType = Join.JoinType.RIGHT_OUTER_JOIN)\n"
+                + "public class RightJoined {\n"
+                + "    Long addressId;\n"
+                + "}";
+        Result result = process(Map.of("test.Address", ADDRESS, "test.RightJoined", rightJoined));
+        Assertions.assertEquals(1, result.errors.size());
+        Assertions.assertTrue(result.errors.get(0).contains("Please replace RIGHT JOINs with LEFT JOINs"),
+                result.errors.get(0));
+    }
+
+    private static void assertContainsInOrder(String actual, String... expected) {
+        int index = 0;
+        for (String part : expected) {
+            int found = actual.indexOf(part, index);
+            Assertions.assertTrue(found >= 0, "Missing (or out of order): " + part + "\nin:\n" + actual);
+            index = found + part.length();
+        }
+    }
+
+    private static Result process(Map<String, String> modelSources, String... options) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<JavaFileObject> compilationUnits = new ArrayList<>();
+        STUB_SOURCES.forEach((name, source) -> compilationUnits.add(new SourceFile(name, source)));
+        modelSources.forEach((name, source) -> compilationUnits.add(new SourceFile(name, source)));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Result result = new Result();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return new ByteArrayOutputStream() {
+                            @Override
+                            public void close() {
+                                result.generated.put(className, toString(StandardCharsets.UTF_8));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                        // javac parses the generated sources in the next round
+                        return result.generated.get(className);
+                    }
+                };
+            }
+        };
+        List<String> compilerOptions = new ArrayList<>(List.of("-proc:only"));
+        compilerOptions.addAll(List.of(options));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, compilerOptions, null, compilationUnits);
+        task.setProcessors(List.of(new ModelAnalysisProcessor()));
+        task.call();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                result.errors.add(diagnostic.getMessage(Locale.ROOT));
+            } else if (diagnostic.getKind() == Diagnostic.Kind.WARNING) {
+                result.warnings.add(diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        return result;
+    }
+
+    private static class Result {
+        private final Map<String, String> generated = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        private SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.dcsa.core.benchmark;
+
+import org.dcsa.core.extendedrequest.ExtendedParameters;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    /*
+     * The ExtendedParameters are configured via @Value, so they are created by a (minimal) Spring context like in
+     * the tests.  The context is not closed as it lives as long as the benchmark fork.
+     */
+    static ExtendedParameters extendedParameters(Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(ExtendedParameters.class);
+        context.refresh();
+        return context.getBean(ExtendedParameters.class);
+    }
+}
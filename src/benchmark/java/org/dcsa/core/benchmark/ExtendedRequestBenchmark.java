@@ -0,0 +1,127 @@
+package org.dcsa.core.benchmark;
+
+import org.dcsa.core.extendedrequest.ExtendedParameters;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.testsupport.MockR2dbcDialect;
+import org.dcsa.core.models.Customer;
+import org.dcsa.core.models.combined.CustomerBook;
+import org.dcsa.core.models.combined.OrderWithCustomerAndAddresses;
+import org.dcsa.core.query.DBEntityAnalysis;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of building the queries of an {@link ExtendedRequest}
+ *
+ * Each benchmark creates a new request like the controllers do.  The sqlTemplateCacheSize parameter compares
+ * rendering the SQL from scratch (0) with the SQL template cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtendedRequestBenchmark {
+
+    private static final Map<String, List<String>> CUSTOMER_PARAMETERS = Map.of(
+            "name", List.of("Bob"),
+            "customerStatus", List.of("ACTIVE,INACTIVE"),
+            "sort", List.of("name:DESC"),
+            "limit", List.of("20")
+    );
+
+    private static final Map<String, List<String>> ORDER_PARAMETERS = Map.of(
+            "warehouse.address", List.of("Main Street"),
+            "customer.name", List.of("Bob"),
+            "deliveryDate:gte", List.of("2021-01-01T00:00:00Z"),
+            "sort", List.of("customerAddress,warehouse"),
+            "limit", List.of("50")
+    );
+
+    @Param({"0", "256"})
+    public int sqlTemplateCacheSize;
+
+    private ExtendedParameters extendedParameters;
+    private MockR2dbcDialect r2dbcDialect;
+    private Map<String, List<String>> cursorParameters;
+
+    @Setup
+    public void setUp() {
+        extendedParameters = BenchmarkSupport.extendedParameters(Map.of(
+                "sort.sortName", "sort",
+                "search.sqlTemplateCacheSize", sqlTemplateCacheSize
+        ));
+        r2dbcDialect = new MockR2dbcDialect();
+        String cursor = "warehouse.address=Main&limit=50&|Offset|=500";
+        cursorParameters = Map.of("cursor", List.of(
+                Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8))
+        ));
+    }
+
+    @Benchmark
+    public DBEntityAnalysis<Customer> buildCustomerAnalysis() {
+        return DBEntityAnalysis.builder(Customer.class).loadFieldsAndJoinsFromModel().build();
+    }
+
+    @Benchmark
+    public DBEntityAnalysis<CustomerBook> buildCustomerBookAnalysis() {
+        return DBEntityAnalysis.builder(CustomerBook.class).loadFieldsAndJoinsFromModel().build();
+    }
+
+    @Benchmark
+    public DBEntityAnalysis<OrderWithCustomerAndAddresses> buildOrderAnalysis() {
+        return DBEntityAnalysis.builder(OrderWithCustomerAndAddresses.class).loadFieldsAndJoinsFromModel().build();
+    }
+
+    @Benchmark
+    public ExtendedRequest<Customer> parseCustomerParameters() {
+        ExtendedRequest<Customer> request = new ExtendedRequest<>(extendedParameters, r2dbcDialect, Customer.class);
+        request.parseParameter(CUSTOMER_PARAMETERS);
+        return request;
+    }
+
+    @Benchmark
+    public ExtendedRequest<OrderWithCustomerAndAddresses> parseOrderParameters() {
+        ExtendedRequest<OrderWithCustomerAndAddresses> request = newOrderRequest();
+        request.parseParameter(ORDER_PARAMETERS);
+        return request;
+    }
+
+    @Benchmark
+    public ExtendedRequest<OrderWithCustomerAndAddresses> parseOrderCursor() {
+        ExtendedRequest<OrderWithCustomerAndAddresses> request = newOrderRequest();
+        request.parseParameter(cursorParameters);
+        return request;
+    }
+
+    @Benchmark
+    public String renderCustomerQuery() {
+        ExtendedRequest<Customer> request = new ExtendedRequest<>(extendedParameters, r2dbcDialect, Customer.class);
+        request.parseParameter(CUSTOMER_PARAMETERS);
+        return request.getQuery().toQuery();
+    }
+
+    @Benchmark
+    public String renderOrderQuery() {
+        ExtendedRequest<OrderWithCustomerAndAddresses> request = newOrderRequest();
+        request.parseParameter(ORDER_PARAMETERS);
+        return request.getQuery().toQuery();
+    }
+
+    @Benchmark
+    public String renderOrderCountQuery() {
+        ExtendedRequest<OrderWithCustomerAndAddresses> request = newOrderRequest();
+        request.parseParameter(ORDER_PARAMETERS);
+        return request.getCountQuery().toQuery();
+    }
+
+    private ExtendedRequest<OrderWithCustomerAndAddresses> newOrderRequest() {
+        return new ExtendedRequest<>(extendedParameters, r2dbcDialect, OrderWithCustomerAndAddresses.class);
+    }
+}
@@ -0,0 +1,103 @@
+package org.dcsa.core.benchmark;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.dcsa.core.extendedrequest.ExtendedParameters;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.testsupport.MockR2dbcDialect;
+import org.dcsa.core.models.Customer;
+import org.dcsa.core.models.combined.CustomerBook;
+import org.dcsa.core.models.combined.CustomerStatus;
+import org.dcsa.core.repository.RowMapper;
+import org.dcsa.core.stub.StubRow;
+import org.dcsa.core.stub.StubRowMetadata;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Benchmarks of mapping a row into a model via the {@link RowMapper} (using the {@link StubRow} of the tests)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMapperBenchmark {
+
+    private final RowMapper rowMapper = new RowMapper();
+
+    private ExtendedRequest<Customer> customerRequest;
+    private Row customerRow;
+    private RowMetadata customerRowMetadata;
+    private BiFunction<Row, RowMetadata, Customer> customerResultSetMapper;
+
+    private ExtendedRequest<CustomerBook> customerBookRequest;
+    private Row customerBookRow;
+    private RowMetadata customerBookRowMetadata;
+
+    @Setup
+    public void setUp() {
+        ExtendedParameters extendedParameters = BenchmarkSupport.extendedParameters(Map.of("sort.sortName", "sort"));
+        MockR2dbcDialect r2dbcDialect = new MockR2dbcDialect();
+
+        customerRequest = new ExtendedRequest<>(extendedParameters, r2dbcDialect, Customer.class);
+        customerRequest.parseParameter(Collections.emptyMap());
+        StubRow row = StubRow.of(Map.of(
+                "id", 1L,
+                "name", "customerName",
+                "addressId", 2L,
+                "customerStatus", "ACTIVE"
+        ), Map.of(
+                "customerStatus", CustomerStatus.class
+        ));
+        customerRow = row;
+        customerRowMetadata = StubRowMetadata.of(row.getStubColumnMetadatas());
+        customerResultSetMapper = rowMapper.forResultSet(customerRequest.getDbEntityAnalysis(), Customer.class,
+                customerRequest.ignoreUnknownProperties());
+
+        customerBookRequest = new ExtendedRequest<>(extendedParameters, r2dbcDialect, CustomerBook.class);
+        customerBookRequest.parseParameter(Collections.emptyMap());
+        row = StubRow.of(Map.ofEntries(
+                Map.entry("customer.deliveryAddress.addressId", 1L),
+                Map.entry("customer.deliveryAddress.address", "deliveryAddress"),
+                Map.entry("customer.deliveryAddress.cityId", 2L),
+                Map.entry("customer.paymentAddress.addressId", 3L),
+                Map.entry("customer.paymentAddress.address", "paymentAddress"),
+                Map.entry("customer.paymentAddress.cityId", 4L),
+                Map.entry("customer.id", 5L),
+                Map.entry("customer.name", "customerName"),
+                Map.entry("customer.deliveryAddressId", 1L),
+                Map.entry("customer.paymentAddressId", 3L),
+                Map.entry("id", 6L),
+                Map.entry("name", "customerBookName"),
+                Map.entry("customerId", 5L)
+        ));
+        List<ColumnMetadata> columnMetadatas = row.getStubColumnMetadatas();
+        customerBookRow = row;
+        customerBookRowMetadata = StubRowMetadata.of(columnMetadatas);
+    }
+
+    @Benchmark
+    public Customer mapCustomer() {
+        return rowMapper.mapRow(customerRow, customerRowMetadata, customerRequest.getDbEntityAnalysis(),
+                Customer.class, customerRequest.ignoreUnknownProperties());
+    }
+
+    @Benchmark
+    public Customer mapCustomerResultSet() {
+        return customerResultSetMapper.apply(customerRow, customerRowMetadata);
+    }
+
+    @Benchmark
+    public CustomerBook mapCustomerBook() {
+        return rowMapper.mapRow(customerBookRow, customerBookRowMetadata, customerBookRequest.getDbEntityAnalysis(),
+                CustomerBook.class, customerBookRequest.ignoreUnknownProperties());
+    }
+}
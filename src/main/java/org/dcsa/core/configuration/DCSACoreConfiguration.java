@@ -1,7 +1,9 @@
 package org.dcsa.core.configuration;
 
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.r2dbc.dialect.DialectResolver;
@@ -19,11 +21,38 @@ public class DCSACoreConfiguration {
   @Value("${dcsa.supportProxyHeaders:true}")
   private boolean supportProxyHeaders;
 
+  // Max number of prepared statements the r2dbc-postgresql driver caches per connection (keyed by the SQL).
+  // A cached statement is not parsed again by the database, which is what makes the stable query shapes of
+  // the ExtendedRequest (see search.sqlTemplateCacheSize) pay off on the server.  See
+  // org.dcsa.core.extendedrequest.StatementStatistics for how often the statements of a model are reused.
+  //
+  // -1 (default) keeps the driver's default (unbounded), 0 disables the cache.
+  //
+  // This can be changed in the application.yaml file to 500 by writing:
+  // dcsa:
+  //   r2dbc:
+  //     preparedStatementCacheQueries: 500
+  @Value("${dcsa.r2dbc.preparedStatementCacheQueries:-1}")
+  private int preparedStatementCacheQueries;
+
   @Bean
   public R2dbcDialect r2dbcDialectBean(DatabaseClient databaseClient) {
     return DialectResolver.getDialect(databaseClient.getConnectionFactory());
   }
 
+  @Bean
+  public ConnectionFactoryOptionsBuilderCustomizer preparedStatementCacheCustomizer() {
+    return builder -> {
+      if (preparedStatementCacheQueries < -1) {
+        throw new IllegalStateException("Invalid configuration: dcsa.r2dbc.preparedStatementCacheQueries must be greater than or equal to -1");
+      }
+      if (preparedStatementCacheQueries != -1) {
+        log.info("Using a prepared statement cache size of {}. Use dcsa.r2dbc.preparedStatementCacheQueries=<size> to change this", preparedStatementCacheQueries);
+        builder.option(PostgresqlConnectionFactoryProvider.PREPARED_STATEMENT_CACHE_QUERIES, preparedStatementCacheQueries);
+      }
+    };
+  }
+
   @Bean
   public Function<ServerHttpRequest, ServerHttpRequest> forwardedHeaderTransformer() {
     if (!supportProxyHeaders) {
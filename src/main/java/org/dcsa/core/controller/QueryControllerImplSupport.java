@@ -6,9 +6,12 @@ import org.dcsa.core.extendedrequest.ExtendedRequest;
 import org.dcsa.core.service.BaseQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 
 /*
@@ -32,7 +35,8 @@ abstract class QueryControllerImplSupport<S extends BaseQueryService<DM, TO, I>,
    * Provides the {@link ExtendedRequest} object used for the filter/sorting support
    *
    * This method can be overridden to provide a custom {@link ExtendedRequest}
-   * implementation if the default does not work.
+   * implementation if the default does not work.  It is also used by the
+   * {@link QueryWarmUp} on start up.
    *
    * @return The ExtendedRequest object which will be used for the querying.
    */
@@ -43,26 +47,96 @@ abstract class QueryControllerImplSupport<S extends BaseQueryService<DM, TO, I>,
   /**
    * Provides the "GET (all)" endpoint with DCSA filter, sorting and cursor support.
    *
+   * If the request supports conditional requests (see {@link ExtendedRequest#isConditionalGetSupported()}),
+   * a probe query determines the version of the result first.  If the client already has that version
+   * (If-None-Match / If-Modified-Since), the response is "304 Not Modified" without running the count and
+   * data queries.  Otherwise, the probe also provides the total, so the count query is not run either (see
+   * {@link ExtendedRequest#setResultVersion(org.dcsa.core.extendedrequest.ResultVersion)}).
+   *
+   * Clients that accept newline delimited JSON (application/x-ndjson) get the result as a stream, which is
+   * written while it is read from the database (a paginated result once its page is complete).
+   *
    * Usually, you do <b>not</b> need to override this method.
    *
-   * @param response The server http response object (injected by Spring)
-   * @param request The server http request object (injected by Spring)
+   * @param exchange The server web exchange (injected by Spring)
    * @return A flux of the result.
    */
   @GetMapping
+  public Flux<TO> findAll(ServerWebExchange exchange) {
+    return findAll(exchange.getResponse(), exchange.getRequest(), exchange);
+  }
+
+  /**
+   * Provides the "GET (all)" result with DCSA filter, sorting and cursor support for the given request.
+   *
+   * This is the entry point for controllers that call it from their own endpoint.  It works like
+   * {@link #findAll(ServerWebExchange)} except that it does not support conditional requests (they need the
+   * exchange), so it always runs the count and data queries.
+   *
+   * @param response The server http response object
+   * @param request The server http request object
+   * @return A flux of the result.
+   */
   public Flux<TO> findAll(ServerHttpResponse response, ServerHttpRequest request) {
+    return findAll(response, request, null);
+  }
+
+  private Flux<TO> findAll(ServerHttpResponse response, ServerHttpRequest request, ServerWebExchange exchange) {
     ExtendedRequest<DM> extendedRequest = newExtendedRequest();
+    extendedRequest.setControllerName(ClassUtils.getUserClass(this).getSimpleName());
     try {
       extendedRequest.parseParameter(request.getQueryParams());
     } catch (GetException getException) {
       return Flux.error(getException);
     }
 
-    return getService().findAllExtended(extendedRequest).doOnComplete(
-      () -> {
-        // Add Link headers to the response
+    if (exchange == null || !extendedRequest.isConditionalGetSupported()) {
+      return findAllWithHeaders(extendedRequest, response, request);
+    }
+    return getService().findResultVersionExtended(extendedRequest)
+      .map(resultVersion -> {
+        extendedRequest.setResultVersion(resultVersion);
+        // Sets the ETag and Last-Modified headers (and the status 304 if the client has the result)
+        return extendedRequest.checkNotModified(exchange);
+      })
+      .defaultIfEmpty(false)
+      .flatMapMany(notModified -> {
+        if (!notModified) {
+          return findAllWithHeaders(extendedRequest, response, request);
+        }
+        // Commit the response without a body.  The (empty) result is then not written.
+        return response.setComplete().thenMany(Flux.<TO>empty());
+      });
+  }
+
+  private Flux<TO> findAllWithHeaders(ExtendedRequest<DM> extendedRequest, ServerHttpResponse response, ServerHttpRequest request) {
+    Flux<TO> result = getService().findAllExtended(extendedRequest);
+    if (!isStreamRequested(request)) {
+      return result.doOnComplete(
+        () -> {
+          // Add Link headers to the response
+          extendedRequest.insertHeaders(response, request);
+        }
+      );
+    }
+    // Newline delimited JSON is written while it is read from the database (with backpressure), so an
+    // unpaginated result (e.g., limit=ALL) is never held in memory as a whole.  The headers are committed
+    // with the first row, so they must be known up front.
+    if (extendedRequest.getPageSize() == 0) {
+      // Unpaginated results only have the Current-Page header, which only depends on the query parameters
+      return Flux.defer(() -> {
         extendedRequest.insertHeaders(response, request);
-      }
-    );
+        return result;
+      });
+    }
+    // Paginated results are bounded by the page size.  The Next-Page and Last-Page headers depend on the
+    // count and the rows of the page, so the page is written once it is complete.
+    return result.collectList()
+      .doOnNext(page -> extendedRequest.insertHeaders(response, request))
+      .flatMapIterable(page -> page);
+  }
+
+  private static boolean isStreamRequested(ServerHttpRequest request) {
+    return request.getHeaders().getAccept().stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
   }
 }
@@ -0,0 +1,173 @@
+package org.dcsa.core.controller;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ValidationDepth;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dcsa.core.extendedrequest.ExtendedParameters;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.service.BaseQueryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Prepares the queries of all list endpoints when the application starts
+ *
+ * For every {@link QueryController}, {@link AsymmetricQueryController} and {@link BaseQueryService}
+ * bean, this builds the {@link org.dcsa.core.query.DBEntityAnalysis} and renders the base select
+ * and count queries.  This moves the cost of reflection and SQL rendering out of the first request
+ * and reports broken models (e.g., an invalid {@link org.dcsa.core.model.JoinedWithModel} or
+ * {@link org.dcsa.core.model.ForeignKey}) on start up rather than on their first request.  By default, a model
+ * that cannot be prepared fails the start up.  In lenient mode (dcsa.warmUp.lenient), it is only logged and
+ * its endpoint fails as it would without the warm-up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueryWarmUp {
+
+  private final ApplicationContext applicationContext;
+  private final ExtendedParameters extendedParameters;
+  private final R2dbcDialect r2dbcDialect;
+  private final ConnectionFactory connectionFactory;
+
+  // Whether to prepare the queries on start up.
+  // This can be disabled in the application.yaml file by writing:
+  // dcsa:
+  //   warmUp:
+  //     enabled: false
+  @Value("${dcsa.warmUp.enabled:true}")
+  private boolean enabled;
+
+  // Whether to start the application even if the queries of a model cannot be prepared (the failure is
+  // logged instead).  By default, such a model fails the start up.
+  // This can be enabled in the application.yaml file by writing:
+  // dcsa:
+  //   warmUp:
+  //     lenient: true
+  @Value("${dcsa.warmUp.lenient:false}")
+  private boolean lenient;
+
+  // Whether to open and validate database connections on start up.  With a connection pool, this
+  // fills the pool so the first requests do not have to wait for new connections.
+  // This can be enabled in the application.yaml file by writing:
+  // dcsa:
+  //   warmUp:
+  //     validateConnections: true
+  @Value("${dcsa.warmUp.validateConnections:false}")
+  private boolean validateConnections;
+
+  // The number of connections to open (concurrently) when dcsa.warmUp.validateConnections is enabled.
+  // This can be changed in the application.yaml file to 10 by writing:
+  // dcsa:
+  //   warmUp:
+  //     connectionCount: 10
+  @Value("${dcsa.warmUp.connectionCount:1}")
+  private int connectionCount;
+
+  // How long to wait for the connections to be opened and validated.
+  // This can be changed in the application.yaml file to 1 minute by writing:
+  // dcsa:
+  //   warmUp:
+  //     connectionTimeout: 1m
+  @Value("${dcsa.warmUp.connectionTimeout:30s}")
+  private Duration connectionTimeout;
+
+  @EventListener(ApplicationStartedEvent.class)
+  public void warmUp() {
+    if (!enabled) {
+      log.info("Query warm-up is disabled. Use dcsa.warmUp.enabled=[true|false] to change this");
+      return;
+    }
+    long start = System.nanoTime();
+    // Keyed by the ExtendedRequest class and the model class, so each combination is only prepared once.
+    Map<List<Class<?>>, String> prepared = new HashMap<>();
+    // Covers both QueryController and AsymmetricQueryController (using the ExtendedRequest of the controller)
+    for (Map.Entry<String, QueryControllerImplSupport> entry : applicationContext.getBeansOfType(QueryControllerImplSupport.class).entrySet()) {
+      QueryControllerImplSupport<?, ?, ?, ?> controller = entry.getValue();
+      warmUpRequest(entry.getKey(), controller::newExtendedRequest, prepared);
+    }
+    for (Map.Entry<String, BaseQueryService> entry : applicationContext.getBeansOfType(BaseQueryService.class).entrySet()) {
+      BaseQueryService<?, ?, ?> service = entry.getValue();
+      warmUpRequest(entry.getKey(), () -> new ExtendedRequest<>(extendedParameters, r2dbcDialect, service.getModelClass()), prepared);
+    }
+    if (validateConnections) {
+      validateConnections();
+    }
+    log.info("Query warm-up of {} model(s) completed in {} ms", prepared.size(), elapsedMillis(start));
+  }
+
+  private void warmUpRequest(String beanName, Supplier<? extends ExtendedRequest<?>> requestSupplier, Map<List<Class<?>>, String> prepared) {
+    long start = System.nanoTime();
+    ExtendedRequest<?> extendedRequest;
+    try {
+      extendedRequest = requestSupplier.get();
+    } catch (RuntimeException e) {
+      handleFailure("Could not create the ExtendedRequest for bean " + beanName, e);
+      return;
+    }
+    List<Class<?>> key = List.of(extendedRequest.getClass(), extendedRequest.getModelClass());
+    if (prepared.containsKey(key)) {
+      return;
+    }
+    String modelName = extendedRequest.getModelClass().getSimpleName();
+    try {
+      extendedRequest.parseParameter(Collections.emptyMap());
+      extendedRequest.getCountQuery().toQuery();
+      extendedRequest.getQuery().toQuery();
+    } catch (RuntimeException e) {
+      handleFailure("Could not prepare the queries for model " + modelName + " (used by bean " + beanName + ")", e);
+      return;
+    }
+    prepared.put(key, beanName);
+    log.info("Prepared queries for model {} (bean {}) in {} ms", modelName, beanName, elapsedMillis(start));
+  }
+
+  // Fails the start up unless the warm-up is lenient
+  private void handleFailure(String message, RuntimeException e) {
+    if (!lenient) {
+      throw new IllegalStateException("Query warm-up failed: " + message + ": " + e.getMessage()
+        + ".  Use dcsa.warmUp.lenient=true to start anyway", e);
+    }
+    log.error("Query warm-up failed: {}: {}", message, e.getMessage(), e);
+  }
+
+  private void validateConnections() {
+    long start = System.nanoTime();
+    int count = Math.max(connectionCount, 1);
+    // Hold all connections open at the same time, so a pool has to create all of them.
+    List<Connection> connections = Collections.synchronizedList(new ArrayList<>(count));
+    try {
+      Flux.range(0, count)
+        .flatMap(i -> Mono.from(connectionFactory.create()))
+        .doOnNext(connections::add)
+        .concatMap(connection -> Mono.from(connection.validate(ValidationDepth.REMOTE)))
+        .filter(valid -> !valid)
+        .next()
+        .flatMap(invalid -> Mono.<Boolean>error(new IllegalStateException("A database connection failed validation")))
+        .block(connectionTimeout);
+    } catch (RuntimeException e) {
+      throw new IllegalStateException("Query warm-up failed: Could not open and validate database connections: " + e.getMessage(), e);
+    } finally {
+      Flux.fromIterable(connections)
+        .concatMap(connection -> Mono.from(connection.close()))
+        .blockLast(connectionTimeout);
+    }
+    log.info("Opened and validated {} database connection(s) in {} ms", count, elapsedMillis(start));
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+  }
+}
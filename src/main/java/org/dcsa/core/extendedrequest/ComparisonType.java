@@ -52,6 +52,27 @@ enum ComparisonType {
     return multiValueCondition(defaultFieldConversion(queryField), expressions);
   }
 
+  /**
+   * Compare the field against all elements of an array (bound as a single parameter)
+   *
+   * Renders "field = ANY(array)" for {@link #EQ} and "field != ALL(array)" for {@link #NEQ}.  Unlike
+   * {@link #multiValueCondition(QueryField, List)}, the SQL does not depend on the number of values.
+   *
+   * @param queryField The field to compare
+   * @param arrayExpression The (bind marker of the) array
+   * @return The condition
+   */
+  public FilterCondition arrayCondition(QueryField queryField, Expression arrayExpression) {
+    if (this != EQ && this != NEQ) {
+      throw new IllegalArgumentException("Only EQ and NEQ can be used with arrays");
+    }
+    Expression field = defaultFieldConversion(queryField);
+    if (this == EQ) {
+      return InlineableFilterCondition.of(Comparison.create(field, "=", SimpleFunction.create("ANY", List.of(arrayExpression))));
+    }
+    return InlineableFilterCondition.of(Comparison.create(field, "!=", SimpleFunction.create("ALL", List.of(arrayExpression))));
+  }
+
   public FilterCondition multiValueCondition(Expression field, List<Expression> expressions) {
     if (expressions.isEmpty()) {
       throw new IllegalArgumentException("Right-hand side expression list must be non-empty");
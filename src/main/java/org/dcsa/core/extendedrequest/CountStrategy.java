@@ -0,0 +1,37 @@
+package org.dcsa.core.extendedrequest;
+
+/**
+ * When the total number of rows (the COUNT query) is computed for a paginated request
+ */
+public enum CountStrategy {
+  /**
+   * Always run the COUNT query before the data query.  The total is used to decide whether there
+   * is a next page and to provide the last page.
+   */
+  EXACT,
+
+  /**
+   * Only run the COUNT query when the client asks for the total (see
+   * {@link ExtendedParameters#getTotalCountName()}).  Otherwise, the data query fetches one row more
+   * than the page size to decide whether there is a next page and the last page is omitted.
+   */
+  ON_DEMAND,
+
+  /**
+   * Compute the total in the data query via a "COUNT(*) OVER()" column, so the page and the total are
+   * fetched with a single statement.  A page past the end has no rows to read the total from, in which
+   * case the COUNT query is run after all.  Falls back to {@link #EXACT} for queries with DISTINCT.
+   */
+  WINDOW,
+
+  /**
+   * Use the row estimate of the Postgres query planner ("EXPLAIN") as the total when it is at least
+   * {@link ExtendedParameters#getEstimatedCountThreshold()}.  Smaller estimates are replaced by an exact
+   * count.  The estimate is reported to the client via the {@link ExtendedParameters#getEstimatedCountName()}
+   * header.  Clients can still get an exact total by asking for it (see
+   * {@link ExtendedParameters#getTotalCountName()}).
+   *
+   * Falls back to {@link #EXACT} for other databases than Postgres.
+   */
+  ESTIMATED,
+}
@@ -3,8 +3,11 @@ package org.dcsa.core.extendedrequest;
 import org.springframework.data.relational.core.sql.OrderByField;
 import org.springframework.r2dbc.core.binding.Bindings;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface CursorBackedFilterCondition extends FilterCondition {
 
@@ -31,4 +34,61 @@ public interface CursorBackedFilterCondition extends FilterCondition {
    * @return 0 if no offset, otherwise a positive integer determining the offset (for OFFSET based queries)
    */
   int getOffset();
+
+  /**
+   *
+   * @return null if the request does not use keyset pagination, otherwise the keyset position of the request
+   */
+  default KeysetCursor getKeysetCursor() {
+    return null;
+  }
+
+  /**
+   *
+   * @return true if the client explicitly asked for the total number of rows
+   */
+  default boolean isTotalCountRequested() {
+    return false;
+  }
+
+  /**
+   *
+   * @return The aliases of the joins that are part of the condition as an EXISTS (semi-join) instead of being
+   *         joined into the query (see {@link ExtendedRequest#isFilterJoinsAsExists()}).
+   */
+  default Set<String> getSemiJoinAliases() {
+    return Collections.emptySet();
+  }
+
+  /**
+   *
+   * @return The join aliases of the query fields that the condition uses.  Unlike {@link #getReferencedQueryFields()},
+   *         this excludes fields that are only used for sorting.
+   */
+  default Set<String> getConditionJoinAliases() {
+    Set<String> aliases = new HashSet<>();
+    for (QueryField queryField : getReferencedQueryFields()) {
+      aliases.add(queryField.getTableJoinAlias());
+    }
+    return aliases;
+  }
+
+  /**
+   *
+   * @return null if all selectable fields are selected, otherwise the fields to select (the fields requested
+   *         by the client plus the fields needed to map and sort the rows).
+   */
+  default List<QueryField> getSelectedQueryFields() {
+    return null;
+  }
+
+  /**
+   *
+   * @return The query parameters (as in {@link #getCursorParameters()}) whose values are bound as a single
+   *         array (see {@link ExtendedRequest#isMultiValueArrayBinding()}).  The SQL of these does not depend
+   *         on the number of values.
+   */
+  default Set<String> getArrayBoundParameters() {
+    return Collections.emptySet();
+  }
 }
@@ -0,0 +1,45 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.Data;
+import org.dcsa.core.query.DBEntityAnalysis;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of {@link DBEntityAnalysis} instances
+ *
+ * The analysis of a model only depends on the model class and on how the concrete
+ * {@link ExtendedRequest} (sub)class prepares it via {@link ExtendedRequest#prepareDBEntityAnalysis()}.
+ * Once built, the analysis is never changed, so it can be shared by all requests.
+ */
+class DBEntityAnalysisCache {
+
+  private static final ConcurrentMap<CacheKey, DBEntityAnalysis<?>> CACHE = new ConcurrentHashMap<>();
+
+  private DBEntityAnalysisCache() {}
+
+  static <T> DBEntityAnalysis<T> getOrBuild(Class<?> requestClass, Class<T> modelClass, Supplier<DBEntityAnalysis<T>> builder) {
+    CacheKey key = CacheKey.of(requestClass, modelClass);
+    @SuppressWarnings("unchecked")
+    DBEntityAnalysis<T> analysis = (DBEntityAnalysis<T>) CACHE.get(key);
+    if (analysis == null) {
+      // Build outside the map to avoid holding a lock in the map while doing reflection.  If two
+      // requests race, they build the same analysis and the first one to finish wins.
+      analysis = builder.get();
+      @SuppressWarnings("unchecked")
+      DBEntityAnalysis<T> existing = (DBEntityAnalysis<T>) CACHE.putIfAbsent(key, analysis);
+      if (existing != null) {
+        analysis = existing;
+      }
+    }
+    return analysis;
+  }
+
+  @Data(staticConstructor = "of")
+  private static class CacheKey {
+    private final Class<?> requestClass;
+    private final Class<?> modelClass;
+  }
+}
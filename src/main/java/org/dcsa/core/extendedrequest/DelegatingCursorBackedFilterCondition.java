@@ -34,6 +34,24 @@ class DelegatingCursorBackedFilterCondition implements CursorBackedFilterConditi
   @Getter
   private final int offset;
 
+  @Getter
+  private final KeysetCursor keysetCursor;
+
+  @Getter
+  private final boolean totalCountRequested;
+
+  @Getter
+  private final Set<String> semiJoinAliases;
+
+  @Getter
+  private final Set<String> conditionJoinAliases;
+
+  @Getter
+  private final List<QueryField> selectedQueryFields;
+
+  @Getter
+  private final Set<String> arrayBoundParameters;
+
   @Override
   public Condition computeCondition(R2dbcDialect r2dbcDialect) {
     return delegate.computeCondition(r2dbcDialect);
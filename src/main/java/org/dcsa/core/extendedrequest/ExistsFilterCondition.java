@@ -0,0 +1,83 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.RequiredArgsConstructor;
+import org.dcsa.core.util.ReflectUtility;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
+import org.springframework.data.relational.core.sql.*;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+
+import java.util.List;
+
+/*
+ * Filters on a joined table as a semi-join:
+ *
+ *   EXISTS (SELECT 1 FROM rhs_table WHERE <join condition> AND <filters>)
+ *
+ * The subquery is built with the SQL builder.  The builder requires a select to import every table that its
+ * columns reference, so the column of the dependent table in the join condition is referenced by name (as a
+ * plain expression).  This limits the rewrite to joins whose condition compares a column of the joined table
+ * with a column of the dependent table (see isCorrelatable), which covers @JoinedWithModel and @ForeignKey.
+ * The builder has no EXISTS, so only the "EXISTS (...)" around the rendered subquery is plain SQL.
+ */
+@RequiredArgsConstructor(staticName = "of")
+class ExistsFilterCondition implements FilterCondition {
+
+  private final JoinDescriptor joinDescriptor;
+  private final List<FilterCondition> filters;
+
+  /**
+   * @return true if the join condition is a comparison of a column of the joined table with a column of
+   * another table
+   */
+  static boolean isCorrelatable(JoinDescriptor joinDescriptor) {
+    if (!(joinDescriptor.getCondition() instanceof Comparison)) {
+      return false;
+    }
+    Comparison comparison = (Comparison) joinDescriptor.getCondition();
+    if (!(comparison.getLeft() instanceof Column) || !(comparison.getRight() instanceof Column)) {
+      return false;
+    }
+    String rhsAlias = joinDescriptor.getJoinAliasId();
+    return isJoinedColumn(comparison.getLeft(), rhsAlias) != isJoinedColumn(comparison.getRight(), rhsAlias);
+  }
+
+  @Override
+  public Condition computeCondition(R2dbcDialect r2dbcDialect) {
+    if (!isCorrelatable(joinDescriptor)) {
+      throw new IllegalStateException("Cannot render the EXISTS condition for the join " + joinDescriptor.getJoinAliasId());
+    }
+    SqlRenderer sqlRenderer = r2dbcDialect != null
+      ? SqlRenderer.create(new RenderContextFactory(r2dbcDialect).createRenderContext())
+      : SqlRenderer.create();
+    IdentifierProcessing identifierProcessing = r2dbcDialect != null
+      ? r2dbcDialect.getIdentifierProcessing()
+      : IdentifierProcessing.NONE;
+    Comparison joinCondition = (Comparison) joinDescriptor.getCondition();
+    String rhsAlias = joinDescriptor.getJoinAliasId();
+    Condition correlation = Comparison.create(
+      correlate(joinCondition.getLeft(), rhsAlias, identifierProcessing),
+      joinCondition.getComparator(),
+      correlate(joinCondition.getRight(), rhsAlias, identifierProcessing)
+    );
+    Select subquery = Select.builder().select(SQL.literalOf(1))
+      .from(joinDescriptor.getRHSTable())
+      .where(correlation.and(QueryParameterParser.andAllFilters(filters, false).computeCondition(r2dbcDialect)))
+      .build();
+    return Conditions.just("EXISTS (" + sqlRenderer.render(subquery) + ")");
+  }
+
+  private static boolean isJoinedColumn(Expression expression, String rhsAlias) {
+    return ReflectUtility.getAliasId(((Column) expression).getTable()).equals(rhsAlias);
+  }
+
+  // A column of the outer query is referenced by name as the subquery does not import its table
+  private static Expression correlate(Expression expression, String rhsAlias, IdentifierProcessing identifierProcessing) {
+    if (isJoinedColumn(expression, rhsAlias)) {
+      return expression;
+    }
+    Column column = (Column) expression;
+    return Expressions.just(column.getTable().getReferenceName().toSql(identifierProcessing)
+      + "." + column.getName().toSql(identifierProcessing));
+  }
+}
@@ -1,6 +1,9 @@
 package org.dcsa.core.extendedrequest;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.annotation.Configuration;
@@ -45,6 +48,13 @@ public class ExtendedParameters {
   @Value( "${sort.sortName:sort}" )
   private String sortParameterName;
 
+  // "fields" used as the parameter to limit the returned fields (e.g. "?fields=id,name,address.city")
+  // This can be changed in the Application.yaml file to "select" by writing:
+  // search:
+  //   fieldsName: select
+  @Value( "${search.fieldsName:fields}" )
+  private String fieldsParameterName;
+
   // Default pagination pageSize set to ALL elements
   //
   // If set to 0, then this uses the value of pagination.maxPageSize
@@ -137,6 +147,68 @@ public class ExtendedParameters {
   @Value( "${pagination.internal.cursor:|Offset|}" )
   private String indexCursorName;
 
+  // Set the pagination mode to OFFSET (default) or KEYSET. See PaginationMode for details.
+  // This can be changed in Application.yaml file to KEYSET by writing:
+  // pagination:
+  //   mode: KEYSET
+  @Value( "${pagination.mode:OFFSET}" )
+  private PaginationMode paginationMode;
+
+  // Set the internal keyset pagination parameter names to "|After|" and "|Before|".  Like the
+  // pagination.internal.cursor, these must NOT conflict with field names.
+  // This can be changed in Application.yaml fil to "|from|" and "|to|" by writing:
+  // pagination:
+  //   internal
+  //     keysetAfterCursor: |from|
+  //     keysetBeforeCursor: |to|
+  @Value( "${pagination.internal.keysetAfterCursor:|After|}" )
+  private String keysetAfterCursorName;
+
+  @Value( "${pagination.internal.keysetBeforeCursor:|Before|}" )
+  private String keysetBeforeCursorName;
+
+  // Set when the total number of rows is counted to EXACT (default, always) or ON_DEMAND (only when
+  // the client asks for it). See CountStrategy for details.
+  // This can be changed in Application.yaml file to ON_DEMAND by writing:
+  // pagination:
+  //   countStrategy: ON_DEMAND
+  @Value( "${pagination.countStrategy:EXACT}" )
+  private CountStrategy countStrategy;
+
+  // Default name of the query parameter used by the client to ask for the total number of rows
+  // (e.g. "?totalCount=true").  Only relevant when pagination.countStrategy is ON_DEMAND.
+  // This can be changed in Application.yaml file to "withTotal" by writing:
+  // pagination:
+  //   config:
+  //     totalCountName: withTotal
+  @Value( "${pagination.config.totalCountName:totalCount}" )
+  private String totalCountName;
+
+  // With pagination.countStrategy ESTIMATED, estimates below this number are replaced by an exact count
+  // (the exact count is cheap when there are few rows and an estimate is most noticeably wrong there).
+  // This can be changed in Application.yaml file to 1000000 by writing:
+  // pagination:
+  //   estimatedCountThreshold: 1000000
+  @Value( "${pagination.estimatedCountThreshold:100000}" )
+  private int estimatedCountThreshold;
+
+  // Default estimated-count header name set to "Estimated-Count". The header contains the estimated
+  // total when the total (and thereby the last page) is based on an estimate.
+  // This can be changed in Application.yaml fil to "approximateTotal" by writing:
+  // pagination:
+  //   config:
+  //     estimatedCountName: approximateTotal
+  @Value( "${pagination.config.estimatedCountName:Estimated-Count}" )
+  private String estimatedCountName;
+
+  // Whether to run the COUNT query concurrently with the data query (on a separate connection) instead
+  // of before it.  This saves a database round trip per request at the price of using two connections.
+  // This can be enabled in Application.yaml file by writing:
+  // pagination:
+  //   concurrentCount: true
+  @Value( "${pagination.concurrentCount:false}" )
+  private boolean concurrentCount;
+
   // Set the splitter for Enum values. If multiple Enum values are specified - a list will be created by splitting
   // on the specified value.
   // This can be changed in Application.yaml fil to "|" by writing:
@@ -156,6 +228,135 @@ public class ExtendedParameters {
   @Value("${search.queryParameterAttributeSeparator::}")
   private String queryParameterAttributeSeparator;
 
+  // Max number of rendered SQL queries to keep in the SQL template cache.  Requests with the same
+  // "shape" (same fields, operators, sort order and joins - only the values differ) reuse the
+  // rendered SQL instead of building and rendering it again.
+  //
+  // Only requests of the stock ExtendedRequest use the cache; subclasses have to opt in (see
+  // ExtendedRequest.isSqlTemplateCacheable() for the requirements)
+  //
+  // Set to 0 to disable the cache
+  //
+  // This can be changed in the application.yaml file to 1000 by writing:
+  // search:
+  //   sqlTemplateCacheSize: 1000
+  @Value( "${search.sqlTemplateCacheSize:256}" )
+  private int sqlTemplateCacheSize;
+
+  // Whether to bind filters with multiple values (e.g. "?status=A,B,C") as a single array, so they render as
+  // "= ANY(:array)" instead of "IN (:v1, :v2, ...)" and the SQL does not depend on the number of values.
+  // Only used with Postgres.
+  // This can be enabled in Application.yaml file by writing:
+  // search:
+  //   multiValueArrayBinding: true
+  @Value( "${search.multiValueArrayBinding:false}" )
+  private boolean multiValueArrayBinding;
+
+  // Whether to filter on joins that are only used for filtering (e.g. the filterFields of @JoinedWithModel)
+  // via "EXISTS (SELECT 1 FROM ...)" instead of joining them.  This avoids that a one-to-many join multiplies the
+  // rows of the result (and thereby the need for DISTINCT).
+  // This can be enabled in Application.yaml file by writing:
+  // search:
+  //   filterJoinsAsExists: true
+  @Value( "${search.filterJoinsAsExists:false}" )
+  private boolean filterJoinsAsExists;
+
+  // Whether to leave LEFT OUTER JOINs to at most one row (see JoinedWithModel.toOne()) out of the count query
+  // unless a filter uses them.  Such joins cannot change the number of rows.  Controllers whose ExtendedRequest
+  // adds joins or conditions itself must opt out via ExtendedRequest.isCountJoinPruning().
+  // This can be enabled in Application.yaml file by writing:
+  // search:
+  //   pruneCountJoins: true
+  @Value( "${search.pruneCountJoins:false}" )
+  private boolean pruneCountJoins;
+
+  // Whether the "GET (all)" endpoint supports conditional requests (If-None-Match / If-Modified-Since) for
+  // models with a @LastModifiedDate column.  A probe query ("SELECT MAX(modified_date), COUNT(*)" with the same
+  // filter) runs first and the response is "304 Not Modified" if the client already has the result.
+  // This can be enabled in Application.yaml file by writing:
+  // search:
+  //   conditionalGet: true
+  @Value( "${search.conditionalGet:false}" )
+  private boolean conditionalGet;
+
+  // Set how Postgres plans the queries to AUTO (default, Postgres decides), FORCE_CUSTOM_PLAN or
+  // FORCE_GENERIC_PLAN. See PlanCacheMode for details.
+  // Anything but AUTO costs three extra round trips to the database per query: The query runs in a read-only
+  // transaction (BEGIN and COMMIT) that sets plan_cache_mode (SET LOCAL).  Only change it when a bad generic
+  // plan costs more than that.
+  // This can be changed in Application.yaml file to FORCE_CUSTOM_PLAN by writing:
+  // search:
+  //   planCacheMode: FORCE_CUSTOM_PLAN
+  @Value( "${search.planCacheMode:AUTO}" )
+  private PlanCacheMode planCacheMode;
+
+  // Log queries that take at least this many milliseconds (with the SQL, the types of the bind values and the
+  // query shape).
+  //
+  // Set to 0 to disable the slow query log
+  //
+  // This can be changed in the application.yaml file to 500 ms by writing:
+  // search:
+  //   slowQuery:
+  //     thresholdMillis: 500
+  @Value( "${search.slowQuery.thresholdMillis:0}" )
+  private long slowQueryThresholdMillis;
+
+  // Whether to also log the plan of slow queries.  The plan is fetched (asynchronously) via a separate
+  // "EXPLAIN (FORMAT JSON)" statement, so it is the plan for the current statistics.  Only used with Postgres.
+  // This can be enabled in the application.yaml file by writing:
+  // search:
+  //   slowQuery:
+  //     explain: true
+  @Value( "${search.slowQuery.explain:false}" )
+  private boolean slowQueryExplain;
+
+  // Max number of results (of data or count queries) to keep in the result cache.  Only the results of models
+  // annotated with @CachedResults (or of ExtendedRequest subclasses that enable it) are cached.
+  //
+  // Set to 0 to disable the cache
+  //
+  // This can be changed in the application.yaml file to 100 by writing:
+  // search:
+  //   resultCache:
+  //     maxSize: 100
+  @Value( "${search.resultCache.maxSize:1000}" )
+  private int resultCacheMaxSize;
+
+  // How long to keep a result in the result cache (unless @CachedResults says otherwise)
+  // This can be changed in the application.yaml file to 5 minutes by writing:
+  // search:
+  //   resultCache:
+  //     ttlSeconds: 300
+  @Value( "${search.resultCache.ttlSeconds:60}" )
+  private long resultCacheTtlSeconds;
+
+  // Max number of rows of a result in the result cache.  Results with more rows (e.g. unpaginated results of
+  // large tables) are not cached.
+  //
+  // Set to 0 to cache results of any size
+  //
+  // This can be changed in the application.yaml file to 500 by writing:
+  // search:
+  //   resultCache:
+  //     maxRows: 500
+  @Value( "${search.resultCache.maxRows:1000}" )
+  private int resultCacheMaxRows;
+
+  @Getter(lazy = true)
+  private final SqlTemplateCache sqlTemplateCache = new SqlTemplateCache(sqlTemplateCacheSize);
+
+  @Getter(lazy = true)
+  private final ResultCache resultCache = new ResultCache(resultCacheMaxSize, resultCacheMaxRows);
+
+  // Provided by the actuator (if present).  Without it, the ExtendedRequestMetrics do nothing.
+  @Autowired(required = false)
+  @Getter(AccessLevel.NONE)
+  private MeterRegistry meterRegistry;
+
+  @Getter(lazy = true)
+  private final ExtendedRequestMetrics metrics = ExtendedRequestMetrics.of(meterRegistry);
+
   public List<String> getReservedParameters() {
     return reservedParameters != null ?
       Arrays.asList(reservedParameters.split("\\\\s*,\\\\s*")) :
@@ -180,6 +381,24 @@ public class ExtendedParameters {
     if (maxPageSize > 0 && defaultPageSize > maxPageSize) {
       throw new IllegalStateException("Invalid configuration: pagination.maxPageSize must be greater than pagination.defaultPageSize (or set to 0)");
     }
+    if (estimatedCountThreshold < 0) {
+      throw new IllegalStateException("Invalid configuration: pagination.estimatedCountThreshold must be greater than or equal to 0");
+    }
+    if (slowQueryThresholdMillis < 0) {
+      throw new IllegalStateException("Invalid configuration: search.slowQuery.thresholdMillis must be greater than or equal to 0");
+    }
+    if (sqlTemplateCacheSize < 0) {
+      throw new IllegalStateException("Invalid configuration: search.sqlTemplateCacheSize must be greater than or equal to 0");
+    }
+    if (resultCacheMaxSize < 0) {
+      throw new IllegalStateException("Invalid configuration: search.resultCache.maxSize must be greater than or equal to 0");
+    }
+    if (resultCacheTtlSeconds < 0) {
+      throw new IllegalStateException("Invalid configuration: search.resultCache.ttlSeconds must be greater than or equal to 0");
+    }
+    if (resultCacheMaxRows < 0) {
+      throw new IllegalStateException("Invalid configuration: search.resultCache.maxRows must be greater than or equal to 0");
+    }
   }
 
 }
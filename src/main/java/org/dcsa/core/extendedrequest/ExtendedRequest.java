@@ -3,25 +3,41 @@ package org.dcsa.core.extendedrequest;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.assertj.core.util.VisibleForTesting;
 import org.dcsa.core.exception.ConcreteRequestErrorMessageException;
+import org.dcsa.core.model.CachedResults;
 import org.dcsa.core.query.DBEntityAnalysis;
+import org.dcsa.core.util.ReflectUtility;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
 import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.relational.core.dialect.LimitClause;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.*;
+import org.springframework.data.relational.core.sql.render.RenderContext;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.Bindings;
+import org.springframework.web.server.ServerWebExchange;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -34,8 +50,8 @@ import java.util.stream.Collectors;
  * The class manages everything from creating the SQL to extract the result to creating the query parameter for
  * paginated results.
  * All parameters can be configured in Application.yaml, default values are stored in the ExtendedParameter class
- * NB: Because if time limitations the current implementation simulates Key-Set based pagination but is in fact
- * offset-based pagination (OFFSET is used in the SQL queries)
+ * NB: By default, the pagination is offset-based (OFFSET is used in the SQL queries).  Keyset based pagination
+ * can be enabled via pagination.mode (see {@link PaginationMode}) or by overriding {@link #isKeysetPagination()}.
  * @param <T> the type of the class modeled by this {@code Class}
  *  * object.
  */
@@ -45,6 +61,44 @@ public class ExtendedRequest<T> {
   public static final String PARAMETER_SPLIT = "&";
   public static final String CURSOR_SPLIT = "=";
   public static final String FILTER_SPLIT = "=";
+  // Alias of the "COUNT(*) OVER()" column added with CountStrategy.WINDOW (not a field of any model)
+  public static final String WINDOW_COUNT_COLUMN_NAME = "dcsa_window_count";
+  // Alias of the "MAX(modified_date)" column of the getLastModifiedQuery (not a field of any model)
+  public static final String LAST_MODIFIED_COLUMN_NAME = "dcsa_last_modified";
+
+  private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+  // The value shape of a parameter bound as an array (see getShapeKey)
+  private static final String ARRAY_VALUE_SHAPE = "=[]";
+
+  // The column name of the @LastModifiedDate field by model class (see getLastModifiedColumn)
+  private static final ClassValue<Optional<String>> LAST_MODIFIED_COLUMN_NAMES = new ClassValue<>() {
+    @Override
+    protected Optional<String> computeValue(Class<?> modelClass) {
+      List<Field> lastModifiedFields = new ArrayList<>(1);
+      ReflectUtility.visitAllFields(modelClass, field -> field.isAnnotationPresent(LastModifiedDate.class), lastModifiedFields::add);
+      if (lastModifiedFields.isEmpty()) {
+        return Optional.empty();
+      }
+      return Optional.of(ReflectUtility.transformFromFieldToColumnName(lastModifiedFields.get(0)));
+    }
+  };
+
+  // Whether a request class builds the count query or the probe itself (see isProbeCountReusable)
+  private static final ClassValue<Boolean> COUNT_OR_PROBE_QUERY_OVERRIDDEN = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(Class<?> requestClass) {
+      for (String methodName : List.of("getCountQuery", "getSelectCountQuery", "getLastModifiedQuery")) {
+        try {
+          if (requestClass.getMethod(methodName).getDeclaringClass() != ExtendedRequest.class) {
+            return true;
+          }
+        } catch (NoSuchMethodException e) {
+          throw new IllegalStateException("ExtendedRequest has no method " + methodName, e);
+        }
+      }
+      return false;
+    }
+  };
 
 
   private final ExtendedParameters extendedParameters;
@@ -58,13 +112,40 @@ public class ExtendedRequest<T> {
   @Setter
   protected boolean selectDistinct;
 
+  // The (simple) name of the controller handling the request.  Used to tag the ExtendedRequestMetrics.
+  @Getter
+  @Setter
+  private String controllerName = "none";
+
   private final Set<String> joinAliasInUse = new HashSet<>();
   @Getter
   private DBEntityAnalysis<T> dbEntityAnalysis;
 
+  // Volatile as the count query can run concurrently with the data query (see isCountConcurrent)
   @Getter
   @Setter
-  private int queryCount = -1;  // -1 is a placeholder, so we can tell whether setQueryTotal has been called.
+  private volatile int queryCount = -1;  // -1 is a placeholder, so we can tell whether setQueryTotal has been called.
+
+  // Whether the queryCount is an estimate (see CountStrategy.ESTIMATED)
+  @Getter
+  private volatile boolean queryCountEstimated;
+
+  // The version of the result for conditional GET requests (see getLastModifiedQuery).  Null if unknown.
+  @Getter
+  private ResultVersion resultVersion;
+
+  // Whether the queryCount was taken from the resultVersion (see setResultVersion)
+  @Getter
+  private boolean queryCountFromResultVersion;
+
+  // Number of rows fetched from the database and the keys of the first and last row (for keyset pagination)
+  private int fetchedRows;
+  private String firstFetchedRowKey;
+  private String lastFetchedRowKey;
+
+  private RenderContext renderContext;
+  // Set while rendering a SQL template for the SqlTemplateCache (LIMIT/OFFSET are appended afterwards)
+  private boolean omitLimitOffset;
 
   public Class<T> getModelClass() {
     return modelClass;
@@ -75,10 +156,24 @@ public class ExtendedRequest<T> {
   }
 
   public void parseParameter(Map<String, List<String>> params) {
+    ExtendedRequestMetrics metrics = getMetrics();
+    long start = metrics.startTimer();
     // Reset parameters
     resetParameters();
     getQueryParameterParser().parseQueryParameter(params);
     finishedParsingParameters();
+    if (metrics.isEnabled()) {
+      metrics.recordTime(ExtendedRequestMetrics.PARSE, this, start);
+      metrics.recordValue(ExtendedRequestMetrics.PAGE_SIZE, this, Math.max(filterCondition.getLimit(), 0));
+      metrics.recordValue(ExtendedRequestMetrics.OFFSET, this, filterCondition.getOffset());
+    }
+  }
+
+  /**
+   * @return The metrics to record the stages of this request in (see {@link ExtendedParameters#getMetrics()})
+   */
+  public ExtendedRequestMetrics getMetrics() {
+    return extendedParameters.getMetrics();
   }
 
   // For sub-classes to hook into this
@@ -92,9 +187,368 @@ public class ExtendedRequest<T> {
   public void resetParameters() {
     pagination = new Pagination<>(getExtendedParameters());
     selectDistinct = false;
-    dbEntityAnalysis = this.prepareDBEntityAnalysis().build();
+    long start = getMetrics().startTimer();
+    dbEntityAnalysis = isDBEntityAnalysisCacheable()
+      ? DBEntityAnalysisCache.getOrBuild(getClass(), modelClass, () -> this.prepareDBEntityAnalysis().build())
+      : this.prepareDBEntityAnalysis().build();
+    getMetrics().recordTime(ExtendedRequestMetrics.ENTITY_ANALYSIS, this, start);
     queryParameterParser = new QueryParameterParser<>(extendedParameters, r2dbcDialect, dbEntityAnalysis);
+    queryParameterParser.setKeysetPagination(isKeysetPagination());
+    queryParameterParser.setMultiValueArrayBinding(isMultiValueArrayBinding());
+    queryParameterParser.setFilterJoinsAsExists(isFilterJoinsAsExists());
     joinAliasInUse.clear();
+    queryCountEstimated = false;
+    resultVersion = null;
+    queryCountFromResultVersion = false;
+    fetchedRows = 0;
+    firstFetchedRowKey = null;
+    lastFetchedRowKey = null;
+  }
+
+  /**
+   * Whether to use keyset pagination (see {@link PaginationMode#KEYSET}) for this request
+   *
+   * By default, this is determined by the pagination.mode configuration.  Subclasses can override this to
+   * enable (or disable) keyset pagination for a given endpoint.
+   *
+   * @return true if keyset pagination should be used when possible
+   */
+  protected boolean isKeysetPagination() {
+    return extendedParameters.getPaginationMode() == PaginationMode.KEYSET;
+  }
+
+  /**
+   * Whether to bind filters with multiple values (e.g. "?status=A,B,C") as a single array
+   *
+   * When enabled, such filters render as "field = ANY(:array)" (or "field != ALL(:array)") instead of
+   * "field IN (:v1, :v2, ...)", so the SQL (and thereby the prepared statement and its plan) is the same for any
+   * number of values.  Only used for Postgres and for fields of a type that can be bound as an array (strings,
+   * enums, UUIDs, integers and booleans).
+   *
+   * By default, this is determined by the search.multiValueArrayBinding configuration.  Subclasses can override
+   * this for a given endpoint.
+   *
+   * @return true if multi-value filters should be bound as arrays
+   */
+  protected boolean isMultiValueArrayBinding() {
+    return extendedParameters.isMultiValueArrayBinding() && r2dbcDialect instanceof PostgresDialect;
+  }
+
+  /**
+   * Whether to filter on joins that are only used for filtering via an EXISTS condition
+   *
+   * When enabled, a JOIN where none of the fields are selected or sorted by (e.g. the filterFields of a
+   * {@link org.dcsa.core.model.JoinedWithModel}) is not joined into the query.  Instead, its filters become
+   * "EXISTS (SELECT 1 FROM ... WHERE join condition AND filters)" in both the data and the count query.  For
+   * one-to-many joins, this avoids duplicate rows, so the query does not need {@link #selectDistinct}.
+   *
+   * By default, this is determined by the search.filterJoinsAsExists configuration.  Subclasses that add
+   * conditions on the columns of such a join themselves (rather than via query fields) must return false.
+   *
+   * @return true if filter-only joins should be rewritten as EXISTS conditions
+   */
+  protected boolean isFilterJoinsAsExists() {
+    return extendedParameters.isFilterJoinsAsExists();
+  }
+
+  /**
+   * Whether to leave LEFT OUTER JOINs to at most one row out of the count query
+   *
+   * A LEFT OUTER JOIN where each row matches at most one row of the joined table ({@link JoinDescriptor#isToOne()},
+   * e.g. a {@link org.dcsa.core.model.ForeignKey} into an {@link org.springframework.data.annotation.Id}) cannot
+   * change the number of rows.  When enabled, such joins are only part of the count query if the condition
+   * uses them (or a join that depends on them).
+   *
+   * By default, this is determined by the search.pruneCountJoins configuration (disabled unless configured).
+   * The pruned count query does not call {@link #applyJoins(SelectBuilder.SelectFromAndJoin)}, so subclasses
+   * that add joins by overriding it or that add conditions on the columns of such a join themselves (rather
+   * than via query fields) must return false.
+   *
+   * @return true if to-one LEFT OUTER JOINs should be left out of the count query when possible
+   */
+  protected boolean isCountJoinPruning() {
+    return extendedParameters.isPruneCountJoins();
+  }
+
+  /**
+   * Whether the "GET (all)" endpoint should support conditional requests for this request
+   *
+   * By default, this is determined by the search.conditionalGet configuration.  Subclasses can override this
+   * to enable (or disable) conditional requests for a given endpoint.  It only applies if the model has a
+   * last modified column (see {@link #getLastModifiedColumn()}).
+   *
+   * @return true if conditional requests should be supported
+   */
+  protected boolean isConditionalGet() {
+    return extendedParameters.isConditionalGet();
+  }
+
+  /**
+   * The column with the time a row was last modified (used for conditional requests)
+   *
+   * By default, this is the column of the field annotated with {@link LastModifiedDate} (e.g. the modified_date
+   * of {@link org.dcsa.core.model.AuditBase}) on the primary table.  The column must be maintained on every
+   * change of the row (and of the rows it joins, if those are part of the result).  Subclasses can override
+   * this to use a different column or return null to opt out.
+   *
+   * @return The column or null if the model has no last modified column
+   */
+  protected Column getLastModifiedColumn() {
+    // The field is looked up once per model class
+    String columnName = LAST_MODIFIED_COLUMN_NAMES.get(modelClass).orElse(null);
+    if (columnName == null) {
+      return null;
+    }
+    return dbEntityAnalysis.getTableAndJoins().getPrimaryTable().column(SqlIdentifier.unquoted(columnName));
+  }
+
+  /**
+   * @return true if the controller should run the {@link #getLastModifiedQuery()} before the request
+   * (see {@link #isConditionalGet()} and {@link #getLastModifiedColumn()})
+   */
+  public boolean isConditionalGetSupported() {
+    return isConditionalGet() && getLastModifiedColumn() != null;
+  }
+
+  /**
+   * Whether the results of this request can be served from the {@link ResultCache}
+   *
+   * By default, this is the case for models annotated with {@link CachedResults}.  Subclasses can override
+   * this to enable (or disable) the cache for a given endpoint.  The cache is only used if it is enabled
+   * (see search.resultCache.maxSize).
+   *
+   * @return true if the results may be cached
+   */
+  public boolean isResultCacheable() {
+    return modelClass.isAnnotationPresent(CachedResults.class);
+  }
+
+  /**
+   * How long the results of this request are kept in the {@link ResultCache}
+   *
+   * By default, this is the {@link CachedResults#ttlSeconds()} of the model or the search.resultCache.ttlSeconds
+   * configuration.
+   *
+   * @return The time to live in milliseconds
+   */
+  protected long getResultCacheTtlMillis() {
+    CachedResults cachedResults = modelClass.getAnnotation(CachedResults.class);
+    long ttlSeconds = cachedResults != null && cachedResults.ttlSeconds() > 0
+      ? cachedResults.ttlSeconds()
+      : extendedParameters.getResultCacheTtlSeconds();
+    return ttlSeconds * 1000;
+  }
+
+  ResultCache.Key getResultCacheKey(boolean countQuery) {
+    String sql = (countQuery ? getCountQuery() : getQuery()).toQuery();
+    return ResultCache.keyOf(getClass(), modelClass, countQuery, sql, filterCondition.getBindings());
+  }
+
+  FetchedRows getFetchedRows() {
+    return FetchedRows.of(fetchedRows, firstFetchedRowKey, lastFetchedRowKey, isWindowCount() ? queryCount : -1);
+  }
+
+  // Restores what registerFetchedRow recorded for a result served from the ResultCache
+  void restoreFetchedRows(FetchedRows cachedFetchedRows) {
+    fetchedRows = cachedFetchedRows.getCount();
+    firstFetchedRowKey = cachedFetchedRows.getFirstRowKey();
+    lastFetchedRowKey = cachedFetchedRows.getLastRowKey();
+    if (cachedFetchedRows.getWindowCount() >= 0) {
+      queryCount = cachedFetchedRows.getWindowCount();
+    }
+  }
+
+  /**
+   * Called by the repository for each row fetched by {@link #getFindAll(DatabaseClient)} (in the order they were fetched)
+   *
+   * This is used to record whether there are more rows than the page size (see {@link #isLookAhead()}),
+   * the total number of rows (see {@link #isWindowCount()}) and the keys of the first and last row for
+   * keyset pagination.
+   *
+   * @param row The row fetched from the database.
+   */
+  public void registerFetchedRow(Row row) {
+    if (fetchedRows == 0 && isWindowCount()) {
+      // COUNT(*) is a bigint; the total is an int elsewhere (see parseEstimatedCount)
+      Long count = row.get(WINDOW_COUNT_COLUMN_NAME, Long.class);
+      queryCount = count != null ? (int) Math.min(count, Integer.MAX_VALUE) : 0;
+    }
+    KeysetCursor keysetCursor = filterCondition != null ? filterCondition.getKeysetCursor() : null;
+    // The look-ahead row is not part of the page, so its key is not needed for the page links
+    if (keysetCursor == null || (fetchedRows >= filterCondition.getLimit() && isLookAhead())) {
+      fetchedRows++;
+      return;
+    }
+    List<Object> values = new ArrayList<>(keysetCursor.getKeyFields().size());
+    for (QueryField keyField : keysetCursor.getKeyFields()) {
+      Column selectColumn = keyField.getSelectColumn();
+      SqlIdentifier name = selectColumn instanceof Aliased ? ((Aliased) selectColumn).getAlias() : selectColumn.getName();
+      Class<?> type = keyField.getType().isEnum() ? String.class : keyField.getType();
+      values.add(row.get(name.getReference(), type));
+    }
+    String key = KeysetCursor.encodeKey(values);
+    if (fetchedRows++ == 0) {
+      firstFetchedRowKey = key;
+    }
+    lastFetchedRowKey = key;
+  }
+
+  /**
+   * @return true if the rows returned by {@link #getFindAll(DatabaseClient)} must be reversed before
+   * returning them (this happens when keyset pagination fetches the previous page).
+   */
+  public boolean isResultReversed() {
+    KeysetCursor keysetCursor = filterCondition != null ? filterCondition.getKeysetCursor() : null;
+    return keysetCursor != null && keysetCursor.isResultReversed();
+  }
+
+  /**
+   * When to compute the total number of rows for this request (see {@link CountStrategy})
+   *
+   * By default, this is determined by the pagination.countStrategy configuration.  Subclasses can override
+   * this to change the strategy for a given endpoint.
+   *
+   * @return The count strategy to use
+   */
+  protected CountStrategy getCountStrategy() {
+    return extendedParameters.getCountStrategy();
+  }
+
+  /**
+   * How Postgres should plan the queries of this request (see {@link PlanCacheMode})
+   *
+   * By default, this is determined by the search.planCacheMode configuration.  Subclasses can override this
+   * for a given endpoint (e.g. {@link PlanCacheMode#FORCE_CUSTOM_PLAN} when it filters on skewed columns).
+   *
+   * @return The plan cache mode to use
+   */
+  protected PlanCacheMode getPlanCacheMode() {
+    return extendedParameters.getPlanCacheMode();
+  }
+
+  /**
+   * @return The value for Postgres' plan_cache_mode setting to use for the queries of this request or
+   * null if the connection's setting should be used (see {@link #getPlanCacheMode()}).
+   */
+  public String getPlanCacheModeSetting() {
+    PlanCacheMode planCacheMode = getPlanCacheMode();
+    if (planCacheMode == null || !(r2dbcDialect instanceof PostgresDialect)) {
+      return null;
+    }
+    return planCacheMode.getSettingValue();
+  }
+
+  /**
+   * @return true if the service should run the {@link #getCountQuery()} and provide the result via
+   * {@link #setQueryCount(int)} before running the {@link #getQuery()}.  The total is never needed for
+   * keyset pagination (the pages are linked via the keys of the fetched rows).
+   */
+  public boolean isCountNeeded() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    if (filterCondition.getKeysetCursor() != null) {
+      return false;
+    }
+    switch (getCountStrategy()) {
+      case EXACT:
+        return true;
+      case ON_DEMAND:
+        return filterCondition.isTotalCountRequested();
+      case ESTIMATED:
+        // Either estimated or exact (see isCountEstimable)
+        return true;
+      case WINDOW:
+        // The COUNT query is the fallback when the data query cannot provide the total (see isWindowCount)
+        return filterCondition.getLimit() > 0 && !isWindowCount();
+      default:
+        // The total (when needed) comes from the data query
+        return false;
+    }
+  }
+
+  /**
+   * Whether the total can be estimated via {@link #getEstimatedCountQuery()} (see {@link CountStrategy#ESTIMATED})
+   *
+   * @return true if the service should try the estimate before the {@link #getCountQuery()}
+   */
+  public boolean isCountEstimable() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    return getCountStrategy() == CountStrategy.ESTIMATED && !filterCondition.isTotalCountRequested()
+      && r2dbcDialect instanceof PostgresDialect && filterCondition.getLimit() > 0
+      && filterCondition.getKeysetCursor() == null;
+  }
+
+  /**
+   * Set the total number of rows from an estimate
+   *
+   * @param estimatedQueryCount The estimated total.
+   */
+  public void setEstimatedQueryCount(int estimatedQueryCount) {
+    queryCount = estimatedQueryCount;
+    queryCountEstimated = true;
+  }
+
+  /**
+   * Whether {@link #getQuery()} includes the total number of rows (see {@link CountStrategy#WINDOW})
+   *
+   * The total is read from the first row by {@link #registerFetchedRow(Row)}.  If there are no rows, the
+   * total is unknown and the service must fall back to the {@link #getCountQuery()}.  The window function is
+   * not used with {@link #selectDistinct} (the {@link #getCountQuery()} is needed instead).
+   *
+   * @return true if the query has a "COUNT(*) OVER()" column
+   */
+  public boolean isWindowCount() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    // The total is only used for the pagination of offset based pages.  With DISTINCT, the window function
+    // would count the rows before the duplicates are removed (and make the rows distinct by itself).
+    return getCountStrategy() == CountStrategy.WINDOW && filterCondition.getLimit() > 0
+      && filterCondition.getKeysetCursor() == null && !selectDistinct;
+  }
+
+  /**
+   * Whether the count query can run concurrently with the data query
+   *
+   * By default, this is determined by the pagination.concurrentCount configuration.  Either way, the
+   * count is available before the result completes (and thereby before {@link #insertHeaders(ServerHttpResponse, ServerHttpRequest)}).
+   *
+   * @return true if the count query and the data query should be run concurrently
+   */
+  public boolean isCountConcurrent() {
+    return extendedParameters.isConcurrentCount();
+  }
+
+  /**
+   * Whether {@link #getQuery()} fetches one row more than the page size
+   *
+   * When the total number of rows is not computed, the extra row tells whether there is a next page.  With
+   * keyset pagination, it tells whether there are more rows in the direction the page is fetched (so a full
+   * page is not mistaken for a page with more rows after it).
+   * The repository must discard the extra row (after passing it to {@link #registerFetchedRow(Row)}).
+   *
+   * @return true if the query fetches one row more than {@link #getPageSize()}
+   */
+  public boolean isLookAhead() {
+    return !isCountNeeded() && !isWindowCount() && filterCondition.getLimit() > 0;
+  }
+
+  /**
+   * @return The max number of entities in the response (0 if unlimited)
+   */
+  public int getPageSize() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    return filterCondition.getLimit();
+  }
+
+  private int getQueryLimit() {
+    int limit = filterCondition.getLimit();
+    return isLookAhead() ? limit + 1 : limit;
   }
 
   public QueryParameterParser<T> getQueryParameterParser() {
@@ -103,16 +557,41 @@ public class ExtendedRequest<T> {
 
 
   public DatabaseClient.GenericExecuteSpec getCount(DatabaseClient databaseClient) {
-    return databaseClient.sql(this.getCountQuery());
+    return databaseClient.sql(renderStatement(this::getCountQuery, false));
+  }
+
+  public DatabaseClient.GenericExecuteSpec getLastModified(DatabaseClient databaseClient) {
+    return databaseClient.sql(renderStatement(this::getLastModifiedQuery, false));
   }
 
   public DatabaseClient.GenericExecuteSpec getFindAll(DatabaseClient databaseClient) {
-    return databaseClient.sql(this.getQuery());
+    return databaseClient.sql(renderStatement(this::getQuery, true));
+  }
+
+  private PreparedOperation<Select> renderStatement(Supplier<PreparedOperation<Select>> querySupplier, boolean withLimits) {
+    ExtendedRequestMetrics metrics = getMetrics();
+    long start = metrics.startTimer();
+    PreparedOperation<Select> preparedOperation = querySupplier.get();
+    String sql = preparedOperation.toQuery();
+    metrics.recordTime(ExtendedRequestMetrics.RENDER, this, start);
+    StatementStatistics statementStatistics = StatementStatistics.forModel(modelClass);
+    String limitOffsetClause = withLimits ? getLimitOffsetClause(getQueryLimit(), filterCondition.getOffset()) : null;
+    if (limitOffsetClause != null && sql.endsWith(" " + limitOffsetClause)) {
+      statementStatistics.record(sql.substring(0, sql.length() - limitOffsetClause.length() - 1));
+    } else {
+      statementStatistics.record(sql);
+    }
+    metrics.registerStatementCounters(modelClass, statementStatistics);
+    if (preparedOperation instanceof RenderedQuery) {
+      return preparedOperation;
+    }
+    // Avoid rendering the SQL again when the DatabaseClient asks for it
+    return RenderedQuery.of(preparedOperation::getSource, sql, preparedOperation::bindTo);
   }
 
   @SuppressWarnings("unchecked")
   protected <SB extends SelectBuilder.SelectLimitOffset> SB applyLimitOffset(SB t) {
-    int limit = filterCondition.getLimit();
+    int limit = getQueryLimit();
     int indexCursor = filterCondition.getOffset();
     if (limit != 0 && indexCursor != 0) {
       return (SB) t.limitOffset(limit, indexCursor);
@@ -123,16 +602,46 @@ public class ExtendedRequest<T> {
     return indexCursor != 0 ? (SB) t.offset(indexCursor) : t;
   }
 
+  /**
+   * The fields in the select list of the data query
+   *
+   * These are all the selectable fields of the model unless the client limited them via the fields parameter
+   * (see {@link ExtendedParameters#getFieldsParameterName()}).  Limiting the fields never changes the rows of
+   * the result: Only LEFT OUTER JOINs to at most one row are left out when none of their fields are selected
+   * (or used by the condition).
+   *
+   * @return The selected fields
+   */
+  public List<QueryField> getSelectedQueryFields() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    List<QueryField> selectedQueryFields = filterCondition.getSelectedQueryFields();
+    return selectedQueryFields != null ? selectedQueryFields : dbEntityAnalysis.getAllSelectableFields();
+  }
+
   public Select getSelectQuery() {
-    List<Expression> expressions = dbEntityAnalysis.getAllSelectableFields().stream().map(queryField -> {
-      markQueryFieldInUse(queryField);
-      return queryField.getSelectColumn();
-    }).collect(Collectors.toList());
+    markSelectedQueryFieldsInUse();
+    List<Expression> expressions = getSelectedQueryFields().stream()
+      .map(QueryField::getSelectColumn)
+      .collect(Collectors.toList());
+    if (isWindowCount()) {
+      expressions.add(windowCount());
+    }
 
     return generateBaseQuery(Select.builder().select(expressions), true)
       .orderBy(filterCondition.getOrderByFields()).build();
   }
 
+  /*
+   * The "COUNT(*) OVER() AS dcsa_window_count" column (see isWindowCount).  The SQL builder has no window
+   * functions, so the "OVER" is part of the function name (rendered as the name followed by the empty
+   * argument list).
+   */
+  private static Expression windowCount() {
+    return SimpleFunction.create("COUNT(*) OVER", Collections.emptyList()).as(WINDOW_COUNT_COLUMN_NAME);
+  }
+
   public Select getSelectCountQuery() {
     return generateBaseQuery(Select.builder().select(
       Functions.count(Expressions.asterisk()).as("count")
@@ -149,10 +658,18 @@ public class ExtendedRequest<T> {
     SelectBuilder.SelectFromAndJoin selectFromAndJoin = selectBuilder.from(
       dbEntityAnalysis.getTableAndJoins().getPrimaryTable()
     );
-    if (withLimits) {
+    if (withLimits && !omitLimitOffset) {
       selectFromAndJoin = applyLimitOffset(selectFromAndJoin);
     }
-    SelectBuilder.SelectWhere selectWhere = applyJoins(selectFromAndJoin);
+    // Without limits, the query counts the rows (see getSelectCountQuery and getEstimatedCountQuery)
+    boolean countQuery = !withLimits;
+    if (countQuery) {
+      // The INNER JOINs of the selected fields can remove rows (see getCountJoinAliases)
+      markSelectedQueryFieldsInUse();
+    }
+    SelectBuilder.SelectWhere selectWhere = countQuery && isCountJoinPruning()
+      ? applyJoins(selectFromAndJoin, getCountJoinAliases())
+      : applyJoins(selectFromAndJoin);
     Condition con = filterCondition.computeCondition(r2dbcDialect);
     if (TrueCondition.INSTANCE.equals(con)) {
       return selectWhere;
@@ -161,18 +678,302 @@ public class ExtendedRequest<T> {
   }
 
   protected SelectBuilder.SelectWhere applyJoins(SelectBuilder.SelectFromAndJoin selectBuilder) {
-    if (!joinAliasInUse.isEmpty()) {
-      return dbEntityAnalysis.getTableAndJoins().applyJoins(selectBuilder, joinAliasInUse);
+    return applyJoins(selectBuilder, joinAliasInUse);
+  }
+
+  private SelectBuilder.SelectWhere applyJoins(SelectBuilder.SelectFromAndJoin selectBuilder, Set<String> joinAliases) {
+    if (!joinAliases.isEmpty()) {
+      return dbEntityAnalysis.getTableAndJoins().applyJoins(selectBuilder, joinAliases);
     }
     return selectBuilder;
   }
 
+  /*
+   * The joins needed to count the rows: The joins of the data query except LEFT OUTER JOINs to at most one row that
+   * neither the condition nor another needed join depends on.
+   *
+   * The joins of the data query are marked in use here, so the result does not depend on whether the data query
+   * has been rendered before (INNER JOINs of selected fields can remove rows and must be part of the count).
+   */
+  private Set<String> getCountJoinAliases() {
+    markSelectedQueryFieldsInUse();
+    if (!isCountJoinPruning()) {
+      return joinAliasInUse;
+    }
+    TableAndJoins tableAndJoins = dbEntityAnalysis.getTableAndJoins();
+    Set<String> countJoinAliases = new HashSet<>();
+    Set<String> requiredAliases = new HashSet<>(filterCondition.getConditionJoinAliases());
+    for (String alias : joinAliasInUse) {
+      JoinDescriptor descriptor = tableAndJoins.getJoinDescriptor(alias);
+      if (descriptor == null || descriptor.getJoinType() != Join.JoinType.LEFT_OUTER_JOIN || !descriptor.isToOne()) {
+        requiredAliases.add(alias);
+      }
+    }
+    for (String joinAlias : requiredAliases) {
+      // Like markQueryFieldInUse, a join requires the joins it depends on
+      while (joinAlias != null) {
+        JoinDescriptor descriptor = tableAndJoins.getJoinDescriptor(joinAlias);
+        if (descriptor == null) {
+          break;
+        }
+        String alias = descriptor.getJoinAliasId();
+        if (joinAliasInUse.contains(alias) && !countJoinAliases.add(alias)) {
+          break;
+        }
+        joinAlias = descriptor.getDependentAlias();
+      }
+    }
+    return countJoinAliases;
+  }
+
+  /**
+   * The probe for conditional requests: The latest modification time and the number of the rows counted by
+   * {@link #getCountQuery()} (see {@link ResultVersion})
+   *
+   * This is cheap compared to the count and data queries as it neither sorts nor fetches the rows.
+   */
+  public PreparedOperation<Select> getLastModifiedQuery() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    Column lastModifiedColumn = getLastModifiedColumn();
+    if (lastModifiedColumn == null) {
+      throw new IllegalStateException("The model " + modelClass.getSimpleName() + " has no last modified column");
+    }
+    // Same joins as the count query (see getCountJoinAliases)
+    Select select = generateBaseQuery(Select.builder().select(
+      SimpleFunction.create("MAX", List.of(lastModifiedColumn)).as(LAST_MODIFIED_COLUMN_NAME),
+      Functions.count(Expressions.asterisk()).as("count")
+    ), false).build();
+    return PreparedQuery.of(select, getRenderContext(), filterCondition.getBindings());
+  }
+
+  /**
+   * The "EXPLAIN (FORMAT JSON)" of the rows counted by {@link #getCountQuery()}
+   *
+   * The estimated number of rows is the first "Plan Rows" of the plan (see {@link #parseEstimatedCount(String)}).
+   * For a query without conditions, the planner derives it from the table statistics
+   * (pg_class.reltuples), so it does not touch the rows.
+   */
+  public PreparedOperation<Select> getEstimatedCountQuery() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    Select select = generateBaseQuery(Select.builder().select(SQL.literalOf(1)), false).build();
+    String sql = "EXPLAIN (FORMAT JSON) " + SqlRenderer.create(getRenderContext()).render(select);
+    return RenderedQuery.of(() -> select, sql, filterCondition.getBindings());
+  }
+
+  public DatabaseClient.GenericExecuteSpec getEstimatedCount(DatabaseClient databaseClient) {
+    return databaseClient.sql(this.getEstimatedCountQuery());
+  }
+
+  /**
+   * @return true if the slow query log should include the plan of slow queries (see {@link #getExplainQuery(boolean)})
+   */
+  public boolean isSlowQueryExplained() {
+    return extendedParameters.isSlowQueryExplain() && r2dbcDialect instanceof PostgresDialect;
+  }
+
+  /**
+   * The "EXPLAIN (FORMAT JSON)" of {@link #getQuery()} or {@link #getCountQuery()} (used by the slow query log)
+   *
+   * @param countQuery true for the count query, false for the data query
+   */
+  public PreparedOperation<Select> getExplainQuery(boolean countQuery) {
+    PreparedOperation<Select> query = countQuery ? getCountQuery() : getQuery();
+    return RenderedQuery.of(query::getSource, "EXPLAIN (FORMAT JSON) " + query.toQuery(), query::bindTo);
+  }
+
+  /**
+   * Describes the bind values of the queries without revealing the values (for logging)
+   *
+   * @return The bind markers with the type of their value (e.g. ":name=String(3), :id=Long")
+   */
+  public String describeBindings() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Bindings.Binding binding : filterCondition.getBindings()) {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(binding.getBindMarker().getPlaceholder()).append('=');
+      Object value = binding.getValue();
+      if (value == null) {
+        sb.append("NULL");
+      } else if (value instanceof CharSequence) {
+        sb.append("String(").append(((CharSequence) value).length()).append(')');
+      } else if (value.getClass().isArray()) {
+        sb.append(value.getClass().getComponentType().getSimpleName()).append('[').append(Array.getLength(value)).append(']');
+      } else {
+        sb.append(value.getClass().getSimpleName());
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Describes the shape of the data query (the query parameters without their values), which is the same
+   * for all requests that use the same SQL
+   */
+  public String describeQueryShape() {
+    if (filterCondition == null) {
+      finishedParsingParameters();
+    }
+    return String.join(" ", getShapeKey(false).getParameterShape());
+  }
+
+  /**
+   * @param plan The JSON plan returned by {@link #getEstimatedCountQuery()}
+   * @return The estimated number of rows or -1 if the plan has no estimate
+   */
+  public static int parseEstimatedCount(String plan) {
+    Matcher matcher = PLAN_ROWS.matcher(plan);
+    if (!matcher.find()) {
+      return -1;
+    }
+    long rows = Long.parseLong(matcher.group(1));
+    return (int) Math.min(rows, Integer.MAX_VALUE);
+  }
+
   public PreparedOperation<Select> getCountQuery() {
     if (filterCondition == null) {
       finishedParsingParameters();
     }
-    RenderContextFactory factory = new RenderContextFactory(r2dbcDialect);
-    return PreparedQuery.of(getSelectCountQuery(), factory.createRenderContext(), filterCondition.getBindings());
+    return prepareQuery(true);
+  }
+
+  private PreparedOperation<Select> prepareQuery(boolean countQuery) {
+    SqlTemplateCache sqlTemplateCache = extendedParameters.getSqlTemplateCache();
+    int limit = countQuery ? 0 : getQueryLimit();
+    int offset = countQuery ? 0 : filterCondition.getOffset();
+    LimitClause limitClause = r2dbcDialect.limit();
+    if (sqlTemplateCache == null || !sqlTemplateCache.isEnabled() || !isSqlTemplateCacheable()
+      || ((limit != 0 || offset != 0) && limitClause.getClausePosition() != LimitClause.Position.AFTER_ORDER_BY)) {
+      return PreparedQuery.of(countQuery ? getSelectCountQuery() : getSelectQuery(), getRenderContext(), filterCondition.getBindings());
+    }
+    // getSelectQuery() would do this.  It must be done before computing the key as it affects the joins.
+    markSelectedQueryFieldsInUse();
+    String template = sqlTemplateCache.getOrRender(getShapeKey(countQuery), () -> {
+      omitLimitOffset = true;
+      try {
+        return SqlRenderer.create(getRenderContext()).render(countQuery ? getSelectCountQuery() : getSelectQuery());
+      } finally {
+        omitLimitOffset = false;
+      }
+    });
+    String limitOffsetClause = getLimitOffsetClause(limit, offset);
+    String sql = limitOffsetClause != null ? template + " " + limitOffsetClause : template;
+    return RenderedQuery.of(countQuery ? this::getSelectCountQuery : this::getSelectQuery, sql, filterCondition.getBindings());
+  }
+
+  // The LIMIT/OFFSET clause as rendered at the end of the query (null if there is none or it is not at the end)
+  private String getLimitOffsetClause(int limit, int offset) {
+    LimitClause limitClause = r2dbcDialect.limit();
+    if (limitClause.getClausePosition() != LimitClause.Position.AFTER_ORDER_BY) {
+      return null;
+    }
+    if (limit != 0 && offset != 0) {
+      return limitClause.getLimitOffset(limit, offset);
+    }
+    if (limit != 0) {
+      return limitClause.getLimit(limit);
+    }
+    return offset != 0 ? limitClause.getOffset(offset) : null;
+  }
+
+  private SqlTemplateCache.ShapeKey getShapeKey(boolean countQuery) {
+    List<String> parameterShape = new ArrayList<>();
+    String sortParameterName = extendedParameters.getSortParameterName();
+    String fieldsParameterName = extendedParameters.getFieldsParameterName();
+    String pageSizeParameterName = extendedParameters.getPaginationPageSizeName();
+    Set<String> arrayBoundParameters = filterCondition.getArrayBoundParameters();
+    for (Map.Entry<String, List<String>> cursorParameter : filterCondition.getCursorParameters().entrySet()) {
+      String parameter = cursorParameter.getKey();
+      if (parameter.equals(pageSizeParameterName)) {
+        // LIMIT is appended to the template
+        continue;
+      }
+      parameterShape.add(parameter);
+      if (arrayBoundParameters.contains(parameter)) {
+        // A single bind marker no matter how many values there are
+        parameterShape.add(ARRAY_VALUE_SHAPE);
+        continue;
+      }
+      for (String value : cursorParameter.getValue()) {
+        boolean valueIsShape = parameter.equals(sortParameterName) || parameter.equals(fieldsParameterName);
+        parameterShape.add(valueIsShape ? value : getValueShape(value));
+      }
+    }
+    KeysetCursor keysetCursor = filterCondition.getKeysetCursor();
+    if (keysetCursor != null) {
+      parameterShape.add(keysetCursor.getShape());
+    }
+    if (!countQuery && isWindowCount()) {
+      parameterShape.add(CountStrategy.WINDOW.name());
+    }
+    int bindCount = (int) filterCondition.getBindings().stream().count();
+    List<String> joinAliases = new ArrayList<>(countQuery ? getCountJoinAliases() : joinAliasInUse);
+    Collections.sort(joinAliases);
+    return SqlTemplateCache.ShapeKey.of(getClass(), modelClass, r2dbcDialect.getClass(), countQuery, selectDistinct,
+      joinAliases, parameterShape, bindCount);
+  }
+
+  /*
+   * The SQL can depend on the value in a few cases (e.g., NULL becomes "IS NULL" and comma separated lists become
+   * "IN (...)").  Keep the parts of the value that can matter (NULL and separators) and drop the rest.
+   */
+  private static String getValueShape(String value) {
+    if ("NULL".equals(value)) {
+      return value;
+    }
+    StringBuilder shape = new StringBuilder("=");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (!Character.isLetterOrDigit(c)) {
+        shape.append(c);
+      }
+    }
+    return shape.toString();
+  }
+
+  private void markSelectedQueryFieldsInUse() {
+    for (QueryField queryField : getSelectedQueryFields()) {
+      markQueryFieldInUse(queryField);
+    }
+    if (filterCondition.getSelectedQueryFields() != null) {
+      // The joins of the fields that are not selected can still remove (or multiply) rows
+      for (QueryField queryField : dbEntityAnalysis.getAllSelectableFields()) {
+        if (!isRowPreservingJoin(queryField.getTableJoinAlias())) {
+          markQueryFieldInUse(queryField);
+        }
+      }
+    }
+  }
+
+  // true if the alias (and every join it depends on) is a LEFT OUTER JOIN to at most one row (or no join at all)
+  private boolean isRowPreservingJoin(String joinAlias) {
+    TableAndJoins tableAndJoins = dbEntityAnalysis.getTableAndJoins();
+    while (joinAlias != null) {
+      JoinDescriptor descriptor = tableAndJoins.getJoinDescriptor(joinAlias);
+      if (descriptor == null) {
+        break;
+      }
+      if (descriptor.getJoinType() != Join.JoinType.LEFT_OUTER_JOIN || !descriptor.isToOne()) {
+        return false;
+      }
+      joinAlias = descriptor.getDependentAlias();
+    }
+    return true;
+  }
+
+  private RenderContext getRenderContext() {
+    if (renderContext == null) {
+      renderContext = new RenderContextFactory(r2dbcDialect).createRenderContext();
+    }
+    return renderContext;
   }
 
   /**
@@ -191,13 +992,15 @@ public class ExtendedRequest<T> {
   protected void markQueryFieldInUse(QueryField fieldInUse) {
     String joinAlias = fieldInUse.getTableJoinAlias();
     TableAndJoins tableAndJoins = dbEntityAnalysis.getTableAndJoins();
+    // Semi-joins are part of the condition, but the join they depend on must be part of the query.
+    Set<String> semiJoinAliases = filterCondition != null ? filterCondition.getSemiJoinAliases() : Collections.emptySet();
     while (joinAlias != null) {
       JoinDescriptor descriptor = tableAndJoins.getJoinDescriptor(joinAlias);
       if (descriptor == null) {
         break;
       }
       String alias = descriptor.getJoinAliasId();
-      if (!joinAliasInUse.add(alias)) {
+      if (!semiJoinAliases.contains(alias) && !joinAliasInUse.add(alias)) {
         break;
       }
       joinAlias = descriptor.getDependentAlias();
@@ -219,13 +1022,52 @@ public class ExtendedRequest<T> {
     return DBEntityAnalysis.builder(this.modelClass).loadFieldsAndJoinsFromModel();
   }
 
+  /**
+   * Whether the result of {@link #prepareDBEntityAnalysis()} can be shared between requests
+   *
+   * By default, the {@link DBEntityAnalysis} is built once per combination of ExtendedRequest class
+   * and model class and then reused by all requests.  This is safe as long as
+   * {@link #prepareDBEntityAnalysis()} only depends on the class of the request and the model class.
+   *
+   * Subclasses where the analysis depends on instance state (e.g., a constructor parameter) must
+   * override this and return false.
+   *
+   * @return true if the analysis can be cached
+   */
+  protected boolean isDBEntityAnalysisCacheable() {
+    return true;
+  }
+
+  /**
+   * Whether the rendered SQL can be reused by other requests with the same "shape"
+   *
+   * The SQL is cached by {@link SqlTemplateCache} per ExtendedRequest class, model class, selected joins,
+   * DISTINCT and query parameters (names and the structure of the values, see
+   * {@link CursorBackedFilterCondition#getCursorParameters()}).  This is safe as long as the SQL generated
+   * by the subclass only depends on these.
+   *
+   * Therefore, the cache is opt-in for subclasses: By default, only the SQL of the stock ExtendedRequest is
+   * cached.  A subclass may override this and return true if the SQL it generates is fully determined by the
+   * above, i.e. it must not
+   * <ul>
+   *   <li>inline values of the request as literals (e.g. in {@link #finishedParsingParameters()} or
+   *   {@link #generateBaseQuery(SelectBuilder.SelectAndFrom, boolean)}); values must be bound instead,</li>
+   *   <li>add joins or conditions depending on the values of the query parameters or on other instance state, or</li>
+   *   <li>change the number of bind markers depending on the values (other than by the query parameters).</li>
+   * </ul>
+   *
+   * @return true if the rendered SQL can be cached
+   */
+  protected boolean isSqlTemplateCacheable() {
+    return getClass() == ExtendedRequest.class;
+  }
+
   public PreparedOperation<Select> getQuery() {
     if (filterCondition == null) {
       finishedParsingParameters();
       assert filterCondition != null;
     }
-    RenderContextFactory factory = new RenderContextFactory(r2dbcDialect);
-    return PreparedQuery.of(getSelectQuery(), factory.createRenderContext(), filterCondition.getBindings());
+    return prepareQuery(false);
   }
 
   public boolean ignoreUnknownProperties() {
@@ -244,11 +1086,73 @@ public class ExtendedRequest<T> {
     response.getHeaders().add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, exposeHeaders.toString());
   }
 
+  /**
+   * Sets the version of the result (as determined by the {@link #getLastModifiedQuery()})
+   *
+   * If the total is needed (see {@link #isCountNeeded()}) and the probe counts the same rows as the
+   * {@link #getCountQuery()} (see {@link #isProbeCountReusable()}), it is taken from the version, so the service
+   * does not run the count query (see {@link #isQueryCountFromResultVersion()}).
+   *
+   * @param resultVersion The version of the result
+   */
+  public void setResultVersion(ResultVersion resultVersion) {
+    this.resultVersion = resultVersion;
+    queryCountFromResultVersion = false;
+    if (resultVersion != null && isCountNeeded() && isProbeCountReusable()) {
+      queryCount = resultVersion.getCount();
+      queryCountEstimated = false;
+      queryCountFromResultVersion = true;
+    }
+  }
+
+  /**
+   * Whether the count of the {@link #getLastModifiedQuery()} is the total of the {@link #getCountQuery()}
+   *
+   * Both queries are built by {@link #generateBaseQuery(SelectBuilder.SelectAndFrom, boolean)} without limits,
+   * so they have the same joins and the same condition.  By default, this is therefore the case unless the
+   * request class overrides {@link #getCountQuery()}, {@link #getSelectCountQuery()} or
+   * {@link #getLastModifiedQuery()}.  Subclasses that make the queries differ in another way must return false.
+   *
+   * @return true if the total can be taken from the {@link #getResultVersion()}
+   */
+  protected boolean isProbeCountReusable() {
+    return !COUNT_OR_PROBE_QUERY_OVERRIDDEN.get(getClass());
+  }
+
+  /**
+   * Handles the conditional request headers for the {@link #getResultVersion()} (if known)
+   *
+   * The ETag and Last-Modified headers are added to the response (also for "304 Not Modified" responses) and
+   * the status is set to 304 if the client already has the result (see
+   * {@link ServerWebExchange#checkNotModified(String, Instant)}).  If-None-Match takes precedence over
+   * If-Modified-Since.  Note that If-Modified-Since cannot tell that rows were deleted (only the ETag includes
+   * the count).
+   *
+   * @param exchange The exchange of the request
+   * @return true if the client already has the result
+   */
+  public boolean checkNotModified(ServerWebExchange exchange) {
+    if (resultVersion == null) {
+      return false;
+    }
+    Instant lastModified = resultVersion.getLastModified();
+    String exposeHeaders = lastModified != null ? HttpHeaders.ETAG + "," + HttpHeaders.LAST_MODIFIED : HttpHeaders.ETAG;
+    exchange.getResponse().getHeaders().add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, exposeHeaders);
+    return lastModified != null
+      ? exchange.checkNotModified(resultVersion.getETag(), lastModified)
+      : exchange.checkNotModified(resultVersion.getETag());
+  }
+
   protected void addPaginationHeaders(StringBuilder exposeHeaders, HttpHeaders headers, String uri) {
     assert filterCondition != null : "Parameters ought to have been parsed by now";
 //    TODO: Fix me so that I don't break integration tests (https://dcsa.atlassian.net/browse/DDT-1034)
 //    assert queryCount > -1 : "The total number of entities must be known for this to work";
     if (filterCondition.getLimit() > 0) {
+      if (queryCountEstimated) {
+        // Tell the client that the total (and thereby the last page) is approximate
+        headers.add(getExtendedParameters().getEstimatedCountName(), String.valueOf(queryCount));
+        exposeHeaders.append(getExtendedParameters().getEstimatedCountName()).append(',');
+      }
       addPaginationHeader(uri, headers, getExtendedParameters().getPaginationCurrentPageName(), Pagination.PageRequest.CURRENT, exposeHeaders);
       addPaginationHeader(uri, headers, getExtendedParameters().getPaginationFirstPageName(), Pagination.PageRequest.FIRST, exposeHeaders);
       addPaginationHeader(uri, headers, getExtendedParameters().getPaginationPreviousPageName(), Pagination.PageRequest.PREVIOUS, exposeHeaders);
@@ -278,7 +1182,19 @@ public class ExtendedRequest<T> {
   @VisibleForTesting
   public String getHeaderPageCursor(Pagination.PageRequest page, int offset) {
     StringBuilder sb = new StringBuilder();
-    if (page != null && !pagination.encodePagination(sb, page, offset, filterCondition.getLimit(), queryCount)) {
+    KeysetCursor keysetCursor = filterCondition.getKeysetCursor();
+    if (page != null && keysetCursor != null) {
+      // The page is presented in the reverse order of how it was fetched when it is fetched backwards
+      String firstRowKey = keysetCursor.isResultReversed() ? lastFetchedRowKey : firstFetchedRowKey;
+      String lastRowKey = keysetCursor.isResultReversed() ? firstFetchedRowKey : lastFetchedRowKey;
+      if (!pagination.encodeKeysetPagination(sb, page, keysetCursor, filterCondition.getLimit(), fetchedRows, firstRowKey, lastRowKey)) {
+        return null;
+      }
+    } else if (page != null && isLookAhead()) {
+      if (!pagination.encodeLookAheadPagination(sb, page, offset, filterCondition.getLimit(), fetchedRows > filterCondition.getLimit())) {
+        return null;
+      }
+    } else if (page != null && !pagination.encodePagination(sb, page, offset, filterCondition.getLimit(), queryCount)) {
       return null;
     }
     for (Map.Entry<String, List<String>> filterParam : filterCondition.getCursorParameters().entrySet()) {
@@ -296,4 +1212,13 @@ public class ExtendedRequest<T> {
     byte[] parameters = sb.toString().getBytes(StandardCharsets.UTF_8);
     return getExtendedParameters().getPaginationCursorName() + CURSOR_SPLIT + Base64.getUrlEncoder().withoutPadding().encodeToString(parameters);
   }
+
+  // What registerFetchedRow recorded for a result (see ResultCache)
+  @Data(staticConstructor = "of")
+  static class FetchedRows {
+    private final int count;
+    private final String firstRowKey;
+    private final String lastRowKey;
+    private final int windowCount;  // -1 unless isWindowCount()
+  }
 }
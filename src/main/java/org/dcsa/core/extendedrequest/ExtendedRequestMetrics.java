@@ -0,0 +1,208 @@
+package org.dcsa.core.extendedrequest;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Micrometer instrumentation of the stages of an {@link ExtendedRequest}
+ *
+ * All meters are tagged with the simple name of the model class ("model") and of the controller that handled
+ * the request ("controller", see {@link ExtendedRequest#setControllerName(String)}).  The instance is available
+ * via {@link ExtendedParameters#getMetrics()}.  Without a {@link MeterRegistry} bean (e.g., when the actuator
+ * is not used), all methods return immediately without reading the clock.
+ *
+ * Timers:
+ * <ul>
+ *   <li>{@value #PARSE}: parsing the query parameters (including {@value #ENTITY_ANALYSIS})</li>
+ *   <li>{@value #ENTITY_ANALYSIS}: building (or looking up) the {@link org.dcsa.core.query.DBEntityAnalysis}</li>
+ *   <li>{@value #RENDER}: building and rendering the SQL of a query (or taking it from the {@link SqlTemplateCache})</li>
+ *   <li>{@value #COUNT_QUERY}: the count query</li>
+ *   <li>{@value #DATA_QUERY_FIRST_ROW}: the data query until the first row has been mapped</li>
+ *   <li>{@value #DATA_QUERY}: the data query until the last row has been mapped</li>
+ *   <li>{@value #ROW_MAPPING}: the time spent mapping the rows of a data query</li>
+ * </ul>
+ *
+ * Distribution summaries: {@value #ROWS} (rows returned), {@value #PAGE_SIZE} (0 for unpaginated requests) and
+ * {@value #OFFSET} (the offset of offset-based pagination).
+ *
+ * Counters (per model only): {@value #STATEMENTS_PREPARED} and {@value #STATEMENTS_REUSED} (see
+ * {@link StatementStatistics}).
+ *
+ * Result cache meters (untagged, see {@link ResultCache}): the counters {@value #RESULT_CACHE_HITS},
+ * {@value #RESULT_CACHE_MISSES}, {@value #RESULT_CACHE_EVICTIONS} and {@value #RESULT_CACHE_EXPIRATIONS} and
+ * the gauges {@value #RESULT_CACHE_SIZE} and {@value #RESULT_CACHE_HIT_RATIO}.
+ */
+public class ExtendedRequestMetrics {
+
+  public static final String PARSE = "dcsa.extendedrequest.parse";
+  public static final String ENTITY_ANALYSIS = "dcsa.extendedrequest.entity.analysis";
+  public static final String RENDER = "dcsa.extendedrequest.render";
+  public static final String COUNT_QUERY = "dcsa.extendedrequest.count.query";
+  public static final String DATA_QUERY_FIRST_ROW = "dcsa.extendedrequest.data.query.first.row";
+  public static final String DATA_QUERY = "dcsa.extendedrequest.data.query";
+  public static final String ROW_MAPPING = "dcsa.extendedrequest.row.mapping";
+  public static final String ROWS = "dcsa.extendedrequest.rows";
+  public static final String PAGE_SIZE = "dcsa.extendedrequest.page.size";
+  public static final String OFFSET = "dcsa.extendedrequest.offset";
+  public static final String STATEMENTS_PREPARED = "dcsa.extendedrequest.statements.prepared";
+  public static final String STATEMENTS_REUSED = "dcsa.extendedrequest.statements.reused";
+  public static final String RESULT_CACHE_HITS = "dcsa.extendedrequest.result.cache.hits";
+  public static final String RESULT_CACHE_MISSES = "dcsa.extendedrequest.result.cache.misses";
+  public static final String RESULT_CACHE_EVICTIONS = "dcsa.extendedrequest.result.cache.evictions";
+  public static final String RESULT_CACHE_EXPIRATIONS = "dcsa.extendedrequest.result.cache.expirations";
+  public static final String RESULT_CACHE_SIZE = "dcsa.extendedrequest.result.cache.size";
+  public static final String RESULT_CACHE_HIT_RATIO = "dcsa.extendedrequest.result.cache.hit.ratio";
+
+  static final ExtendedRequestMetrics NOOP = new ExtendedRequestMetrics(null);
+
+  private final MeterRegistry meterRegistry;
+  private final Set<Class<?>> modelsWithStatementCounters = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean resultCacheMetersRegistered = new AtomicBoolean();
+
+  private ExtendedRequestMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  static ExtendedRequestMetrics of(MeterRegistry meterRegistry) {
+    return meterRegistry != null ? new ExtendedRequestMetrics(meterRegistry) : NOOP;
+  }
+
+  /**
+   * @return true if there is a registry to record the metrics in
+   */
+  public boolean isEnabled() {
+    return meterRegistry != null;
+  }
+
+  /**
+   * @return The start time for {@link #recordTime(String, ExtendedRequest, long)} (0 when disabled)
+   */
+  public long startTimer() {
+    return meterRegistry != null ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records the time since startNanos (as returned by {@link #startTimer()}) in the given timer
+   */
+  public void recordTime(String timerName, ExtendedRequest<?> extendedRequest, long startNanos) {
+    if (meterRegistry != null) {
+      recordNanos(timerName, extendedRequest, System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Records a duration in the given timer
+   */
+  public void recordNanos(String timerName, ExtendedRequest<?> extendedRequest, long nanos) {
+    if (meterRegistry != null) {
+      Timer.builder(timerName)
+        .tags(getTags(extendedRequest))
+        .register(meterRegistry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Records a value in the given distribution summary
+   */
+  public void recordValue(String summaryName, ExtendedRequest<?> extendedRequest, double value) {
+    if (meterRegistry != null) {
+      DistributionSummary.builder(summaryName)
+        .tags(getTags(extendedRequest))
+        .register(meterRegistry)
+        .record(value);
+    }
+  }
+
+  /**
+   * Times the count query (from subscription to its result)
+   */
+  public <R> Mono<R> timeCountQuery(ExtendedRequest<?> extendedRequest, Mono<R> countQuery) {
+    if (meterRegistry == null) {
+      return countQuery;
+    }
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return countQuery.doOnSuccess(ignored -> recordTime(COUNT_QUERY, extendedRequest, start));
+    });
+  }
+
+  /**
+   * Times the data query until the first row and until completion
+   */
+  public <R> Flux<R> timeDataQuery(ExtendedRequest<?> extendedRequest, Flux<R> dataQuery) {
+    if (meterRegistry == null) {
+      return dataQuery;
+    }
+    return Flux.defer(() -> {
+      long start = System.nanoTime();
+      boolean[] firstRow = {true};
+      return dataQuery
+        .doOnNext(ignored -> {
+          if (firstRow[0]) {
+            firstRow[0] = false;
+            recordTime(DATA_QUERY_FIRST_ROW, extendedRequest, start);
+          }
+        })
+        .doOnComplete(() -> recordTime(DATA_QUERY, extendedRequest, start));
+    });
+  }
+
+  /**
+   * Records the number of rows in the result when it completes
+   */
+  public <R> Flux<R> countRows(ExtendedRequest<?> extendedRequest, Flux<R> result) {
+    if (meterRegistry == null) {
+      return result;
+    }
+    return Flux.defer(() -> {
+      long[] rows = {0};
+      return result
+        .doOnNext(ignored -> rows[0]++)
+        .doOnComplete(() -> recordValue(ROWS, extendedRequest, rows[0]));
+    });
+  }
+
+  void registerStatementCounters(Class<?> modelClass, StatementStatistics statementStatistics) {
+    if (meterRegistry == null || !modelsWithStatementCounters.add(modelClass)) {
+      return;
+    }
+    Tags tags = Tags.of("model", modelClass.getSimpleName());
+    FunctionCounter.builder(STATEMENTS_PREPARED, statementStatistics, StatementStatistics::getPrepareCount)
+      .tags(tags)
+      .register(meterRegistry);
+    FunctionCounter.builder(STATEMENTS_REUSED, statementStatistics, StatementStatistics::getReuseCount)
+      .tags(tags)
+      .register(meterRegistry);
+  }
+
+  void registerResultCacheMeters(ResultCache resultCache) {
+    if (meterRegistry == null || !resultCacheMetersRegistered.compareAndSet(false, true)) {
+      return;
+    }
+    FunctionCounter.builder(RESULT_CACHE_HITS, resultCache, ResultCache::getHitCount).register(meterRegistry);
+    FunctionCounter.builder(RESULT_CACHE_MISSES, resultCache, ResultCache::getMissCount).register(meterRegistry);
+    FunctionCounter.builder(RESULT_CACHE_EVICTIONS, resultCache, ResultCache::getEvictionCount).register(meterRegistry);
+    FunctionCounter.builder(RESULT_CACHE_EXPIRATIONS, resultCache, ResultCache::getExpirationCount).register(meterRegistry);
+    Gauge.builder(RESULT_CACHE_SIZE, resultCache, ResultCache::size).register(meterRegistry);
+    Gauge.builder(RESULT_CACHE_HIT_RATIO, resultCache, ResultCache::getHitRatio).register(meterRegistry);
+  }
+
+  private static Tags getTags(ExtendedRequest<?> extendedRequest) {
+    return Tags.of(
+      "model", extendedRequest.getModelClass().getSimpleName(),
+      "controller", extendedRequest.getControllerName()
+    );
+  }
+}
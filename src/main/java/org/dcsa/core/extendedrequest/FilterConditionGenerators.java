@@ -18,7 +18,7 @@ class FilterConditionGenerators {
           + ": The query parameter can only be used with strictly equal or not-equal relations");
       }
 
-      List<Expression> allValues = queryParamValues.stream().flatMap(v -> Arrays.stream(v.split(",")))
+      List<String> allValues = queryParamValues.stream().flatMap(v -> Arrays.stream(v.split(",")))
         .peek(v -> {
             if ("NULL".equals(v)) {
               // "X IN (NULL)" is not the same as "X IS NULL" and it is not important to support it
@@ -30,10 +30,16 @@ class FilterConditionGenerators {
                 + " is missing.");
             }
           }
-        ).map(value2BindVariable)
-        .collect(Collectors.toList());
+        ).collect(Collectors.toList());
 
-      return comparisonType.multiValueCondition(queryField, allValues);
+      if (allValues.size() > 1 && value2BindVariable instanceof QueryParameterValueBinder) {
+        Expression arrayBindMarker = ((QueryParameterValueBinder) value2BindVariable).bindAsArray(allValues);
+        if (arrayBindMarker != null) {
+          return comparisonType.arrayCondition(queryField, arrayBindMarker);
+        }
+      }
+      return comparisonType.multiValueCondition(queryField,
+        allValues.stream().map(value2BindVariable).collect(Collectors.toList()));
     }
   };
 }
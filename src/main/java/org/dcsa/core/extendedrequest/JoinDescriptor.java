@@ -14,6 +14,13 @@ public interface JoinDescriptor {
 
   TableLike getRHSTable();
 
+  /**
+   * @return true if each row of the dependent table matches at most one row of the joined table
+   */
+  default boolean isToOne() {
+    return false;
+  }
+
   default String getJoinAliasId() {
     TableLike t = getRHSTable();
     // Use IdentifierProcessing.NONE to ensure we get the original case of the alias.
@@ -28,6 +28,11 @@ public class JoinedWithModelBasedJoinDescriptor implements JoinDescriptor {
     return joinedWithModel.rhsModel();
   }
 
+  @Override
+  public boolean isToOne() {
+    return joinedWithModel.toOne();
+  }
+
   @Override
   public Condition getCondition() {
     return Conditions.isEqual(LHSColumn, RHSColumn);
@@ -0,0 +1,95 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.Data;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The position of a request using keyset pagination (see {@link PaginationMode#KEYSET})
+ *
+ * The key of a row is the value of each of the fields in {@link #getKeyFields()} (the sort order followed by
+ * the {@link org.springframework.data.annotation.Id} field).  Inside the cursor, the key is encoded as a comma
+ * separated list of URL encoded values.
+ */
+@Data(staticConstructor = "of")
+public class KeysetCursor {
+
+  private static final String KEY_SPLIT = ",";
+  private static final String NULL_VALUE = "~";
+
+  public enum Position {
+    /**
+     * The first page (no keyset in the cursor).
+     */
+    FIRST,
+    /**
+     * The rows after the key given in the cursor.
+     */
+    AFTER,
+    /**
+     * The rows before the key given in the cursor.
+     */
+    BEFORE,
+    /**
+     * The last page (the rows before the end).
+     */
+    LAST,
+  }
+
+  private final Position position;
+
+  /**
+   * The encoded key from the cursor (null for {@link Position#FIRST} and {@link Position#LAST}).
+   */
+  private final String encodedKey;
+
+  private final List<QueryField> keyFields;
+
+  /**
+   * @return true if the query returns the rows in reverse order (the BEFORE and LAST pages are fetched
+   * backwards from the key and must be reversed before being returned to the client).
+   */
+  public boolean isResultReversed() {
+    return position == Position.BEFORE || position == Position.LAST;
+  }
+
+  /**
+   * @return A string that determines how the key affects the SQL (the position and which values are NULL).
+   */
+  String getShape() {
+    StringBuilder shape = new StringBuilder(position.name());
+    if (encodedKey != null) {
+      for (String value : encodedKey.split(KEY_SPLIT, -1)) {
+        shape.append(NULL_VALUE.equals(value) ? 'N' : 'V');
+      }
+    }
+    return shape.toString();
+  }
+
+  static String encodeKey(List<?> values) {
+    StringBuilder sb = new StringBuilder();
+    for (Object value : values) {
+      if (sb.length() > 0) {
+        sb.append(KEY_SPLIT);
+      }
+      sb.append(value == null ? NULL_VALUE : URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return The decoded values of the key (with null for NULL values)
+   */
+  static List<String> decodeKey(String encodedKey) {
+    String[] encodedValues = encodedKey.split(KEY_SPLIT, -1);
+    List<String> values = new ArrayList<>(encodedValues.length);
+    for (String value : encodedValues) {
+      values.add(NULL_VALUE.equals(value) ? null : URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return values;
+  }
+}
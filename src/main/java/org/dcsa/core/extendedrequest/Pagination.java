@@ -33,6 +33,95 @@ public class Pagination<T> {
     }
   }
 
+  /**
+   * Encodes the pagination parameters when the total number of rows is unknown (see {@link CountStrategy#ON_DEMAND})
+   *
+   * Whether there is a next page is determined by fetching one row more than the page size.  The last page
+   * cannot be determined without the total, so it is omitted.
+   */
+  public boolean encodeLookAheadPagination(StringBuilder sb, PageRequest page, int indexCursor, int limit, boolean hasNext) {
+    switch (page) {
+      case CURRENT: encodeIndexCursor(sb, indexCursor); return true;
+      case NEXT:
+        if (hasNext) {
+          encodeIndexCursor(sb, indexCursor + limit);
+        }
+        return hasNext;
+      case PREVIOUS: return encodePrevious(sb, indexCursor - limit, limit);
+      case FIRST: return encodeFirst(sb, indexCursor);
+      default: return false;
+    }
+  }
+
+  /**
+   * Encodes the pagination parameters for keyset pagination (see {@link PaginationMode#KEYSET})
+   *
+   * Unlike {@link #encodePagination(StringBuilder, PageRequest, int, int, int)}, this does not need the total
+   * number of rows.  Instead, it relies on the number of fetched rows and the keys of the first and last row
+   * of the page (in the order they are returned to the client).  The rows are fetched with one row more than
+   * the limit (see {@link ExtendedRequest#isLookAhead()}), so more than limit rows means that there are more
+   * rows in the direction the page was fetched.
+   */
+  public boolean encodeKeysetPagination(StringBuilder sb, PageRequest page, KeysetCursor keysetCursor, int limit,
+                                        int rows, String firstRowKey, String lastRowKey) {
+    KeysetCursor.Position position = keysetCursor.getPosition();
+    boolean hasMore = rows > limit;
+    switch (page) {
+      case CURRENT:
+        switch (position) {
+          case AFTER: encodeKeyset(sb, extendedParameters.getKeysetAfterCursorName(), keysetCursor.getEncodedKey()); break;
+          case BEFORE: encodeKeyset(sb, extendedParameters.getKeysetBeforeCursorName(), keysetCursor.getEncodedKey()); break;
+          case LAST: encodeKeyset(sb, extendedParameters.getKeysetBeforeCursorName(), ""); break;
+          default: encodeIndexCursor(sb, 0); break;
+        }
+        return true;
+      case NEXT:
+        // A page fetched backwards always has rows after it (unless it is the last page)
+        boolean hasNext = keysetCursor.isResultReversed() ? position != KeysetCursor.Position.LAST && rows > 0 : hasMore;
+        if (hasNext) {
+          encodeKeyset(sb, extendedParameters.getKeysetAfterCursorName(), lastRowKey);
+        }
+        return hasNext;
+      case PREVIOUS:
+        if (position == KeysetCursor.Position.FIRST) {
+          return false;
+        }
+        if (rows == 0) {
+          // We went past the end; the previous page is the last page.
+          encodeKeyset(sb, extendedParameters.getKeysetBeforeCursorName(), "");
+          return true;
+        }
+        // A page fetched forwards always has rows before it (as it is not the first page)
+        boolean hasPrevious = !keysetCursor.isResultReversed() || hasMore;
+        if (hasPrevious) {
+          encodeKeyset(sb, extendedParameters.getKeysetBeforeCursorName(), firstRowKey);
+        }
+        return hasPrevious;
+      case FIRST:
+        if (position == KeysetCursor.Position.FIRST) {
+          return false;
+        }
+        // The first page has no keyset; use the (zero) index cursor to ensure the cursor is never empty.
+        encodeIndexCursor(sb, 0);
+        return true;
+      case LAST:
+        if (position == KeysetCursor.Position.LAST || (!keysetCursor.isResultReversed() && !hasMore)) {
+          return false;
+        }
+        encodeKeyset(sb, extendedParameters.getKeysetBeforeCursorName(), "");
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private void encodeKeyset(StringBuilder sb, String keysetCursorName, String encodedKey) {
+    if (sb.length() != 0) {
+      sb.append(ExtendedRequest.PARAMETER_SPLIT);
+    }
+    sb.append(keysetCursorName).append(INDEX_CURSOR_SPLIT).append(encodedKey);
+  }
+
   private boolean encodeNext(StringBuilder sb, int nextIndex, int total) {
     if (nextIndex < total) {
       encodeIndexCursor(sb, nextIndex);
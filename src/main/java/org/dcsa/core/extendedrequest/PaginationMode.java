@@ -0,0 +1,23 @@
+package org.dcsa.core.extendedrequest;
+
+/**
+ * How the cursor of a paginated request determines the page
+ */
+public enum PaginationMode {
+  /**
+   * The cursor contains the offset of the page ("OFFSET n" in the SQL).  Pages can be reached
+   * in any order, but deep pages get slower as the database has to skip all previous rows.
+   */
+  OFFSET,
+
+  /**
+   * The cursor contains the sort key (and the {@link org.springframework.data.annotation.Id})
+   * of the first or last row of the current page and the query continues from there.  The
+   * cost of a page does not depend on how deep it is.
+   *
+   * Keyset pagination is used when the dialect is Postgres, all the fields in the sort order can
+   * be selected and the model has an {@link org.springframework.data.annotation.Id} field.
+   * Otherwise, it falls back to {@link #OFFSET}.
+   */
+  KEYSET,
+}
@@ -0,0 +1,43 @@
+package org.dcsa.core.extendedrequest;
+
+/**
+ * How Postgres plans the (prepared) queries of an {@link ExtendedRequest}
+ *
+ * The r2dbc-postgresql driver caches prepared statements by their SQL, so a query with a stable shape
+ * is only parsed once per connection.  After a few executions, Postgres may replace the plan tailored to the
+ * bound values (the "custom" plan) with a "generic" plan that ignores them.  That is usually cheaper, but
+ * it can be a bad plan for filters on skewed columns (where some values match most rows and others a few).
+ *
+ * Anything but {@link #AUTO} runs the query in a (read-only) transaction that sets Postgres' plan_cache_mode
+ * for that transaction only.  It is ignored for other databases than Postgres.
+ */
+public enum PlanCacheMode {
+  /**
+   * Let Postgres decide (the plan_cache_mode of the connection is used).
+   */
+  AUTO(null),
+
+  /**
+   * Always plan the query for the bound values.  Use this when the best plan depends on the filter values.
+   */
+  FORCE_CUSTOM_PLAN("force_custom_plan"),
+
+  /**
+   * Always use the generic plan, so the query is only planned once per connection.
+   */
+  FORCE_GENERIC_PLAN("force_generic_plan"),
+  ;
+
+  private final String settingValue;
+
+  PlanCacheMode(String settingValue) {
+    this.settingValue = settingValue;
+  }
+
+  /**
+   * @return The value for Postgres' plan_cache_mode setting (null for {@link #AUTO}).
+   */
+  public String getSettingValue() {
+    return settingValue;
+  }
+}
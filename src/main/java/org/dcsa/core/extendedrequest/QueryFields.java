@@ -19,13 +19,19 @@ public class QueryFields {
   }
 
   public static QueryField queryFieldFromFieldWithSelectPrefix(Field modelField, TableLike table, boolean selectable, String selectNamePrefix, QueryFieldConditionGenerator conditionGenerator) {
+    String prefixedJsonName = selectNamePrefix + ReflectUtility.transformFromFieldNameToJsonName(modelField);
+    String columnName = ReflectUtility.transformFromFieldToColumnName(modelField);
+    return queryFieldFromField(modelField, table, selectable, columnName, prefixedJsonName, conditionGenerator);
+  }
+
+  /**
+   * Like {@link #queryFieldFromFieldWithSelectPrefix(Field, TableLike, boolean, String, QueryFieldConditionGenerator)}
+   * but with the column name and the (prefixed) JSON name already resolved from the annotations of the field.
+   */
+  public static QueryField queryFieldFromField(Field modelField, TableLike table, boolean selectable, String columnName, String prefixedJsonName, QueryFieldConditionGenerator conditionGenerator) {
     String tableAlias = ReflectUtility.getAliasId(table);
-    String columnName;
-    Column internalColumn;
+    Column internalColumn = table.column(SqlIdentifier.unquoted(columnName));
     Column selectColumn = null;
-    String prefixedJsonName = selectNamePrefix + ReflectUtility.transformFromFieldNameToJsonName(modelField);
-    columnName = ReflectUtility.transformFromFieldToColumnName(modelField);
-    internalColumn = table.column(SqlIdentifier.unquoted(columnName));
     if (selectable) {
       selectColumn = internalColumn.as(SqlIdentifier.quoted(prefixedJsonName));
     }
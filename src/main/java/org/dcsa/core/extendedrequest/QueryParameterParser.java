@@ -1,11 +1,15 @@
 package org.dcsa.core.extendedrequest;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.dcsa.core.exception.ConcreteRequestErrorMessageException;
 import org.dcsa.core.query.DBEntityAnalysis;
+import org.dcsa.core.util.ReflectUtility;
+import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.dialect.PostgresDialect;
@@ -14,6 +18,7 @@ import org.springframework.data.relational.core.sql.*;
 import org.springframework.r2dbc.core.binding.BindMarker;
 import org.springframework.r2dbc.core.binding.MutableBindings;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
@@ -31,7 +36,10 @@ import java.util.stream.Stream;
 public class QueryParameterParser<T> {
   private static final String PARAMETER_SPLIT = "&";
   private static final String SORT_SEPARATOR = ",";
+  private static final String FIELDS_SEPARATOR = ",";
   public static final FilterCondition EMPTY_CONDITION = InlineableFilterCondition.of(TrueCondition.INSTANCE);
+  // The (parsed) value types that the r2dbc-postgresql driver can bind as arrays
+  private static final Set<Class<?>> ARRAY_BINDABLE_TYPES = Set.of(String.class, UUID.class, Long.class, Integer.class, Boolean.class);
 
   @NonNull
   protected final ExtendedParameters extendedParameters;
@@ -41,19 +49,43 @@ public class QueryParameterParser<T> {
   protected final List<OrderByField> orderByFields = new ArrayList<>();
   private final Map<String, List<String>> parsedParameters = new LinkedHashMap<>();
   protected final Set<QueryField> referencedFields = new HashSet<>();
+  private final List<QueryField> sortQueryFields = new ArrayList<>();
+  // The fields requested via the fields parameter (null if all fields are requested)
+  private Set<QueryField> requestedFields;
+  // The join alias of the query field that each filter was generated for (see rewriteFilterJoinsAsExists)
+  private final Map<FilterCondition, String> filterJoinAliases = new IdentityHashMap<>();
+  // The join aliases of the query fields used in the condition (see CursorBackedFilterCondition#getConditionJoinAliases)
+  private final Set<String> conditionJoinAliases = new HashSet<>();
+  // The parameters with values bound as a single array (see CursorBackedFilterCondition#getArrayBoundParameters)
+  private final Set<String> arrayBoundParameters = new HashSet<>();
+  private int arrayBindings;
 
   @Getter(lazy = true)
   private final Map<String, ParserFunction> specialAttributes = generateSpecialAttributesTable();
   private int limit = -1;
   private int offset = 0;
 
+  @Setter(AccessLevel.PACKAGE)
+  private boolean keysetPagination;
+  @Setter(AccessLevel.PACKAGE)
+  private boolean multiValueArrayBinding;
+  @Setter(AccessLevel.PACKAGE)
+  private boolean filterJoinsAsExists;
+  private KeysetCursor.Position keysetPosition = KeysetCursor.Position.FIRST;
+  private String encodedKeyset;
+  private boolean totalCountRequested;
+
   private Map<String, ParserFunction> generateSpecialAttributesTable() {
     assert extendedParameters != null;
     return Map.of(
       extendedParameters.getPaginationCursorName(), this::parseCursorQueryParameter,
       extendedParameters.getSortParameterName(), this::parseSortQueryParameter,
       extendedParameters.getPaginationPageSizeName(), this::parseLimitQueryParameter,
-      extendedParameters.getIndexCursorName(),  this::parseOffsetQueryParameter
+      extendedParameters.getIndexCursorName(),  this::parseOffsetQueryParameter,
+      extendedParameters.getKeysetAfterCursorName(), this::parseKeysetQueryParameter,
+      extendedParameters.getKeysetBeforeCursorName(), this::parseKeysetQueryParameter,
+      extendedParameters.getTotalCountName(), this::parseTotalCountQueryParameter,
+      extendedParameters.getFieldsParameterName(), this::parseFieldsQueryParameter
     );
   }
 
@@ -75,18 +107,248 @@ public class QueryParameterParser<T> {
     //    value for the user to provide (e.g., internal-only fields) but the cursor is user provided
     //    (and user controlled too).
     handleDefaultParameters();
+    KeysetCursor keysetCursor = handleKeysetPagination();
     parseState = parseState.endParsing();
+    Set<String> semiJoinAliases = filterJoinsAsExists ? findFilterOnlyJoinAliases() : Collections.emptySet();
     return DelegatingCursorBackedFilterCondition.of(
-      andAllFilters(filters, false),
+      andAllFilters(semiJoinAliases.isEmpty() ? filters : rewriteFilterJoinsAsExists(semiJoinAliases), false),
       immutableCopy(parsedParameters),
       Collections.unmodifiableSet(referencedFields),
       Collections.unmodifiableList(orderByFields),
       getMutableBindings(),
       limit,
-      offset
+      offset,
+      keysetCursor,
+      totalCountRequested,
+      semiJoinAliases,
+      Collections.unmodifiableSet(conditionJoinAliases),
+      requestedFields != null ? getSelectedFields() : null,
+      Collections.unmodifiableSet(arrayBoundParameters)
     );
   }
 
+  /*
+   * The requested fields plus the fields needed to map and sort the rows:
+   *  - The @Id of each entity with a requested field and of the entities it is nested in (an entity is only
+   *    mapped when its @Id is not null) and the @Id of the primary table.
+   *  - The fields to sort by (ORDER BY uses the select names and keyset pagination reads the key from the row).
+   */
+  private List<QueryField> getSelectedFields() {
+    String primaryAlias = ReflectUtility.getAliasId(dbAnalysis.getTableAndJoins().getPrimaryTable());
+    Set<String> entityPrefixes = new HashSet<>();
+    for (QueryField queryField : requestedFields) {
+      // "a.b.c" needs the @Id of both "a.b" and "a"
+      String entityPrefix = getEntityPrefix(queryField.getJsonName());
+      while (!entityPrefix.isEmpty() && entityPrefixes.add(entityPrefix)) {
+        entityPrefix = getEntityPrefix(entityPrefix);
+      }
+    }
+    List<QueryField> selectedFields = new ArrayList<>();
+    for (QueryField queryField : dbAnalysis.getAllSelectableFields()) {
+      Field field = queryField.getCombinedModelField();
+      String entityPrefix = getEntityPrefix(queryField.getJsonName());
+      boolean isIdField = field != null && field.isAnnotationPresent(Id.class)
+        && (entityPrefix.isEmpty() ? primaryAlias.equals(queryField.getTableJoinAlias()) : entityPrefixes.contains(entityPrefix));
+      if (isIdField || requestedFields.contains(queryField) || sortQueryFields.contains(queryField)) {
+        selectedFields.add(queryField);
+      }
+    }
+    return Collections.unmodifiableList(selectedFields);
+  }
+
+  // "a.b.c" becomes "a.b" (the JSON name is also the select name)
+  private static String getEntityPrefix(String jsonName) {
+    int end = jsonName.lastIndexOf('.');
+    return end > 0 ? jsonName.substring(0, end) : "";
+  }
+
+  /*
+   * The joins that only contribute filters: Plain JOINs, where none of the fields are selected or sorted by and
+   * no other join depends on the alias.  These can be replaced by an EXISTS condition, which avoids that a
+   * one-to-many join multiplies the rows of the result (if the join condition can be correlated, see
+   * ExistsFilterCondition.isCorrelatable).
+   */
+  private Set<String> findFilterOnlyJoinAliases() {
+    TableAndJoins tableAndJoins = dbAnalysis.getTableAndJoins();
+    Set<String> aliases = new HashSet<>();
+    for (String alias : filterJoinAliases.values()) {
+      JoinDescriptor joinDescriptor = tableAndJoins.getJoinDescriptor(alias);
+      if (joinDescriptor != null && joinDescriptor.getJoinType() == Join.JoinType.JOIN
+        && !tableAndJoins.hasDependentJoins(alias) && ExistsFilterCondition.isCorrelatable(joinDescriptor)) {
+        aliases.add(alias);
+      }
+    }
+    for (QueryField queryField : dbAnalysis.getAllSelectableFields()) {
+      aliases.remove(queryField.getTableJoinAlias());
+    }
+    for (QueryField queryField : sortQueryFields) {
+      aliases.remove(queryField.getTableJoinAlias());
+    }
+    return aliases.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(aliases);
+  }
+
+  /*
+   * Replaces the filters on each of the semi-join aliases with a single EXISTS condition (placed where the
+   * first of these filters was).
+   */
+  private List<FilterCondition> rewriteFilterJoinsAsExists(Set<String> semiJoinAliases) {
+    TableAndJoins tableAndJoins = dbAnalysis.getTableAndJoins();
+    Map<String, List<FilterCondition>> semiJoinFilters = new HashMap<>();
+    List<FilterCondition> rewritten = new ArrayList<>(filters.size());
+    for (FilterCondition filter : filters) {
+      String alias = filterJoinAliases.get(filter);
+      if (alias == null || !semiJoinAliases.contains(alias)) {
+        rewritten.add(filter);
+        continue;
+      }
+      List<FilterCondition> aliasFilters = semiJoinFilters.get(alias);
+      if (aliasFilters == null) {
+        aliasFilters = new ArrayList<>();
+        semiJoinFilters.put(alias, aliasFilters);
+        JoinDescriptor joinDescriptor = tableAndJoins.getJoinDescriptor(alias);
+        rewritten.add(ExistsFilterCondition.of(joinDescriptor, aliasFilters));
+      }
+      aliasFilters.add(filter);
+    }
+    return rewritten;
+  }
+
+  private KeysetCursor handleKeysetPagination() {
+    List<QueryField> keyFields = keysetPagination && limit != 0 ? getKeysetFields() : null;
+    if (keyFields == null) {
+      if (keysetPosition != KeysetCursor.Position.FIRST) {
+        throw ConcreteRequestErrorMessageException.invalidQuery(extendedParameters.getPaginationCursorName(),
+          "Please do not fiddle with the cursor argument (keyset pagination is not available).");
+      }
+      return null;
+    }
+    if (offset != 0) {
+      throw ConcreteRequestErrorMessageException.invalidQuery(extendedParameters.getPaginationCursorName(),
+        "Please do not fiddle with the cursor argument (offset combined with keyset).");
+    }
+    QueryField idField = keyFields.get(keyFields.size() - 1);
+    if (!sortQueryFields.contains(idField)) {
+      // The id is the tiebreaker that makes the order (and therefore the key) unique
+      orderByFields.add(OrderByField.from(idField.getSelectColumn(), Sort.Direction.ASC));
+    }
+    List<Sort.Direction> directions = orderByFields.stream()
+      .map(orderByField -> orderByField.getDirection() == Sort.Direction.DESC ? Sort.Direction.DESC : Sort.Direction.ASC)
+      .collect(Collectors.toList());
+    KeysetCursor keysetCursor = KeysetCursor.of(keysetPosition, encodedKeyset, keyFields);
+    if (keysetCursor.isResultReversed()) {
+      // Fetch the rows backwards from the key (the rows are reversed again before returning them).
+      directions.replaceAll(direction -> direction == Sort.Direction.ASC ? Sort.Direction.DESC : Sort.Direction.ASC);
+      for (int i = 0; i < orderByFields.size(); i++) {
+        OrderByField orderByField = orderByFields.get(i);
+        orderByFields.set(i, OrderByField.from(orderByField.getExpression(), directions.get(i)));
+      }
+    }
+    if (encodedKeyset != null) {
+      List<String> values = KeysetCursor.decodeKey(encodedKeyset);
+      if (values.size() != keyFields.size() || values.get(values.size() - 1) == null) {
+        throw ConcreteRequestErrorMessageException.invalidQuery(extendedParameters.getPaginationCursorName(),
+          "Please do not fiddle with the cursor argument (invalid keyset).");
+      }
+      filters.add(InlineableFilterCondition.of(keysetCondition(keyFields, directions, values)));
+      for (QueryField keyField : keyFields) {
+        addConditionJoinAlias(keyField);
+      }
+    }
+    return keysetCursor;
+  }
+
+  /*
+   * The fields of the key are the fields in the sort order followed by the @Id field (unless the sort order already
+   * includes it).  Returns null if keyset pagination cannot be used for this request.
+   */
+  private List<QueryField> getKeysetFields() {
+    // The NULL handling in keysetCondition relies on the Postgres default of NULLS LAST for ascending order.
+    if (!(r2dbcDialect instanceof PostgresDialect)) {
+      return null;
+    }
+    String primaryAlias = ReflectUtility.getAliasId(dbAnalysis.getTableAndJoins().getPrimaryTable());
+    QueryField idField = null;
+    for (QueryField queryField : dbAnalysis.getAllSelectableFields()) {
+      Field field = queryField.getCombinedModelField();
+      if (field != null && field.isAnnotationPresent(Id.class) && primaryAlias.equals(queryField.getTableJoinAlias())) {
+        idField = queryField;
+        break;
+      }
+    }
+    if (idField == null) {
+      return null;
+    }
+    List<QueryField> keyFields = new ArrayList<>(sortQueryFields);
+    if (!keyFields.contains(idField)) {
+      keyFields.add(idField);
+    } else if (keyFields.indexOf(idField) != keyFields.size() - 1) {
+      // Fields after the id in the sort order cannot affect the order
+      keyFields = keyFields.subList(0, keyFields.indexOf(idField) + 1);
+    }
+    for (QueryField keyField : keyFields) {
+      if (!keyField.isSelectable() || !isKeysetCompatibleType(keyField)) {
+        return null;
+      }
+    }
+    return keyFields;
+  }
+
+  private static boolean isKeysetCompatibleType(QueryField queryField) {
+    Class<?> type = queryField.getType();
+    if (Temporal.class.isAssignableFrom(type)) {
+      String datePattern = queryField.getDatePattern();
+      return (datePattern == null || datePattern.equals(""))
+        && (OffsetDateTime.class.equals(type) || LocalDate.class.equals(type) || LocalDateTime.class.equals(type));
+    }
+    return String.class.equals(type) || type.isEnum() || UUID.class.equals(type) || Long.class.equals(type)
+      || Integer.class.equals(type) || BigDecimal.class.equals(type) || Boolean.class.equals(type);
+  }
+
+  /*
+   * Generates the condition for the rows after the key (in the order of the query):
+   *
+   *   (k1 > :k1) OR (k1 = :k1 AND k2 > :k2) OR ... OR (k1 = :k1 AND ... AND id > :id)
+   *
+   * This is used instead of a row-value comparison ((k1, k2, id) > (:k1, :k2, :id)) because the row-value
+   * comparison cannot handle mixed sort directions or NULL values in the key.  Postgres sorts NULL values
+   * last for ASC (and first for DESC), so:
+   *  - for ASC, NULL values come after any value and nothing comes after NULL.
+   *  - for DESC, NULL values come before any value and all values come after NULL.
+   */
+  private Condition keysetCondition(List<QueryField> keyFields, List<Sort.Direction> directions, List<String> values) {
+    Condition condition = null;
+    Condition equalToKey = null;
+    for (int i = 0; i < keyFields.size(); i++) {
+      QueryField keyField = keyFields.get(i);
+      Column column = keyField.getInternalQueryColumn();
+      String value = values.get(i);
+      Expression boundValue = value != null ? bindValue(keyField, parseValue(keyField, ComparisonType.EQ, null, value)) : null;
+      // The last field is the id, which is never NULL
+      boolean nullable = i < keyFields.size() - 1;
+      Condition afterKey;
+      if (directions.get(i) == Sort.Direction.ASC) {
+        if (boundValue == null) {
+          afterKey = null;
+        } else if (nullable) {
+          afterKey = Conditions.nest(Conditions.isGreater(column, boundValue).or(Conditions.isNull(column)));
+        } else {
+          afterKey = Conditions.isGreater(column, boundValue);
+        }
+      } else {
+        afterKey = boundValue != null ? Conditions.isLess(column, boundValue) : Conditions.isNull(column).not();
+      }
+      if (afterKey != null) {
+        Condition branch = equalToKey != null ? equalToKey.and(afterKey) : afterKey;
+        condition = condition != null ? condition.or(branch) : branch;
+      }
+      Condition equalToValue = boundValue != null ? Conditions.isEqual(column, boundValue) : Conditions.isNull(column);
+      equalToKey = equalToKey != null ? equalToKey.and(equalToValue) : equalToValue;
+    }
+    // The id is never NULL, so there is always at least one branch.
+    assert condition != null;
+    return Conditions.nest(condition);
+  }
+
   private void handleDefaultParameters() {
     parseState = parseState.startParseDefaultsRound();
     for (QueryField queryField : dbAnalysis.getQueryFields()) {
@@ -124,7 +386,12 @@ public class QueryParameterParser<T> {
       }
     }
     ComparisonType comparisonType = parseComparisonType(queryField, fieldAttribute);
-    Function<String, Expression> value2BindVariable = v -> this.bindQueryParameterValue(queryField, comparisonType, fieldAttribute, v);
+    int firstFilter = filters.size();
+    int firstArrayBinding = arrayBindings;
+    Function<String, Expression> value2BindVariable = QueryParameterValueBinder.of(
+      v -> this.bindQueryParameterValue(queryField, comparisonType, fieldAttribute, v),
+      vs -> this.bindQueryParameterValuesAsArray(queryField, comparisonType, fieldAttribute, vs)
+    );
     FilterCondition filterCondition = queryField.generateCondition(
       comparisonType,
       fieldAttribute,
@@ -140,12 +407,25 @@ public class QueryParameterParser<T> {
       }
       parseSingleValueQueryParameter(queryField, comparisonType, fieldAttribute, values.get(0));
     }
+    for (FilterCondition addedFilter : filters.subList(firstFilter, filters.size())) {
+      filterJoinAliases.put(addedFilter, queryField.getTableJoinAlias());
+    }
+    addConditionJoinAlias(queryField);
+    if (arrayBindings != firstArrayBinding) {
+      arrayBoundParameters.add(parameterKey);
+    }
     parseState = parseState.parsedArgument(extendedParameters.getPaginationCursorName());
     if (recordInCursor) {
       recordAttributeInCursor(parameterKey, values);
     }
   }
 
+  private void addConditionJoinAlias(QueryField queryField) {
+    if (queryField.getTableJoinAlias() != null) {
+      conditionJoinAliases.add(queryField.getTableJoinAlias());
+    }
+  }
+
   private void queryParameterHasExactlyOneValue(String parameterKey, List<String> values) {
     if (values.size() != 1) {
       throw ConcreteRequestErrorMessageException.invalidQuery(parameterKey, "param " + parameterKey + " was repeated but should only appear once");
@@ -175,6 +455,34 @@ public class QueryParameterParser<T> {
     parseState = parseState.parsedArgument(extendedParameters.getPaginationCursorName());
   }
 
+  private void parseKeysetQueryParameter(String parameterKey, String jsonName, String fieldAttribute, List<String> values) {
+    noFieldAttributeAllowed(jsonName, fieldAttribute);
+    queryParameterHasExactlyOneValue(parameterKey, values);
+    // Skip recordAttributeInCursor(parameterKey, values) - this field is computed based on which "page" you go to
+    if (parseState != ParseState.PARSING_CURSOR) {
+      throw ConcreteRequestErrorMessageException.invalidQuery(extendedParameters.getPaginationCursorName(),
+        "Unknown field " + parameterKey + " (only valid inside a cursor)");
+    }
+    if (keysetPosition != KeysetCursor.Position.FIRST) {
+      throw ConcreteRequestErrorMessageException.invalidQuery(extendedParameters.getPaginationCursorName(),
+        "Please do not fiddle with the cursor argument (multiple keysets).");
+    }
+    String value = values.get(0);
+    boolean before = parameterKey.equals(extendedParameters.getKeysetBeforeCursorName());
+    if (value.isEmpty()) {
+      // An empty "before" means "before the end" (i.e. the last page)
+      if (!before) {
+        throw ConcreteRequestErrorMessageException.invalidQuery(extendedParameters.getPaginationCursorName(),
+          "Please do not fiddle with the cursor argument (invalid keyset).");
+      }
+      keysetPosition = KeysetCursor.Position.LAST;
+    } else {
+      keysetPosition = before ? KeysetCursor.Position.BEFORE : KeysetCursor.Position.AFTER;
+      encodedKeyset = value;
+    }
+    parseState = parseState.parsedArgument(extendedParameters.getPaginationCursorName());
+  }
+
   private void parseCursorQueryParameter(String parameterKey, String jsonName, String fieldAttribute, List<String> values) {
     noFieldAttributeAllowed(jsonName, fieldAttribute);
     parseState = parseState.parsingCursor(parameterKey);
@@ -215,6 +523,49 @@ public class QueryParameterParser<T> {
     parseState = parseState.parsedArgument(extendedParameters.getPaginationCursorName());
   }
 
+  private void parseFieldsQueryParameter(String parameterKey, String jsonName, String fieldAttribute, List<String> values) {
+    noFieldAttributeAllowed(jsonName, fieldAttribute);
+    queryParameterHasExactlyOneValue(parameterKey, values);
+    recordAttributeInCursor(parameterKey, values);
+
+    Set<QueryField> fields = new HashSet<>();
+    for (String fieldName : values.get(0).split(FIELDS_SEPARATOR)) {
+      // A name of a nested entity (e.g. "address") requests all of its fields
+      String nestedPrefix = fieldName + ".";
+      boolean matched = false;
+      for (QueryField queryField : dbAnalysis.getAllSelectableFields()) {
+        String name = queryField.getJsonName();
+        if (name.equals(fieldName) || name.startsWith(nestedPrefix)) {
+          fields.add(queryField);
+          matched = true;
+        }
+      }
+      if (!matched) {
+        throw ConcreteRequestErrorMessageException.invalidQuery(parameterKey,
+          "Unknown field " + fieldName + " in " + parameterKey + ". Please use the names of the fields in the result separated by \"" + FIELDS_SEPARATOR + "\"");
+      }
+    }
+    requestedFields = fields;
+    parseState = parseState.parsedArgument(extendedParameters.getPaginationCursorName());
+  }
+
+  private void parseTotalCountQueryParameter(String parameterKey, String jsonName, String fieldAttribute, List<String> values) {
+    noFieldAttributeAllowed(jsonName, fieldAttribute);
+    queryParameterHasExactlyOneValue(parameterKey, values);
+    recordAttributeInCursor(parameterKey, values);
+
+    String value = values.get(0);
+    if ("true".equals(value)) {
+      totalCountRequested = true;
+    } else if ("false".equals(value)) {
+      totalCountRequested = false;
+    } else {
+      throw ConcreteRequestErrorMessageException.invalidQuery(parameterKey,
+        "Unknown " + parameterKey + " value: " + value + ". Must be true or false");
+    }
+    parseState = parseState.parsedArgument(extendedParameters.getPaginationCursorName());
+  }
+
   private void parseSortQueryParameter(String parameterKey, String jsonName, String fieldAttribute, List<String> values) {
     noFieldAttributeAllowed(jsonName, fieldAttribute);
     queryParameterHasExactlyOneValue(parameterKey, values);
@@ -254,6 +605,7 @@ public class QueryParameterParser<T> {
             "Sort parameter not correctly specified. Use - {fieldName} " + extendedParameters.getSortDirectionSeparator() + "[ASC|DESC]");
       }
       orderByFields.add(OrderByField.from(column, sortDirection));
+      sortQueryFields.add(queryField);
     }
     parseState = parseState.parsedArgument(extendedParameters.getPaginationCursorName());
   }
@@ -321,6 +673,29 @@ public class QueryParameterParser<T> {
     return bindValue(queryField, parsedValue);
   }
 
+  /**
+   * Binds all values as a single array parameter (for use with "= ANY(...)" / "!= ALL(...)")
+   *
+   * @return The bind marker of the array or null if the values must be bound one by one (array binding is
+   * disabled, not supported for the type of the field or the comparison is not EQ or NEQ)
+   */
+  protected Expression bindQueryParameterValuesAsArray(QueryField queryField, ComparisonType comparisonType, String fieldAttribute, List<String> values) {
+    if (!multiValueArrayBinding || (comparisonType != ComparisonType.EQ && comparisonType != ComparisonType.NEQ)) {
+      return null;
+    }
+    Class<?> fieldType = queryField.getType();
+    Class<?> elementType = fieldType.isEnum() ? String.class : fieldType;
+    if (!ARRAY_BINDABLE_TYPES.contains(elementType)) {
+      return null;
+    }
+    Object array = Array.newInstance(elementType, values.size());
+    for (int i = 0; i < values.size(); i++) {
+      Array.set(array, i, parseValue(queryField, comparisonType, fieldAttribute, values.get(i)));
+    }
+    arrayBindings++;
+    return bindValue(queryField, array);
+  }
+
   protected Expression bindValue(QueryField queryField, Object value) {
     referencedFields.add(queryField);
     MutableBindings bindings = getMutableBindings();
@@ -386,6 +761,11 @@ public class QueryParameterParser<T> {
       }
       if (enumList.length == 1) {
         filters.add(comparisonType.singleNonNullValueCondition(queryField, bindValue(queryField, enumList[0])));
+        return;
+      }
+      Expression arrayBindMarker = bindQueryParameterValuesAsArray(queryField, comparisonType, fieldAttribute, Arrays.asList(enumList));
+      if (arrayBindMarker != null) {
+        filters.add(comparisonType.arrayCondition(queryField, arrayBindMarker));
       } else {
         filters.add(comparisonType.multiValueCondition(queryField,
           Arrays.stream(enumList).map(v -> bindValue(queryField, v)).collect(Collectors.toList())
@@ -0,0 +1,30 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.relational.core.sql.Expression;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * The value2BindVariable function passed to QueryFieldConditionGenerator#generateCondition.  Generators inside
+ * DCSA-Core can also use it to bind a list of values as a single array.
+ */
+@RequiredArgsConstructor(staticName = "of")
+class QueryParameterValueBinder implements Function<String, Expression> {
+
+  private final Function<String, Expression> valueBinder;
+  private final Function<List<String>, Expression> arrayBinder;
+
+  @Override
+  public Expression apply(String value) {
+    return valueBinder.apply(value);
+  }
+
+  /*
+   * Returns the bind marker of the array or null if the values must be bound one by one via apply.
+   */
+  Expression bindAsArray(List<String> values) {
+    return arrayBinder.apply(values);
+  }
+}
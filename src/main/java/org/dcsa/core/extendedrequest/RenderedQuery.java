@@ -0,0 +1,41 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import org.springframework.r2dbc.core.binding.Bindings;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*
+ * Like PreparedQuery but with the SQL already rendered (e.g., from the SqlTemplateCache).  The Select is only
+ * built if someone asks for it.
+ */
+@RequiredArgsConstructor(staticName = "of")
+class RenderedQuery implements PreparedOperation<Select> {
+
+  private final Supplier<Select> sourceSupplier;
+  private final String sql;
+  private final Consumer<BindTarget> binder;
+
+  static RenderedQuery of(Supplier<Select> sourceSupplier, String sql, Bindings bindings) {
+    return of(sourceSupplier, sql, bindings::apply);
+  }
+
+  @Override
+  public Select getSource() {
+    return sourceSupplier.get();
+  }
+
+  @Override
+  public void bindTo(BindTarget target) {
+    binder.accept(target);
+  }
+
+  @Override
+  public String toQuery() {
+    return sql;
+  }
+}
@@ -0,0 +1,278 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.Data;
+import org.springframework.r2dbc.core.binding.Bindings;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded in-memory cache of query results for models with {@link org.dcsa.core.model.CachedResults}
+ * (or requests where {@link ExtendedRequest#isResultCacheable()} is true)
+ *
+ * The results of the data and count queries are keyed by the model, the rendered SQL (including LIMIT/OFFSET)
+ * and the bound values, so two requests share a result if and only if they would run the same query.  An
+ * entry expires after the time to live of the request (see {@link ExtendedRequest#getResultCacheTtlMillis()})
+ * and the least recently used entry is evicted when the cache is full.  The size is the number of cached
+ * results, not the number of rows.  Results with more rows than the max rows per result are not cached, so
+ * the memory held by the cache is bounded by the max size times the max rows.
+ *
+ * The cached rows are copies of the rows returned by the query and every hit returns copies of these, so
+ * code that changes the returned entities (e.g. when mapping them to transfer objects) does not change the
+ * cached result.
+ *
+ * The instance is available via {@link ExtendedParameters#getResultCache()}.  It exposes hit, miss, eviction
+ * and expiration counters for monitoring and code that changes the data of a model can invalidate its results
+ * via {@link #invalidate(Class)}.
+ */
+public class ResultCache {
+
+  private final int maxSize;
+  private final int maxRows;
+  private final Map<Key, CachedResult> results;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * @param maxSize The max number of cached results (0 disables the cache)
+   * @param maxRows The max number of rows of a cached result (0 for no limit)
+   */
+  public ResultCache(int maxSize, int maxRows) {
+    this.maxSize = maxSize;
+    this.maxRows = maxRows;
+    this.results = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+        if (size() > ResultCache.this.maxSize) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @return true if the cache is enabled (i.e. its max size is greater than 0)
+   */
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * @return The number of times a result was served from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return The number of times a query had to run as its result was not in the cache
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return The ratio of hits to lookups (0 if there have been no lookups)
+   */
+  public double getHitRatio() {
+    long hitCount = hits.sum();
+    long lookups = hitCount + misses.sum();
+    return lookups > 0 ? (double) hitCount / lookups : 0;
+  }
+
+  /**
+   * @return The number of results evicted because the cache was full
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return The number of results removed because they expired
+   */
+  public long getExpirationCount() {
+    return expirations.sum();
+  }
+
+  public int size() {
+    synchronized (results) {
+      return results.size();
+    }
+  }
+
+  /**
+   * Removes all cached results of the model
+   *
+   * Call this after changing the data of the model.  Note that results of other models that join the
+   * changed table are not removed (use {@link #invalidateAll()} or rely on the time to live for those).
+   *
+   * @param modelClass The model class
+   */
+  public void invalidate(Class<?> modelClass) {
+    synchronized (results) {
+      results.keySet().removeIf(key -> key.getModelClass() == modelClass);
+    }
+  }
+
+  /**
+   * Removes all cached results
+   */
+  public void invalidateAll() {
+    synchronized (results) {
+      results.clear();
+    }
+  }
+
+  /**
+   * Serves the rows of the data query of the request from the cache (or caches them once the query completes)
+   *
+   * The rows are the rows as fetched from the database (before look-ahead rows are dropped, etc.).  The
+   * rows registered via {@link ExtendedRequest#registerFetchedRow(io.r2dbc.spi.Row)} are restored for a
+   * cached result, so the pagination headers are the same as for the original result.
+   *
+   * @param extendedRequest The request
+   * @param query Provides the data query (only called on a miss)
+   * @param copier Provides a (deep) copy of a row
+   * @return The rows
+   */
+  public <T> Flux<T> getOrFetchRows(ExtendedRequest<T> extendedRequest, Supplier<Flux<T>> query, UnaryOperator<T> copier) {
+    if (!isEnabled() || !extendedRequest.isResultCacheable()) {
+      return query.get();
+    }
+    // Rendering the query for the key has the same side effects as assembling the query (see getQuery())
+    Key key = extendedRequest.getResultCacheKey(false);
+    extendedRequest.getMetrics().registerResultCacheMeters(this);
+    return Flux.defer(() -> {
+      CachedRows cachedRows = (CachedRows) get(key);
+      if (cachedRows != null) {
+        extendedRequest.restoreFetchedRows(cachedRows.getFetchedRows());
+        @SuppressWarnings("unchecked")
+        List<T> rows = (List<T>) cachedRows.getRows();
+        return Flux.fromIterable(rows).map(copier);
+      }
+      List<T> rows = new ArrayList<>();
+      boolean[] tooManyRows = {false};
+      return query.get()
+        .doOnNext(row -> {
+          if (tooManyRows[0]) {
+            return;
+          }
+          if (maxRows > 0 && rows.size() >= maxRows) {
+            // The result is not cached, so there is no need to keep the rows
+            tooManyRows[0] = true;
+            rows.clear();
+            return;
+          }
+          rows.add(copier.apply(row));
+        })
+        .doOnComplete(() -> {
+          if (!tooManyRows[0]) {
+            put(key, CachedRows.of(Collections.unmodifiableList(rows), extendedRequest.getFetchedRows()),
+              extendedRequest.getResultCacheTtlMillis());
+          }
+        });
+    });
+  }
+
+  /**
+   * Serves the result of the count query of the request from the cache (or caches it)
+   *
+   * @param extendedRequest The request
+   * @param query Provides the count query (only called on a miss)
+   * @return The count
+   */
+  public Mono<Integer> getOrFetchCount(ExtendedRequest<?> extendedRequest, Supplier<Mono<Integer>> query) {
+    if (!isEnabled() || !extendedRequest.isResultCacheable()) {
+      return query.get();
+    }
+    Key key = extendedRequest.getResultCacheKey(true);
+    extendedRequest.getMetrics().registerResultCacheMeters(this);
+    return Mono.defer(() -> {
+      Integer count = (Integer) get(key);
+      if (count != null) {
+        return Mono.just(count);
+      }
+      return query.get().doOnNext(result -> put(key, result, extendedRequest.getResultCacheTtlMillis()));
+    });
+  }
+
+  private Object get(Key key) {
+    CachedResult entry;
+    synchronized (results) {
+      entry = results.get(key);
+      if (entry != null && entry.getExpiresAtNanos() - System.nanoTime() <= 0) {
+        results.remove(key);
+        expirations.increment();
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.getValue();
+  }
+
+  private void put(Key key, Object value, long ttlMillis) {
+    if (ttlMillis <= 0) {
+      return;
+    }
+    CachedResult entry = CachedResult.of(value, System.nanoTime() + ttlMillis * 1_000_000);
+    synchronized (results) {
+      results.put(key, entry);
+    }
+  }
+
+  static Key keyOf(Class<?> requestClass, Class<?> modelClass, boolean countQuery, String sql, Bindings bindings) {
+    List<Object> bindValues = new ArrayList<>();
+    for (Bindings.Binding binding : bindings) {
+      bindValues.add(binding.getBindMarker().getPlaceholder());
+      bindValues.add(toComparable(binding.getValue()));
+    }
+    return Key.of(requestClass, modelClass, countQuery, sql, bindValues);
+  }
+
+  // Arrays (e.g. from search.multiValueArrayBinding) do not implement equals/hashCode
+  private static Object toComparable(Object value) {
+    if (value == null || !value.getClass().isArray()) {
+      return value;
+    }
+    int length = Array.getLength(value);
+    List<Object> values = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      values.add(toComparable(Array.get(value, i)));
+    }
+    return values;
+  }
+
+  @Data(staticConstructor = "of")
+  static class Key {
+    private final Class<?> requestClass;
+    private final Class<?> modelClass;
+    private final boolean countQuery;
+    private final String sql;
+    private final List<Object> bindValues;
+  }
+
+  @Data(staticConstructor = "of")
+  private static class CachedResult {
+    private final Object value;
+    private final long expiresAtNanos;
+  }
+
+  @Data(staticConstructor = "of")
+  private static class CachedRows {
+    private final List<?> rows;
+    private final ExtendedRequest.FetchedRows fetchedRows;
+  }
+}
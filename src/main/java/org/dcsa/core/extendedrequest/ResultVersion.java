@@ -0,0 +1,65 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.Data;
+
+import java.time.*;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * The version of the result of a request (see {@link ExtendedRequest#getLastModifiedQuery()})
+ *
+ * The version consists of the latest modification time of the rows matching the filter and the number of
+ * such rows.  Inserting or updating a matching row changes the former and deleting one changes the latter.
+ * It is used for conditional GET requests ("If-None-Match" and "If-Modified-Since", see
+ * {@link ExtendedRequest#checkNotModified(org.springframework.web.server.ServerWebExchange)}).
+ */
+@Data(staticConstructor = "of")
+public class ResultVersion {
+
+  // null if no rows match the filter
+  private final Instant lastModified;
+  private final int count;
+
+  /**
+   * @return A weak ETag for the result (e.g. W/"6214b6e2.1dcd6500-2a")
+   */
+  public String getETag() {
+    long seconds = lastModified != null ? lastModified.getEpochSecond() : 0;
+    int nanos = lastModified != null ? lastModified.getNano() : 0;
+    return "W/\"" + Long.toHexString(seconds) + "." + Integer.toHexString(nanos) + "-" + Integer.toHexString(count) + "\"";
+  }
+
+  /**
+   * Converts the value of the last modified column to an Instant
+   *
+   * Timestamps without time zone are assumed to be in UTC and numbers to be milliseconds since the epoch.
+   *
+   * @param value The value returned by the database driver (possibly null)
+   * @return The value as an Instant (or null if the value is null)
+   */
+  public static Instant toInstant(Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Instant) {
+      return (Instant) value;
+    }
+    if (value instanceof LocalDateTime) {
+      return ((LocalDateTime) value).toInstant(ZoneOffset.UTC);
+    }
+    if (value instanceof LocalDate) {
+      return ((LocalDate) value).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+    if (value instanceof OffsetDateTime || value instanceof ZonedDateTime) {
+      return Instant.from((TemporalAccessor) value);
+    }
+    if (value instanceof Date) {
+      return ((Date) value).toInstant();
+    }
+    if (value instanceof Number) {
+      return Instant.ofEpochMilli(((Number) value).longValue());
+    }
+    throw new IllegalArgumentException("Cannot use a " + value.getClass().getSimpleName() + " as last modified time");
+  }
+}
@@ -0,0 +1,100 @@
+package org.dcsa.core.extendedrequest;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of rendered SQL keyed by the "shape" of the query
+ *
+ * Two requests have the same shape if they query the same model with the same fields, operators, sort order
+ * and joins - i.e. they only differ in the bound values (and in LIMIT/OFFSET, which are appended to the cached
+ * SQL).  The least recently used entry is evicted when the cache is full.
+ *
+ * The instance is available via {@link ExtendedParameters#getSqlTemplateCache()} and exposes hit and miss
+ * counters for monitoring.
+ */
+public class SqlTemplateCache {
+
+  private final int maxSize;
+  private final Map<ShapeKey, String> templates;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public SqlTemplateCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ShapeKey, String> eldest) {
+        return size() > SqlTemplateCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * @return true if the cache is enabled (i.e. its max size is greater than 0)
+   */
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * @return The number of times a rendered SQL was reused
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return The number of times a SQL had to be rendered
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public int size() {
+    synchronized (templates) {
+      return templates.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (templates) {
+      templates.clear();
+    }
+  }
+
+  String getOrRender(ShapeKey key, Supplier<String> renderer) {
+    String sql;
+    synchronized (templates) {
+      sql = templates.get(key);
+    }
+    if (sql != null) {
+      hits.increment();
+      return sql;
+    }
+    misses.increment();
+    // Render outside the lock; if two requests race, they render the same SQL.
+    sql = renderer.get();
+    synchronized (templates) {
+      templates.put(key, sql);
+    }
+    return sql;
+  }
+
+  @Data(staticConstructor = "of")
+  static class ShapeKey {
+    private final Class<?> requestClass;
+    private final Class<?> modelClass;
+    private final Class<?> dialectClass;
+    private final boolean countQuery;
+    private final boolean selectDistinct;
+    private final List<String> joinAliasesInUse;
+    private final List<String> parameterShape;
+    private final int bindCount;
+  }
+}
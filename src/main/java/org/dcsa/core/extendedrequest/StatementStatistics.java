@@ -0,0 +1,77 @@
+package org.dcsa.core.extendedrequest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide statistics on how often the queries of a model reuse an already seen SQL statement
+ *
+ * The r2dbc-postgresql driver caches prepared statements by their SQL (see
+ * {@link org.dcsa.core.configuration.DCSACoreConfiguration} for sizing that cache), so only a statement
+ * with a new SQL has to be parsed and planned by the database.  A high prepare count compared to the
+ * reuse count means that the queries of the model do not have a stable shape (e.g., many combinations
+ * of filters).
+ *
+ * The statements are tracked without their LIMIT/OFFSET clause (the page size and offset are literals
+ * that only depend on the page requested), so the numbers reflect the shapes of the queries.  They are an
+ * approximation of the driver's cache: the statistics are kept per process (and not per connection) and
+ * the statements of a model are forgotten once more than {@link #MAX_TRACKED_STATEMENTS} have been seen.
+ */
+public class StatementStatistics {
+
+  public static final int MAX_TRACKED_STATEMENTS = 1024;
+
+  private static final ConcurrentMap<Class<?>, StatementStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+  private final Set<String> seenStatements = ConcurrentHashMap.newKeySet();
+  private final LongAdder prepares = new LongAdder();
+  private final LongAdder reuses = new LongAdder();
+
+  /**
+   * @param modelClass The model class
+   * @return The statistics for the model (created on first use)
+   */
+  public static StatementStatistics forModel(Class<?> modelClass) {
+    return STATISTICS.computeIfAbsent(modelClass, c -> new StatementStatistics());
+  }
+
+  /**
+   * @return The statistics of all models that have been queried
+   */
+  public static Map<Class<?>, StatementStatistics> getAll() {
+    return Collections.unmodifiableMap(STATISTICS);
+  }
+
+  /**
+   * @return The number of queries with a SQL statement not seen before
+   */
+  public long getPrepareCount() {
+    return prepares.sum();
+  }
+
+  /**
+   * @return The number of queries that reused the SQL statement of a previous query
+   */
+  public long getReuseCount() {
+    return reuses.sum();
+  }
+
+  /**
+   * @param sql The SQL of the statement without the LIMIT/OFFSET clause
+   */
+  void record(String sql) {
+    if (!seenStatements.add(sql)) {
+      reuses.increment();
+      return;
+    }
+    prepares.increment();
+    if (seenStatements.size() > MAX_TRACKED_STATEMENTS) {
+      // Start over rather than keeping track of the least recently used statement (which needs a lock)
+      seenStatements.clear();
+    }
+  }
+}
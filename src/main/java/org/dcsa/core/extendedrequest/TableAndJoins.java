@@ -40,6 +40,14 @@ public class TableAndJoins {
     return joins.get(aliasId);
   }
 
+  /**
+   * @param aliasId The alias of a join
+   * @return true if another join depends on the join with the given alias
+   */
+  public boolean hasDependentJoins(String aliasId) {
+    return joins.values().stream().anyMatch(joinDescriptor -> aliasId.equals(joinDescriptor.getDependentAlias()));
+  }
+
   public boolean hasJoins() {
     return !joins.isEmpty();
   }
@@ -91,6 +91,33 @@ public interface ExtendedRequestVerifier<E extends ExtendedRequest<T>, T> {
    */
   ExtendedRequestVerifier<E, T> withCursorOffset(int value);
 
+  /**
+   * Verify that the generated SQL stays within a {@link QueryBudget}
+   *
+   * The budget is checked by {@link #verify(String, Consumer)} (in addition to comparing the SQL) and by
+   * {@link #verifyBudget(Consumer)}.
+   *
+   * @param budget The limits on the complexity of the generated SQL.
+   * @return An ExtendedRequestVerifier enabling you to chain into another method.
+   */
+  ExtendedRequestVerifier<E, T> withBudget(QueryBudget budget);
+
+  /**
+   * Perform the test and only verify the generated SQL against the budget given via {@link #withBudget(QueryBudget)}
+   *
+   * This is useful to lock in the shape of a query without having to maintain the exact SQL in the test.
+   *
+   * @param requestMutator A general purpose mutator (see {@link #verify(String, Consumer)}).
+   */
+  void verifyBudget(Consumer<E> requestMutator);
+
+  /**
+   * Perform the test and only verify the generated SQL against the budget given via {@link #withBudget(QueryBudget)}
+   */
+  default void verifyBudget() {
+    this.verifyBudget(null);
+  }
+
   /**
    * Perform the test and verify the generated SQL with an expected SQL query
    *
@@ -25,6 +25,7 @@ class ExtendedRequestVerifierImpl<E extends ExtendedRequest<T>, T> implements Ex
   private final LinkedHashMap<String, List<String>> cursorParam = new LinkedHashMap<>();
 
   private int offset = -1;
+  private QueryBudget budget;
   boolean spent = false;
 
   private void checkNotSpent() {
@@ -61,7 +62,29 @@ class ExtendedRequestVerifierImpl<E extends ExtendedRequest<T>, T> implements Ex
     return this;
   }
 
+  @Override
+  public ExtendedRequestVerifier<E, T> withBudget(QueryBudget budget) {
+    checkNotSpent();
+    this.budget = budget;
+    return this;
+  }
+
   public void verify(String expectedQuery, Consumer<E> requestMutator) {
+    String generatedPretty = prettifyQuery(generateQuery(requestMutator));
+    Assertions.assertEquals(prettifyQuery(expectedQuery), generatedPretty);
+    Assertions.assertFalse(generatedPretty.contains(".."),
+      "Generated SQL contains \"..\" which is unlikely to be intentional");
+  }
+
+  @Override
+  public void verifyBudget(Consumer<E> requestMutator) {
+    if (budget == null) {
+      throw new IllegalStateException("No budget to verify: Please provide one via withBudget");
+    }
+    generateQuery(requestMutator);
+  }
+
+  private String generateQuery(Consumer<E> requestMutator) {
     String generated;
     checkNotSpent();
     spent = true;
@@ -86,10 +109,10 @@ class ExtendedRequestVerifierImpl<E extends ExtendedRequest<T>, T> implements Ex
       requestMutator.accept(request);
     }
     generated = request.getQuery().toQuery();
-    String generatedPretty = prettifyQuery(generated);
-    Assertions.assertEquals(prettifyQuery(expectedQuery), generatedPretty);
-    Assertions.assertFalse(generatedPretty.contains(".."),
-      "Generated SQL contains \"..\" which is unlikely to be intentional");
+    if (budget != null) {
+      budget.verify(generated);
+    }
+    return generated;
   }
 
   // makes IntelliJ's "show differences" view more useful in case of a mismatch
@@ -0,0 +1,52 @@
+package org.dcsa.core.extendedrequest.testsupport;
+
+import org.dcsa.core.query.DBEntityAnalysis;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Test helper to verify that model classes can be used with {@link org.dcsa.core.extendedrequest.ExtendedRequest}
+ *
+ * The model annotations ({@link org.dcsa.core.model.JoinedWithModel}, {@link org.dcsa.core.model.ForeignKey},
+ * {@link org.dcsa.core.model.MapEntity}, etc.) are normally analysed on the first request (or during the
+ * start-up warm-up).  A test case like the following moves errors in those annotations to the build instead.
+ *
+ * <pre>{@code
+ * public class ModelTest {
+ *
+ *     @Test
+ *     public void testModels() {
+ *         ModelVerifier.verifyModels(Booking.class, BookingWithLocation.class);
+ *     }
+ * }
+ * }</pre>
+ */
+public class ModelVerifier {
+
+  private ModelVerifier() {}
+
+  /**
+   * Verify that the {@link DBEntityAnalysis} can be built for each of the model classes
+   *
+   * @param modelClasses The model classes to verify.
+   */
+  public static void verifyModels(Class<?> ... modelClasses) {
+    for (Class<?> modelClass : modelClasses) {
+      verifyModel(modelClass);
+    }
+  }
+
+  /**
+   * Verify that the {@link DBEntityAnalysis} can be built for the model class
+   *
+   * @param modelClass The model class to verify.
+   * @param <T> The model type.
+   * @return The DBEntityAnalysis for the model (for further assertions).
+   */
+  public static <T> DBEntityAnalysis<T> verifyModel(Class<T> modelClass) {
+    try {
+      return DBEntityAnalysis.builder(modelClass).loadFieldsAndJoinsFromModel().build();
+    } catch (RuntimeException e) {
+      return Assertions.fail("The model " + modelClass.getSimpleName() + " cannot be used for queries: " + e.getMessage(), e);
+    }
+  }
+}
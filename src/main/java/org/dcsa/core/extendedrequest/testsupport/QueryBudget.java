@@ -0,0 +1,121 @@
+package org.dcsa.core.extendedrequest.testsupport;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+import org.junit.jupiter.api.Assertions;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Limits on the complexity of a generated query (for use with {@link ExtendedRequestVerifier#withBudget(QueryBudget)})
+ *
+ * A budget locks in the performance relevant shape of a query, so a change that makes it more expensive
+ * (e.g., a model change that adds a join to every query) fails the build instead of going unnoticed.
+ *
+ * <pre>{@code
+ *     private static final QueryBudget BOOKING_BUDGET = QueryBudget.unlimited()
+ *             .withMaxJoins(2)
+ *             .withDistinctAllowed(false)
+ *             .withCastOnColumnsAllowed(false)
+ *             .withLimitRequired(true);
+ *
+ *     @Test
+ *     public void testBookingQueryBudget() {
+ *         verifierFor(extendedParameters, Booking.class)
+ *                 .withParam("limit", "10")
+ *                 .withParam("bookingStatus", "RECEIVED,CONFIRMED")
+ *                 .withBudget(BOOKING_BUDGET)
+ *                 .verifyBudget();
+ *     }
+ * }</pre>
+ *
+ * Negative limits mean "no limit".
+ */
+@Getter
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class QueryBudget {
+
+  private static final Pattern JOIN = Pattern.compile("\\bJOIN\\b");
+  private static final Pattern DISTINCT = Pattern.compile("\\bSELECT\\s+DISTINCT\\b");
+  // The MockR2dbcDialect renders bind markers as ":name"
+  private static final Pattern BIND_MARKER = Pattern.compile("(?<![:\\w]):[A-Za-z_|]");
+  private static final Pattern OR = Pattern.compile("\\bOR\\b");
+  // A CAST of a column (rather than of a bind marker) prevents the use of an index on the column
+  private static final Pattern CAST_ON_COLUMN = Pattern.compile("\\bCAST\\(\\s*[A-Za-z_\"][\\w.\"]*\\s+AS\\b");
+  private static final Pattern LIMIT = Pattern.compile("\\bLIMIT\\b");
+
+  /**
+   * Max number of joins
+   */
+  private final int maxJoins;
+
+  /**
+   * Whether SELECT DISTINCT may be used
+   */
+  private final boolean distinctAllowed;
+
+  /**
+   * Max number of bind markers (e.g., an IN list with 10 values has 10)
+   */
+  private final int maxBindMarkers;
+
+  /**
+   * Max number of OR operators
+   */
+  private final int maxOrConditions;
+
+  /**
+   * Whether columns may be wrapped in a CAST (as done by the ieq/isubstr operators for non-string fields)
+   */
+  private final boolean castOnColumnsAllowed;
+
+  /**
+   * Whether the query must have a LIMIT
+   */
+  private final boolean limitRequired;
+
+  /**
+   * @return A budget without any limits (use the with-methods to add limits)
+   */
+  public static QueryBudget unlimited() {
+    return new QueryBudget(-1, true, -1, -1, true, false);
+  }
+
+  void verify(String sql) {
+    assertAtMost(maxJoins, count(JOIN, sql), "joins", sql);
+    assertAtMost(maxBindMarkers, count(BIND_MARKER, sql), "bind markers", sql);
+    assertAtMost(maxOrConditions, count(OR, sql), "OR conditions", sql);
+    if (!distinctAllowed) {
+      Assertions.assertFalse(DISTINCT.matcher(sql).find(), "Query budget exceeded: SELECT DISTINCT is not allowed in: " + sql);
+    }
+    if (!castOnColumnsAllowed) {
+      Matcher matcher = CAST_ON_COLUMN.matcher(sql);
+      if (matcher.find()) {
+        Assertions.fail("Query budget exceeded: CAST of a column (\"" + matcher.group() + "\") is not allowed in: " + sql);
+      }
+    }
+    if (limitRequired) {
+      Assertions.assertTrue(LIMIT.matcher(sql).find(), "Query budget exceeded: The query must have a LIMIT: " + sql);
+    }
+  }
+
+  private static void assertAtMost(int max, int actual, String description, String sql) {
+    if (max >= 0 && actual > max) {
+      Assertions.fail("Query budget exceeded: " + actual + " " + description + " but at most " + max
+        + " are allowed in: " + sql);
+    }
+  }
+
+  private static int count(Pattern pattern, String sql) {
+    Matcher matcher = pattern.matcher(sql);
+    int count = 0;
+    while (matcher.find()) {
+      count++;
+    }
+    return count;
+  }
+}
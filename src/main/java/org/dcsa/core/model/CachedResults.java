@@ -0,0 +1,39 @@
+package org.dcsa.core.model;
+
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Make {@link ExtendedRequest} serve the results of this model from the in-memory result cache
+ *
+ * Intended for reference-like data (locations, vessels, code lists) that is queried with the same
+ * query parameters over and over again.  The data and count queries are cached by their SQL and bind
+ * values for {@link #ttlSeconds()} (see {@link org.dcsa.core.extendedrequest.ResultCache}).
+ *
+ * <b>Note</b>: Changes to the underlying tables are only visible once the cached results expire, unless
+ * the code that makes the changes invalidates the cache (see
+ * {@link org.dcsa.core.extendedrequest.ResultCache#invalidate(Class)}).  Results with more rows than
+ * search.resultCache.maxRows are not cached.
+ *
+ * Example:
+ * <pre>{@code
+ * @Table("un_location")
+ * @CachedResults(ttlSeconds = 300)
+ * public class Location {
+ *   ...
+ * }
+ * }</pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CachedResults {
+
+    /**
+     * @return How long to keep the results in seconds.  0 (default) means search.resultCache.ttlSeconds
+     */
+    long ttlSeconds() default 0;
+}
@@ -18,4 +18,11 @@ public @interface ForeignKey {
     String viaJoinAlias() default "";
 
     Join.JoinType joinType() default Join.JoinType.JOIN;
+
+    /**
+     * Whether each row matches at most one row of the foreign table
+     *
+     * This is inferred when the foreignFieldName is the @Id of the foreign model (see {@link JoinedWithModel#toOne()}).
+     */
+    boolean toOne() default false;
 }
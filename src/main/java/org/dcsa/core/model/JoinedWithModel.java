@@ -87,6 +87,15 @@ public @interface JoinedWithModel {
 
     Join.JoinType joinType() default Join.JoinType.JOIN;
 
+    /**
+     * Whether each row of the left hand side matches at most one row of the right hand side
+     *
+     * This is inferred when the rhsFieldName is the @Id of the rhsModel.  A LEFT_OUTER_JOIN to one row
+     * cannot change the number of rows, so it can be left out of the count query unless a filter uses it
+     * (see search.pruneCountJoins).
+     */
+    boolean toOne() default false;
+
     String[] filterFields() default {};
 
     @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,68 @@
+package org.dcsa.core.query;
+
+import org.springframework.data.relational.core.sql.Join;
+
+/**
+ * The tables, joins and fields of a model as derived from its annotations at compile time
+ *
+ * The dcsa_core_processor annotation processor generates an implementation called {@code <Model>_DBEntityAnalysis}
+ * (in the package of the model) for each {@code @Table} model.  When such a class exists,
+ * {@link DBEntityAnalysis.DBEntityAnalysisBuilder#loadFieldsAndJoinsFromModel()} loads it instead of discovering
+ * {@link org.dcsa.core.model.ForeignKey}, {@link org.dcsa.core.model.JoinedWithModel},
+ * {@link org.dcsa.core.model.MapEntity}, {@code @Column}, {@code @JsonProperty} and {@code @Transient}
+ * via reflection.  Anything registered on the builder afterwards (e.g. in
+ * {@link org.dcsa.core.extendedrequest.ExtendedRequest#prepareDBEntityAnalysis()}) works the same either way.
+ *
+ * @param <T> The model class
+ */
+public interface GeneratedDBEntityAnalysis<T> {
+
+  String CLASS_NAME_SUFFIX = "_DBEntityAnalysis";
+
+  Class<T> getModelClass();
+
+  /**
+   * Registers the joins and then the fields of the model in the same order as the reflection based analysis
+   *
+   * @param registrar The registrar provided by the builder
+   */
+  void registerFieldsAndJoins(Registrar registrar);
+
+  /**
+   * @param modelClass The model class
+   * @param <T> The model type
+   * @return The generated analysis of the model or null if the model was not compiled with the annotation processor
+   */
+  static <T> GeneratedDBEntityAnalysis<T> find(Class<T> modelClass) {
+    return GeneratedModelClasses.getDBEntityAnalysis(modelClass);
+  }
+
+  interface Registrar {
+
+    /**
+     * Registers a join
+     *
+     * @param joinType The join type
+     * @param lhsAlias The alias of the table to join with (the primary table or a table from a previous join)
+     * @param lhsColumnName The column of the table to join with
+     * @param rhsModel The model of the joined table
+     * @param rhsTableName The name of the joined table
+     * @param rhsAlias The alias of the joined table (the table name, if the table is not aliased)
+     * @param rhsColumnName The column of the joined table
+     * @param toOne Whether each row of the table to join with matches at most one row of the joined table
+     */
+    void registerJoin(Join.JoinType joinType, String lhsAlias, String lhsColumnName, Class<?> rhsModel,
+                      String rhsTableName, String rhsAlias, String rhsColumnName, boolean toOne);
+
+    /**
+     * Registers a (selectable) field
+     *
+     * @param tableAlias The alias of the table with the column
+     * @param declaringClass The class declaring the field
+     * @param fieldName The name of the field
+     * @param columnName The name of the column
+     * @param jsonName The JSON name (including the prefix of the entity it is nested in)
+     */
+    void registerField(String tableAlias, Class<?> declaringClass, String fieldName, String columnName, String jsonName);
+  }
+}
@@ -0,0 +1,42 @@
+package org.dcsa.core.query;
+
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Accessors for the fields of a model as generated at compile time
+ *
+ * The dcsa_core_processor annotation processor generates an implementation called {@code <Model>_FieldAccessors}
+ * (in the package of the model) for each {@code @Table} model.  The row mapping uses it instead of reflection
+ * where it can.  The accessors use the setter of a field when there is one (like Jackson does) and the field
+ * itself otherwise.
+ *
+ * @param <T> The model class
+ */
+public interface GeneratedFieldAccessors<T> {
+
+  String CLASS_NAME_SUFFIX = "_FieldAccessors";
+
+  Class<T> getModelClass();
+
+  /**
+   * @return A supplier calling the no-argument constructor of the model or null if the generated code
+   * cannot call it.
+   */
+  Supplier<T> getConstructor();
+
+  /**
+   * @param fieldName The name of the Java field (declared on the model or one of its super classes)
+   * @return A setter for the field or null if the generated code cannot set the field.
+   */
+  BiConsumer<T, Object> getSetter(String fieldName);
+
+  /**
+   * @param modelClass The model class
+   * @param <T> The model type
+   * @return The generated accessors of the model or null if the model was not compiled with the annotation processor
+   */
+  static <T> GeneratedFieldAccessors<T> find(Class<T> modelClass) {
+    return GeneratedModelClasses.getFieldAccessors(modelClass);
+  }
+}
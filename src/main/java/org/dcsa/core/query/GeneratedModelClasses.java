@@ -0,0 +1,66 @@
+package org.dcsa.core.query;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/*
+ * Loads the classes generated by the annotation processor (once per model class).
+ *
+ * The generated classes are found by name: The binary name of the model (with "$" replaced by "_") followed by
+ * the suffix of the generated class.  A model without a generated class (i.e., not compiled with the annotation
+ * processor) falls back to reflection.
+ */
+final class GeneratedModelClasses {
+
+  private static final ClassValue<Optional<GeneratedDBEntityAnalysis<?>>> DB_ENTITY_ANALYSES = new ClassValue<>() {
+    @Override
+    protected Optional<GeneratedDBEntityAnalysis<?>> computeValue(Class<?> modelClass) {
+      return Optional.ofNullable(load(modelClass, GeneratedDBEntityAnalysis.CLASS_NAME_SUFFIX,
+        GeneratedDBEntityAnalysis.class, GeneratedDBEntityAnalysis::getModelClass));
+    }
+  };
+
+  private static final ClassValue<Optional<GeneratedFieldAccessors<?>>> FIELD_ACCESSORS = new ClassValue<>() {
+    @Override
+    protected Optional<GeneratedFieldAccessors<?>> computeValue(Class<?> modelClass) {
+      return Optional.ofNullable(load(modelClass, GeneratedFieldAccessors.CLASS_NAME_SUFFIX,
+        GeneratedFieldAccessors.class, GeneratedFieldAccessors::getModelClass));
+    }
+  };
+
+  private GeneratedModelClasses() {}
+
+  @SuppressWarnings("unchecked")
+  static <T> GeneratedDBEntityAnalysis<T> getDBEntityAnalysis(Class<T> modelClass) {
+    return (GeneratedDBEntityAnalysis<T>) DB_ENTITY_ANALYSES.get(modelClass).orElse(null);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> GeneratedFieldAccessors<T> getFieldAccessors(Class<T> modelClass) {
+    return (GeneratedFieldAccessors<T>) FIELD_ACCESSORS.get(modelClass).orElse(null);
+  }
+
+  private static <G> G load(Class<?> modelClass, String suffix, Class<G> generatedType, Function<G, Class<?>> getModelClass) {
+    String className = modelClass.getName().replace('$', '_') + suffix;
+    Class<?> generatedClass;
+    try {
+      generatedClass = Class.forName(className, true, modelClass.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+    if (!generatedType.isAssignableFrom(generatedClass)) {
+      throw new IllegalStateException(className + " does not implement " + generatedType.getSimpleName());
+    }
+    G generated;
+    try {
+      generated = generatedType.cast(generatedClass.getConstructor().newInstance());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot create an instance of " + className, e);
+    }
+    // Guard against a class that happens to have the same name (e.g., "Outer_Inner" vs. "Outer$Inner")
+    if (getModelClass.apply(generated) != modelClass) {
+      return null;
+    }
+    return generated;
+  }
+}
@@ -54,7 +54,7 @@ public abstract class AbstractDBEntityAnalysisBuilder<T> implements DBEntityAnal
   protected DBEntityAnalysis.DBEntityAnalysisBuilder<T> joinOnImpl(Join.JoinType joinType, Condition condition, TableLike lhsTable, TableLike rhsTable, Class<?> rhsModel) {
     checkJoinType(joinType, rhsModel);
     String lhsAlias = ReflectUtility.getAliasId(lhsTable);
-    return registerJoinDescriptor(SimpleJoinDescriptor.of(joinType, rhsTable, rhsModel, condition, lhsAlias));
+    return registerJoinDescriptor(SimpleJoinDescriptor.of(joinType, rhsTable, rhsModel, condition, lhsAlias, false));
   }
 
   protected DBEntityAnalysis.DBEntityAnalysisWithTableBuilder<T> joinOnThenImpl(Join.JoinType joinType, Condition condition, TableLike lhsTable, TableLike rhsTable, Class<?> rhsModel) {
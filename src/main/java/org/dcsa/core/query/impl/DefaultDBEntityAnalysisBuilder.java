@@ -6,7 +6,9 @@ import org.dcsa.core.model.ForeignKey;
 import org.dcsa.core.model.JoinedWithModel;
 import org.dcsa.core.model.MapEntity;
 import org.dcsa.core.query.DBEntityAnalysis;
+import org.dcsa.core.query.GeneratedDBEntityAnalysis;
 import org.dcsa.core.util.ReflectUtility;
+import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.sql.*;
 
@@ -43,6 +45,12 @@ public class DefaultDBEntityAnalysisBuilder<T> extends AbstractDBEntityAnalysisB
 
 
   public DBEntityAnalysis.DBEntityAnalysisBuilder<T> loadFieldsAndJoinsFromModel() {
+    // Prefer the analysis generated by the annotation processor (if the model was compiled with it)
+    GeneratedDBEntityAnalysis<T> generatedDBEntityAnalysis = GeneratedDBEntityAnalysis.find(entityType);
+    if (generatedDBEntityAnalysis != null) {
+      generatedDBEntityAnalysis.registerFieldsAndJoins(new GeneratedDBEntityAnalysisRegistrar());
+      return this;
+    }
     generateEntityTree();
     generateTables();
     generateJoins();
@@ -203,6 +211,7 @@ public class DefaultDBEntityAnalysisBuilder<T> extends AbstractDBEntityAnalysisB
             intoModelType, intoJoinAlias, joinType,
             fromField.getName(), foreignKey.foreignFieldName());
           intoNode.setSelectName(intoFieldName);
+          intoNode.setToOne(foreignKey.toOne() || isIdField(intoModelType, foreignKey.foreignFieldName()));
           currentNode.addChild(intoNode);
           loadModelDeep(intoModelType, intoNode, skipQueryFields);
         }
@@ -248,6 +257,7 @@ public class DefaultDBEntityAnalysisBuilder<T> extends AbstractDBEntityAnalysisB
       String rhsFieldName = joinAnnotation.rhsFieldName();
 
       EntityTreeNode rhsNode = EntityTreeNode.of(currentNode, rhsModel, rhsJoinAlias, joinType, lhsFieldName, rhsFieldName);
+      rhsNode.setToOne(joinAnnotation.toOne() || isIdField(rhsModel, rhsFieldName));
       if (lhsModel == modelType) {
         currentNode.addChild(rhsNode);
       } else {
@@ -272,6 +282,15 @@ public class DefaultDBEntityAnalysisBuilder<T> extends AbstractDBEntityAnalysisB
     }
   }
 
+  private static boolean isIdField(Class<?> modelType, String fieldName) {
+    try {
+      return ReflectUtility.getDeclaredField(modelType, fieldName).isAnnotationPresent(Id.class);
+    } catch (NoSuchFieldException e) {
+      // Reported when the join is generated
+      return false;
+    }
+  }
+
   private void generateTables() {
     generateTablesDeep(rootEntityTreeNode, "");
   }
@@ -315,7 +334,7 @@ public class DefaultDBEntityAnalysisBuilder<T> extends AbstractDBEntityAnalysisB
 
       String dependentAlias = prefix + currentNode.getAlias();
       JoinDescriptor joinDescriptor = SimpleJoinDescriptor.of(childNode.getJoinType(), rhsTable, childNode.getModelType(),
-        Conditions.isEqual(lhsColumn, rhsColumn), dependentAlias);
+        Conditions.isEqual(lhsColumn, rhsColumn), dependentAlias, childNode.isToOne());
       registerJoinDescriptor(joinDescriptor);
 
       generatePrefixedJoinsDeep(childNode, newPrefix);
@@ -541,6 +560,57 @@ public class DefaultDBEntityAnalysisBuilder<T> extends AbstractDBEntityAnalysisB
     return getModelFor(ReflectUtility.getAliasId(table));
   }
 
+  /*
+   * Registers the joins and fields of a GeneratedDBEntityAnalysis like generateJoins() and generateQueryFields()
+   * would have registered them.
+   */
+  private class GeneratedDBEntityAnalysisRegistrar implements GeneratedDBEntityAnalysis.Registrar {
+
+    private final Map<String, Table> alias2Table = new HashMap<>();
+
+    GeneratedDBEntityAnalysisRegistrar() {
+      Table primaryModelTable = getPrimaryModelTable();
+      alias2Table.put(ReflectUtility.getAliasId(primaryModelTable), primaryModelTable);
+    }
+
+    @Override
+    public void registerJoin(Join.JoinType joinType, String lhsAlias, String lhsColumnName, Class<?> rhsModel,
+                             String rhsTableName, String rhsAlias, String rhsColumnName, boolean toOne) {
+      Table lhsTable = getTable(lhsAlias);
+      Table rhsTable = Table.create(SqlIdentifier.unquoted(rhsTableName));
+      if (!rhsAlias.equals(rhsTableName)) {
+        rhsTable = rhsTable.as(SqlIdentifier.unquoted(rhsAlias));
+      }
+      // A reused alias is rejected by registerJoinDescriptor
+      alias2Table.putIfAbsent(rhsAlias, rhsTable);
+      Column lhsColumn = Column.create(SqlIdentifier.unquoted(lhsColumnName), lhsTable);
+      Column rhsColumn = Column.create(SqlIdentifier.unquoted(rhsColumnName), rhsTable);
+      registerJoinDescriptor(SimpleJoinDescriptor.of(joinType, rhsTable, rhsModel,
+        Conditions.isEqual(lhsColumn, rhsColumn), lhsAlias, toOne));
+    }
+
+    @Override
+    public void registerField(String tableAlias, Class<?> declaringClass, String fieldName, String columnName, String jsonName) {
+      Field field;
+      try {
+        field = declaringClass.getDeclaredField(fieldName);
+      } catch (NoSuchFieldException e) {
+        throw new IllegalStateException("The generated analysis of " + entityType.getSimpleName() + " is out of date: "
+          + declaringClass.getSimpleName() + " has no field " + fieldName + ".  Please recompile the model.", e);
+      }
+      registerQueryField(QueryFields.queryFieldFromField(field, getTable(tableAlias), true, columnName, jsonName, null));
+    }
+
+    private Table getTable(String alias) {
+      Table table = alias2Table.get(alias);
+      if (table == null) {
+        throw new IllegalStateException("The generated analysis of " + entityType.getSimpleName()
+          + " uses the alias " + alias + " before registering a join for it.  Please recompile the model.");
+      }
+      return table;
+    }
+  }
+
   public DBEntityAnalysis<T> build() {
     if (used) {
       throw new IllegalStateException("Already used");
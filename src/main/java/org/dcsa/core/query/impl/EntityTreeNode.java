@@ -31,6 +31,10 @@ class EntityTreeNode {
   private final String lhsFieldName;
   @Getter
   private final String rhsFieldName;
+  // Whether the join matches at most one row (see JoinedWithModel.toOne())
+  @Getter
+  @Setter
+  private boolean toOne;
   @Getter
   private final List<EntityTreeNode> children = new LinkedList<>();
   private final Map<String, EntityTreeNode> alias2Child = new HashMap<>();
@@ -19,7 +19,9 @@ class SimpleJoinDescriptor implements JoinDescriptor {
 
   private final String dependentAlias;
 
+  private final boolean toOne;
+
   public static JoinDescriptor of(Join.JoinType joinType, Column lhsColumn, Column rhsColumn, String dependentAlias) {
-    return of(joinType, rhsColumn.getTable(), null, Conditions.isEqual(lhsColumn, rhsColumn), dependentAlias);
+    return of(joinType, rhsColumn.getTable(), null, Conditions.isEqual(lhsColumn, rhsColumn), dependentAlias, false);
   }
 }
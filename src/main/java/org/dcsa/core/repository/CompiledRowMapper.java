@@ -0,0 +1,360 @@
+package org.dcsa.core.repository;
+
+import com.fasterxml.jackson.annotation.*;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.QueryField;
+import org.dcsa.core.query.DBEntityAnalysis;
+import org.dcsa.core.query.GeneratedFieldAccessors;
+import org.dcsa.core.util.ReflectUtility;
+import org.springframework.data.annotation.Id;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/*
+ * Maps rows with a given column layout directly into the model (no intermediate maps and no Jackson).
+ *
+ * The mapper is compiled once per DBEntityAnalysis and column layout by the RowMapper.  Values are read by
+ * column index.  It only supports
+ * the plain cases (no-arg constructor, setters or non-final fields and no Jackson annotations that change
+ * how the model is deserialized).  Everything else is left to the generic (Jackson based) mapping in
+ * the RowMapper:
+ *  - compile returns null when the model or the column layout is not supported.
+ *  - mapRow returns null when a value of the row would need a conversion (e.g., Integer to Long).
+ *
+ * When a model was compiled with the annotation processor, its GeneratedFieldAccessors create the entity and set
+ * the fields (where the generated code can do so) instead of method handles obtained via reflection.
+ *
+ * Like the generic mapping, an entity (other than the root) is only created when it or one of its nested
+ * entities has a non-null @Id column.  This keeps entities from failed LEFT JOINs null.
+ */
+class CompiledRowMapper<T> {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+  // Used with the accessors generated by the annotation processor (see GeneratedFieldAccessors)
+  private static final MethodHandle SUPPLIER_GET;
+  private static final MethodHandle BI_CONSUMER_ACCEPT;
+
+  static {
+    try {
+      SUPPLIER_GET = LOOKUP.findVirtual(Supplier.class, "get", CONSTRUCTOR_TYPE);
+      BI_CONSUMER_ACCEPT = LOOKUP.findVirtual(BiConsumer.class, "accept", SETTER_TYPE);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static final Set<Class<? extends Annotation>> UNSUPPORTED_ANNOTATIONS = Set.of(
+    JsonDeserialize.class,
+    JsonCreator.class,
+    JsonSetter.class,
+    JsonAnySetter.class,
+    JsonTypeInfo.class,
+    JsonSubTypes.class,
+    JsonUnwrapped.class,
+    JsonMerge.class,
+    JsonManagedReference.class,
+    JsonBackReference.class
+  );
+
+  private static final Map<Class<?>, Class<?>> PRIMITIVE_TO_WRAPPER = Map.of(
+    boolean.class, Boolean.class,
+    byte.class, Byte.class,
+    char.class, Character.class,
+    short.class, Short.class,
+    int.class, Integer.class,
+    long.class, Long.class,
+    float.class, Float.class,
+    double.class, Double.class
+  );
+
+  private final EntityNode[] entityNodes;
+  private final ColumnPlan[] columnPlans;
+
+  private CompiledRowMapper(EntityNode[] entityNodes, ColumnPlan[] columnPlans) {
+    this.entityNodes = entityNodes;
+    this.columnPlans = columnPlans;
+  }
+
+  static <T> CompiledRowMapper<T> compile(List<ColumnMetadata> columns, DBEntityAnalysis<T> dbEntityAnalysis,
+                                          Class<T> modelClass, boolean ignoreUnknownProperties) {
+    try {
+      return doCompile(columns, dbEntityAnalysis, modelClass, ignoreUnknownProperties);
+    } catch (IllegalAccessException | NoSuchFieldException | IllegalArgumentException e) {
+      // Leave it to the generic mapping (which will also report the error if there is a problem with the model)
+      return null;
+    }
+  }
+
+  private static <T> CompiledRowMapper<T> doCompile(List<ColumnMetadata> columns, DBEntityAnalysis<T> dbEntityAnalysis,
+                                                    Class<T> modelClass, boolean ignoreUnknownProperties)
+    throws IllegalAccessException, NoSuchFieldException {
+    Map<String, EntityNode> nodesByPrefix = new LinkedHashMap<>();
+    EntityNode root = EntityNode.of(null, modelClass, null);
+    if (root == null) {
+      return null;
+    }
+    nodesByPrefix.put("", root);
+    List<ColumnPlan> columnPlans = new ArrayList<>(columns.size());
+    for (int i = 0; i < columns.size(); i++) {
+      ColumnMetadata columnMetadata = columns.get(i);
+      String columnName = columnMetadata.getName();
+      if (ExtendedRequest.WINDOW_COUNT_COLUMN_NAME.equals(columnName)) {
+        continue;
+      }
+      if (columnMetadata.getJavaType() == null) {
+        return null;
+      }
+      QueryField queryField;
+      try {
+        queryField = dbEntityAnalysis.getQueryFieldFromSelectName(columnName);
+      } catch (IllegalArgumentException e) {
+        if (ignoreUnknownProperties) {
+          continue;
+        }
+        return null;
+      }
+      Field modelField = queryField.getCombinedModelField();
+      if (modelField == null) {
+        return null;
+      }
+      EntityNode node = root;
+      int end = columnName.lastIndexOf('.');
+      if (end > 0) {
+        node = getOrCreateNode(nodesByPrefix, columnName.substring(0, end));
+        if (node == null) {
+          return null;
+        }
+      }
+      // Verify that Jackson would have set the same field on the entity
+      String jsonName = ReflectUtility.transformFromFieldNameToJsonName(modelField);
+      if (!columnName.substring(end + 1).equals(jsonName) || !modelField.getDeclaringClass().isAssignableFrom(node.type)
+        || !ReflectUtility.transformFromJsonNameToFieldName(node.type, jsonName).equals(modelField.getName())) {
+        return null;
+      }
+      MethodHandle setter = findSetter(node.type, modelField);
+      if (setter == null) {
+        return null;
+      }
+      columnPlans.add(new ColumnPlan(i, node, modelField.getType(), setter, modelField.isAnnotationPresent(Id.class)));
+    }
+    EntityNode[] entityNodes = nodesByPrefix.values().toArray(new EntityNode[0]);
+    for (int i = 0; i < entityNodes.length; i++) {
+      entityNodes[i].index = i;
+    }
+    return new CompiledRowMapper<>(entityNodes, columnPlans.toArray(new ColumnPlan[0]));
+  }
+
+  private static EntityNode getOrCreateNode(Map<String, EntityNode> nodesByPrefix, String prefix)
+    throws IllegalAccessException, NoSuchFieldException {
+    EntityNode node = nodesByPrefix.get(prefix);
+    if (node != null) {
+      return node;
+    }
+    int end = prefix.lastIndexOf('.');
+    EntityNode parent = end > 0 ? getOrCreateNode(nodesByPrefix, prefix.substring(0, end)) : nodesByPrefix.get("");
+    if (parent == null) {
+      return null;
+    }
+    String jsonName = prefix.substring(end + 1);
+    Field field = ReflectUtility.getDeclaredField(parent.type, ReflectUtility.transformFromJsonNameToFieldName(parent.type, jsonName));
+    MethodHandle setter = findSetter(parent.type, field);
+    if (setter == null) {
+      return null;
+    }
+    node = EntityNode.of(parent, field.getType(), setter);
+    if (node != null) {
+      nodesByPrefix.put(prefix, node);
+    }
+    return node;
+  }
+
+  private static MethodHandle findSetter(Class<?> type, Field field) throws IllegalAccessException {
+    if (hasUnsupportedAnnotation(field)) {
+      return null;
+    }
+    JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+    if (jsonProperty != null && jsonProperty.access() == JsonProperty.Access.READ_ONLY) {
+      return null;
+    }
+    Method method;
+    try {
+      // Like Jackson, prefer the setter (if any) over the field
+      method = type.getMethod("set" + ReflectUtility.capitalize(field.getName()), field.getType());
+    } catch (NoSuchMethodException e) {
+      method = null;
+    }
+    if (method != null ? hasUnsupportedAnnotation(method)
+      : Modifier.isFinal(field.getModifiers()) || Modifier.isStatic(field.getModifiers())) {
+      return null;
+    }
+    MethodHandle setter;
+    GeneratedFieldAccessors<?> generatedFieldAccessors = GeneratedFieldAccessors.find(type);
+    BiConsumer<?, Object> generatedSetter = generatedFieldAccessors != null
+      ? generatedFieldAccessors.getSetter(field.getName())
+      : null;
+    if (generatedSetter != null) {
+      setter = BI_CONSUMER_ACCEPT.bindTo(generatedSetter);
+    } else if (method != null) {
+      setter = LOOKUP.unreflect(method);
+    } else {
+      // The field is shared (see ReflectUtility), so make a private copy accessible
+      Field accessibleField = ReflectUtility.copyOf(field);
+      accessibleField.trySetAccessible();
+      setter = LOOKUP.unreflectSetter(accessibleField);
+    }
+    return setter.asType(SETTER_TYPE);
+  }
+
+  private static boolean hasUnsupportedAnnotation(AnnotatedElement element) {
+    for (Class<? extends Annotation> annotation : UNSUPPORTED_ANNOTATIONS) {
+      if (element.isAnnotationPresent(annotation)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return The mapped model or null if the row must be mapped by the generic mapping
+   */
+  T mapRow(Row row) {
+    Object[] values = new Object[columnPlans.length];
+    boolean[] present = new boolean[entityNodes.length];
+    present[0] = true;
+    for (int i = 0; i < columnPlans.length; i++) {
+      ColumnPlan columnPlan = columnPlans[i];
+      Object value = row.get(columnPlan.index);
+      if (columnPlan.isIdField && value != null) {
+        for (EntityNode node = columnPlan.node; node != null && !present[node.index]; node = node.parent) {
+          present[node.index] = true;
+        }
+      }
+      if (value == null) {
+        if (columnPlan.type.isPrimitive()) {
+          return null;
+        }
+      } else if (columnPlan.type.isEnum() && value instanceof String) {
+        value = parseEnum(columnPlan.type, (String) value);
+      } else if (!columnPlan.boxedType.isInstance(value)) {
+        return null;
+      }
+      values[i] = value;
+    }
+    Object[] instances = new Object[entityNodes.length];
+    try {
+      Object root = getOrCreateInstance(instances, entityNodes[0]);
+      for (int i = 0; i < columnPlans.length; i++) {
+        ColumnPlan columnPlan = columnPlans[i];
+        if (!present[columnPlan.node.index]) {
+          // Entity is not mapped (e.g., because it was involved in a LEFT JOIN and the match failed).
+          continue;
+        }
+        columnPlan.setter.invokeExact(getOrCreateInstance(instances, columnPlan.node), values[i]);
+      }
+      @SuppressWarnings("unchecked")
+      T result = (T) root;
+      return result;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not map row to " + entityNodes[0].type.getSimpleName() + ": " + e.getMessage(), e);
+    }
+  }
+
+  private static Object getOrCreateInstance(Object[] instances, EntityNode node) throws Throwable {
+    Object instance = instances[node.index];
+    if (instance == null) {
+      instance = (Object) node.constructor.invokeExact();
+      instances[node.index] = instance;
+      if (node.parent != null) {
+        node.setterInParent.invokeExact(getOrCreateInstance(instances, node.parent), instance);
+      }
+    }
+    return instance;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Enum<?> parseEnum(Class<?> enumClass, String value) {
+    return Enum.valueOf((Class) enumClass, value);
+  }
+
+  private static class EntityNode {
+    private final EntityNode parent;
+    private final Class<?> type;
+    private final MethodHandle constructor;
+    private final MethodHandle setterInParent;
+    private int index;
+
+    private EntityNode(EntityNode parent, Class<?> type, MethodHandle constructor, MethodHandle setterInParent) {
+      this.parent = parent;
+      this.type = type;
+      this.constructor = constructor;
+      this.setterInParent = setterInParent;
+    }
+
+    static EntityNode of(EntityNode parent, Class<?> type, MethodHandle setterInParent) throws IllegalAccessException {
+      if (type.isInterface() || type.isPrimitive() || type.isArray() || Modifier.isAbstract(type.getModifiers())
+        || (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+        return null;
+      }
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        if (hasUnsupportedAnnotation(c)) {
+          return null;
+        }
+        for (Constructor<?> constructor : c.getDeclaredConstructors()) {
+          if (hasUnsupportedAnnotation(constructor)) {
+            return null;
+          }
+        }
+        for (Method method : c.getDeclaredMethods()) {
+          if (hasUnsupportedAnnotation(method)) {
+            return null;
+          }
+        }
+      }
+      GeneratedFieldAccessors<?> generatedFieldAccessors = GeneratedFieldAccessors.find(type);
+      Supplier<?> generatedConstructor = generatedFieldAccessors != null ? generatedFieldAccessors.getConstructor() : null;
+      if (generatedConstructor != null) {
+        return new EntityNode(parent, type, SUPPLIER_GET.bindTo(generatedConstructor), setterInParent);
+      }
+      Constructor<?> constructor;
+      try {
+        constructor = type.getDeclaredConstructor();
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+      constructor.trySetAccessible();
+      return new EntityNode(parent, type, LOOKUP.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE), setterInParent);
+    }
+  }
+
+  private static class ColumnPlan {
+    private final int index;
+    private final EntityNode node;
+    private final Class<?> type;
+    private final Class<?> boxedType;
+    private final MethodHandle setter;
+    private final boolean isIdField;
+
+    private ColumnPlan(int index, EntityNode node, Class<?> type, MethodHandle setter, boolean isIdField) {
+      this.index = index;
+      this.node = node;
+      this.type = type;
+      this.boxedType = PRIMITIVE_TO_WRAPPER.getOrDefault(type, type);
+      this.setter = setter;
+      this.isIdField = isIdField;
+    }
+  }
+}
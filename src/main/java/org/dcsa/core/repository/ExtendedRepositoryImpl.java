@@ -1,38 +1,134 @@
 package org.dcsa.core.repository;
 
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.ExtendedRequestMetrics;
+import org.dcsa.core.extendedrequest.ResultCache;
+import org.dcsa.core.extendedrequest.ResultVersion;
 import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository;
 import org.springframework.data.relational.repository.support.MappingRelationalEntityInformation;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.Collections;
+import java.util.function.BiFunction;
 
 public class ExtendedRepositoryImpl<T, I> extends SimpleR2dbcRepository<T, I> implements ExtendedRepository<T, I> {
   private final DatabaseClient databaseClient;
   private final RowMapper rowMapper = new RowMapper();
+  private final SlowQueryLog slowQueryLog;
+  private final TransactionalOperator readOnlyTransactionalOperator;
 
   public ExtendedRepositoryImpl(MappingRelationalEntityInformation<T, I> mappingRelationalEntityInformation,
                                 R2dbcEntityTemplate r2dbcEntityTemplate,
                                 MappingR2dbcConverter mappingR2dbcConverter) {
     super(mappingRelationalEntityInformation, r2dbcEntityTemplate, mappingR2dbcConverter);
     this.databaseClient = r2dbcEntityTemplate.getDatabaseClient();
+    this.slowQueryLog = SlowQueryLog.of(databaseClient);
+    DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
+    transactionDefinition.setReadOnly(true);
+    this.readOnlyTransactionalOperator = TransactionalOperator.create(
+      new R2dbcTransactionManager(databaseClient.getConnectionFactory()), transactionDefinition);
   }
 
   public Mono<Integer> countAllExtended(final ExtendedRequest<T> extendedRequest) {
-    return extendedRequest.getCount(databaseClient)
+    ResultCache resultCache = extendedRequest.getExtendedParameters().getResultCache();
+    return resultCache.getOrFetchCount(extendedRequest, () -> fetchCount(extendedRequest));
+  }
+
+  private Mono<Integer> fetchCount(final ExtendedRequest<T> extendedRequest) {
+    Flux<Integer> count = extendedRequest.getCount(databaseClient)
       .map((row, metadata) -> row.get(0, Integer.class))
-      .first()
+      .all();
+    Mono<Integer> result = withPlanCacheMode(extendedRequest, count)
+      .next()
       .defaultIfEmpty(0);
+    return extendedRequest.getMetrics().timeCountQuery(extendedRequest, slowQueryLog.watchCountQuery(extendedRequest, result));
+  }
+
+  public Mono<Integer> estimateCountAllExtended(final ExtendedRequest<T> extendedRequest) {
+    return extendedRequest.getEstimatedCount(databaseClient)
+      .map((row, metadata) -> ExtendedRequest.parseEstimatedCount(row.get(0, String.class)))
+      .first()
+      .defaultIfEmpty(-1);
+  }
+
+  public Mono<ResultVersion> findResultVersionExtended(final ExtendedRequest<T> extendedRequest) {
+    Flux<ResultVersion> resultVersion = extendedRequest.getLastModified(databaseClient)
+      .map((row, metadata) -> ResultVersion.of(ResultVersion.toInstant(row.get(0)), row.get(1, Integer.class)))
+      .all();
+    return withPlanCacheMode(extendedRequest, resultVersion).next();
   }
 
   public Flux<T> findAllExtended(final ExtendedRequest<T> extendedRequest) {
-    boolean ignoreUnknownProperties = extendedRequest.ignoreUnknownProperties();
-    return extendedRequest.getFindAll(databaseClient)
-      .map((row, metadata) ->
-        rowMapper.mapRow(row, metadata, extendedRequest.getDbEntityAnalysis(),
-          extendedRequest.getModelClass(), ignoreUnknownProperties)
-      ).all();
+    ResultCache resultCache = extendedRequest.getExtendedParameters().getResultCache();
+    Class<T> modelClass = extendedRequest.getModelClass();
+    Flux<T> result = resultCache.getOrFetchRows(extendedRequest, () -> fetchAll(extendedRequest),
+      row -> rowMapper.copy(row, modelClass));
+    if (extendedRequest.isLookAhead()) {
+      // The extra row only tells whether there is another page.  Drop it without cancelling the query, so
+      // it is still registered.  This happens before reversing a page fetched backwards, as the extra row is
+      // the last one fetched.
+      int pageSize = extendedRequest.getPageSize();
+      result = result.index()
+        .filter(indexed -> indexed.getT1() < pageSize)
+        .map(Tuple2::getT2);
+    }
+    if (extendedRequest.isResultReversed()) {
+      // Keyset pagination fetched the page backwards (bounded by the page size)
+      result = result.collectList().flatMapIterable(list -> {
+        Collections.reverse(list);
+        return list;
+      });
+    }
+    return extendedRequest.getMetrics().countRows(extendedRequest, result);
+  }
+
+  private Flux<T> fetchAll(final ExtendedRequest<T> extendedRequest) {
+    BiFunction<Row, RowMetadata, T> resultSetRowMapper = rowMapper.forResultSet(extendedRequest.getDbEntityAnalysis(),
+      extendedRequest.getModelClass(), extendedRequest.ignoreUnknownProperties());
+    ExtendedRequestMetrics metrics = extendedRequest.getMetrics();
+    boolean timeMapping = metrics.isEnabled();
+    // A request is only executed once, so the total can live outside the subscription
+    long[] mappingNanos = {0};
+    Flux<T> result = extendedRequest.getFindAll(databaseClient)
+      .map((row, metadata) -> {
+        extendedRequest.registerFetchedRow(row);
+        if (!timeMapping) {
+          return resultSetRowMapper.apply(row, metadata);
+        }
+        long start = System.nanoTime();
+        T mapped = resultSetRowMapper.apply(row, metadata);
+        mappingNanos[0] += System.nanoTime() - start;
+        return mapped;
+      }).all();
+    if (timeMapping) {
+      result = result.doOnComplete(() -> metrics.recordNanos(ExtendedRequestMetrics.ROW_MAPPING, extendedRequest, mappingNanos[0]));
+    }
+    result = slowQueryLog.watchDataQuery(extendedRequest, withPlanCacheMode(extendedRequest, result));
+    return metrics.timeDataQuery(extendedRequest, result);
+  }
+
+  private <R> Flux<R> withPlanCacheMode(ExtendedRequest<T> extendedRequest, Flux<R> query) {
+    String planCacheModeSetting = extendedRequest.getPlanCacheModeSetting();
+    if (planCacheModeSetting == null) {
+      return query;
+    }
+    // SET LOCAL only lasts until the end of the transaction, so the setting does not leak to other
+    // queries using the same (pooled) connection.  The price is three extra round trips per query (BEGIN,
+    // SET LOCAL and COMMIT), see search.planCacheMode in ExtendedParameters.
+    return readOnlyTransactionalOperator.transactional(
+      databaseClient.sql("SET LOCAL plan_cache_mode = " + planCacheModeSetting)
+        .then()
+        .thenMany(query)
+    );
   }
 }
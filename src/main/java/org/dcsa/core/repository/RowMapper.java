@@ -11,7 +11,9 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.r2dbc.spi.ColumnMetadata;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import lombok.RequiredArgsConstructor;
 import org.dcsa.core.exception.DatabaseException;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
 import org.dcsa.core.extendedrequest.QueryField;
 import org.dcsa.core.query.DBEntityAnalysis;
 import org.dcsa.core.util.MappingUtils;
@@ -20,9 +22,11 @@ import org.springframework.data.annotation.Id;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 class RowMapper {
   private static final Integer DATABASE_INTERVAL_NATIVE_TYPE = 1186;
@@ -52,15 +56,92 @@ class RowMapper {
           }
         });
 
+  // Getters without a field (e.g. computed properties) are written by a copy, but cannot be read back
+  private final ObjectMapper copyObjectMapper = objectMapper.copy()
+    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  // Row mapping plans per analysis and column layout.  Weak keys as an analysis is not always cached
+  // (see ExtendedRequest.isDBEntityAnalysisCacheable()).
+  private final Map<DBEntityAnalysis<?>, Map<List<String>, RowMappingPlan<?>>> rowMappingPlans =
+    Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Deep copy of an entity mapped by this mapper (e.g. for results shared via the ResultCache)
+   *
+   * The copy goes through the same object mapper as the generic mapping, so it covers the same properties.
+   */
+  <T> T copy(T entity, Class<T> modelClass) {
+    return copyObjectMapper.convertValue(objectMapper.valueToTree(entity), modelClass);
+  }
+
   public <T> T mapRow(Row row, RowMetadata metadata, DBEntityAnalysis<T> dbEntityAnalysis, Class<T> modelClass, boolean ignoreUnknownProperties) {
-    Map<String, Object> objectMap = objectMapFromRow(row, metadata, dbEntityAnalysis, ignoreUnknownProperties);
-    return objectMapper.convertValue(objectMap, modelClass);
+    return getRowMappingPlan(metadata, dbEntityAnalysis, modelClass, ignoreUnknownProperties).mapRow(row);
   }
 
-  private static <T> Map<String, Object> objectMapFromRow(Row row, RowMetadata metadata, DBEntityAnalysis<T> dbEntityAnalysis, boolean ignoreUnknownProperties) {
-    Map<String, Object> objectMap = new HashMap<>();
-    Map<String, Field> fieldMap = new HashMap<>();
-    for (String columnName : metadata.getColumnNames()) {
+  /**
+   * Provides a mapper for the rows of a single result set
+   *
+   * The rows of a result set share the same RowMetadata, so the plan for the column layout is only
+   * looked up when the RowMetadata changes.  The returned mapper is not thread-safe (rows of a result
+   * set are mapped one at the time).
+   */
+  public <T> BiFunction<Row, RowMetadata, T> forResultSet(DBEntityAnalysis<T> dbEntityAnalysis, Class<T> modelClass, boolean ignoreUnknownProperties) {
+    return new BiFunction<>() {
+      private RowMetadata lastMetadata;
+      private RowMappingPlan<T> lastPlan;
+
+      @Override
+      public T apply(Row row, RowMetadata metadata) {
+        if (metadata != lastMetadata) {
+          lastPlan = getRowMappingPlan(metadata, dbEntityAnalysis, modelClass, ignoreUnknownProperties);
+          lastMetadata = metadata;
+        }
+        return lastPlan.mapRow(row);
+      }
+    };
+  }
+
+  // For tests: Maps the row via the generic mapping (even when the compiled mapper could map it)
+  <T> T mapRowGeneric(Row row, RowMetadata metadata, DBEntityAnalysis<T> dbEntityAnalysis, Class<T> modelClass, boolean ignoreUnknownProperties) {
+    return mapRowGeneric(row, getRowMappingPlan(metadata, dbEntityAnalysis, modelClass, ignoreUnknownProperties).columnPlans, modelClass);
+  }
+
+  // For tests: Whether rows of this layout are mapped by the compiled mapper (unless a value needs a conversion)
+  <T> boolean isCompiled(RowMetadata metadata, DBEntityAnalysis<T> dbEntityAnalysis, Class<T> modelClass, boolean ignoreUnknownProperties) {
+    return getRowMappingPlan(metadata, dbEntityAnalysis, modelClass, ignoreUnknownProperties).compiledRowMapper != null;
+  }
+
+  private <T> RowMappingPlan<T> getRowMappingPlan(RowMetadata metadata, DBEntityAnalysis<T> dbEntityAnalysis, Class<T> modelClass, boolean ignoreUnknownProperties) {
+    List<ColumnMetadata> columns = new ArrayList<>();
+    for (ColumnMetadata columnMetadata : metadata.getColumnMetadatas()) {
+      columns.add(columnMetadata);
+    }
+    List<String> columnNames = columns.stream().map(ColumnMetadata::getName).collect(Collectors.toList());
+    Map<List<String>, RowMappingPlan<?>> byColumnLayout =
+      rowMappingPlans.computeIfAbsent(dbEntityAnalysis, k -> new ConcurrentHashMap<>());
+    @SuppressWarnings("unchecked")
+    RowMappingPlan<T> plan = (RowMappingPlan<T>) byColumnLayout.get(columnNames);
+    if (plan == null) {
+      // Not via computeIfAbsent: A broken layout throws, and it should do so for every row (like it always did).
+      plan = new RowMappingPlan<>(
+        buildColumnPlans(columns, dbEntityAnalysis, ignoreUnknownProperties),
+        CompiledRowMapper.compile(columns, dbEntityAnalysis, modelClass, ignoreUnknownProperties),
+        modelClass
+      );
+      byColumnLayout.putIfAbsent(columnNames, plan);
+    }
+    return plan;
+  }
+
+  private static <T> ColumnPlan[] buildColumnPlans(List<ColumnMetadata> columns, DBEntityAnalysis<T> dbEntityAnalysis, boolean ignoreUnknownProperties) {
+    List<ColumnPlan> columnPlans = new ArrayList<>(columns.size());
+    for (int i = 0; i < columns.size(); i++) {
+      ColumnMetadata columnMetadata = columns.get(i);
+      String columnName = columnMetadata.getName();
+      if (ExtendedRequest.WINDOW_COUNT_COLUMN_NAME.equals(columnName)) {
+        // Synthetic column with the total number of rows (not part of the model)
+        continue;
+      }
       Field modelField;
       try {
         modelField = getCombinedModelField(columnName, dbEntityAnalysis);
@@ -70,93 +151,121 @@ class RowMapper {
         }
         throw exception;
       }
-      fieldMap.put(columnName, modelField);
-      // Use the ID fields to tell if a given entity was matched.  They can be omitted due to LEFT JOINs and then
-      // we would rather the whole object is null than an entity where all the fields are set to null.
-      Object value = row.get(columnName);
-      boolean isIDField = modelField.isAnnotationPresent(Id.class);
-      if (!isIDField) {
-        continue;
+      Class<?> columnClass = columnMetadata.getJavaType();
+      // Handle Database Intervals as Java String type
+      if (columnClass == null && !DATABASE_INTERVAL_NATIVE_TYPE.equals(columnMetadata.getNativeTypeMetadata())) {
+        throw new DatabaseException("Type for columnName " + columnName + " is null");
       }
+      String[] keys = columnName.split("\\.");
+      columnPlans.add(new ColumnPlan(
+        i,
+        columnName,
+        Arrays.copyOf(keys, keys.length - 1),
+        ReflectUtility.transformFromFieldNameToJsonName(modelField),
+        modelField.getType().isEnum() ? modelField.getType() : null,
+        // Use the ID fields to tell if a given entity was matched.  They can be omitted due to LEFT JOINs and then
+        // we would rather the whole object is null than an entity where all the fields are set to null.
+        modelField.isAnnotationPresent(Id.class)
+      ));
+    }
+    return columnPlans.toArray(new ColumnPlan[0]);
+  }
 
-      if (value != null) {
+  private <T> T mapRowGeneric(Row row, ColumnPlan[] columnPlans, Class<T> modelClass) {
+    Map<String, Object> objectMap = new HashMap<>();
+    Object[] values = new Object[columnPlans.length];
+    for (int i = 0; i < columnPlans.length; i++) {
+      ColumnPlan columnPlan = columnPlans[i];
+      Object value = row.get(columnPlan.index);
+      values[i] = value;
+      if (columnPlan.isIdField && value != null) {
         // ID is not null, create a placeholder for the entity, so we can rely on the presence of the entity
         // in the object map to determine whether the entity should be mapped.
-        lookupSubmapForColumnName(objectMap, columnName, true);
+        lookupSubmapForColumnName(objectMap, columnPlan.columnName, columnPlan.path, true);
       }
     }
 
-    for (String columnName : metadata.getColumnNames()) {
-      Field modelField = fieldMap.get(columnName);
-      if (modelField == null) {
-        continue;
-      }
-      Class<?> fieldType = modelField.getType();
-
-      Object value;
-      ColumnMetadata columnMetadata = metadata.getColumnMetadata(columnName);
-      Class<?> columnClass = columnMetadata.getJavaType();
-      // Handle Database Intervals as Java String type
-      if (columnClass == null && !DATABASE_INTERVAL_NATIVE_TYPE.equals(columnMetadata.getNativeTypeMetadata())) {
-        throw new DatabaseException("Type for columnName " + columnName + " is null");
-      }
-      value = row.get(columnName);
-
-      if (fieldType.isEnum() && value instanceof String) {
-        value = parseEnum(fieldType, (String) value);
+    for (int i = 0; i < columnPlans.length; i++) {
+      ColumnPlan columnPlan = columnPlans[i];
+      Object value = values[i];
+      if (columnPlan.enumType != null && value instanceof String) {
+        value = parseEnum(columnPlan.enumType, (String) value);
       }
-      Map<String, Object> entityMap = lookupSubmapForColumnName(objectMap, columnName);
+      Map<String, Object> entityMap = lookupSubmapForColumnName(objectMap, columnPlan.columnName, columnPlan.path, false);
       if (entityMap == null) {
         // Entity is not mapped (e.g., because it was involved in a LEFT JOIN and the match failed).
         // Note for this to happen, the value itself must also be null
-        assert value == null : columnName + " as not null, but could not find the ID column for the entity it belongs to!";
+        assert value == null : columnPlan.columnName + " as not null, but could not find the ID column for the entity it belongs to!";
         continue;
       }
-      entityMap.put(ReflectUtility.transformFromFieldNameToJsonName(modelField), value);
+      entityMap.put(columnPlan.jsonName, value);
     }
 
-    return objectMap;
-  }
-
-  private static Map<String, Object> lookupSubmapForColumnName(Map<String, Object> objectMap, String columnName) {
-    return lookupSubmapForColumnName(objectMap, columnName, false);
+    return objectMapper.convertValue(objectMap, modelClass);
   }
 
-  private static Map<String, Object> lookupSubmapForColumnName(Map<String, Object> objectMap, String columnName, boolean createIfMissing) {
+  private static Map<String, Object> lookupSubmapForColumnName(Map<String, Object> objectMap, String columnName, String[] path, boolean createIfMissing) {
     Map<String, Object> lastMap = objectMap;
-    // Create maps at each "." if not existing already.
-    if (columnName.contains(".")) {
-      String[] keys = columnName.split("\\.");
-      // Create maps for preceding keys. The last key is the actual field.
-      for (int i=0; i < keys.length-1; i++) {
-        String key = keys[i];
-        Map<String, Object> currentMap;
-        if (lastMap.containsKey(key)) {
-          Object currentValue = lastMap.get(key);
-          if (currentValue instanceof Map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> m = (Map<String, Object>) currentValue;
-            currentMap = m;
-          } else {
-            throw new IllegalStateException("Key: " + key + " in columnName: " + columnName
-              + " is already set to a value of class " + currentValue.getClass().getSimpleName()
-              + ", but expected to be a Map. Is the value for the key set twice?");
-          }
+    // Create maps for each segment of the path if not existing already.
+    for (String key : path) {
+      Map<String, Object> currentMap;
+      if (lastMap.containsKey(key)) {
+        Object currentValue = lastMap.get(key);
+        if (currentValue instanceof Map) {
+          @SuppressWarnings("unchecked")
+          Map<String, Object> m = (Map<String, Object>) currentValue;
+          currentMap = m;
+        } else {
+          throw new IllegalStateException("Key: " + key + " in columnName: " + columnName
+            + " is already set to a value of class " + currentValue.getClass().getSimpleName()
+            + ", but expected to be a Map. Is the value for the key set twice?");
         }
-        else {
-          if (!createIfMissing) {
-            return null;
-          }
-          currentMap = new HashMap<>();
-          lastMap.put(key, currentMap);
+      }
+      else {
+        if (!createIfMissing) {
+          return null;
         }
-
-        lastMap = currentMap;
+        currentMap = new HashMap<>();
+        lastMap.put(key, currentMap);
       }
+
+      lastMap = currentMap;
     }
     return lastMap;
   }
 
+  /*
+   * How to map the rows of a given column layout: via the compiled mapper when possible and otherwise
+   * via the column plans and Jackson.
+   */
+  @RequiredArgsConstructor
+  private class RowMappingPlan<T> {
+    private final ColumnPlan[] columnPlans;
+    private final CompiledRowMapper<T> compiledRowMapper;
+    private final Class<T> modelClass;
+
+    T mapRow(Row row) {
+      if (compiledRowMapper != null) {
+        T result = compiledRowMapper.mapRow(row);
+        if (result != null) {
+          return result;
+        }
+      }
+      return mapRowGeneric(row, columnPlans, modelClass);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class ColumnPlan {
+    private final int index;
+    private final String columnName;
+    // The keys of the entity the column belongs to ("a.b.c" becomes ["a", "b"])
+    private final String[] path;
+    private final String jsonName;
+    private final Class<?> enumType;
+    private final boolean isIdField;
+  }
+
   private static <T> Field getCombinedModelField(String selectName, DBEntityAnalysis<T> dbEntityAnalysis) {
     QueryField dbField;
     try {
@@ -0,0 +1,76 @@
+package org.dcsa.core.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+
+/*
+ * Logs the queries of an ExtendedRequest that take longer than search.slowQuery.thresholdMillis (see
+ * ExtendedParameters).  The bind values are not logged, only their types (see ExtendedRequest#describeBindings).
+ * Queries that fail or are cancelled (e.g. by a timeout or a client that went away) are logged as well, with
+ * the signal that ended them.
+ */
+@Slf4j
+@RequiredArgsConstructor(staticName = "of")
+class SlowQueryLog {
+
+  private final DatabaseClient databaseClient;
+
+  <R> Mono<R> watchCountQuery(ExtendedRequest<?> extendedRequest, Mono<R> countQuery) {
+    long thresholdMillis = extendedRequest.getExtendedParameters().getSlowQueryThresholdMillis();
+    if (thresholdMillis <= 0) {
+      return countQuery;
+    }
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return countQuery.doFinally(signalType -> checkDuration(extendedRequest, true, signalType, start, thresholdMillis));
+    });
+  }
+
+  <R> Flux<R> watchDataQuery(ExtendedRequest<?> extendedRequest, Flux<R> dataQuery) {
+    long thresholdMillis = extendedRequest.getExtendedParameters().getSlowQueryThresholdMillis();
+    if (thresholdMillis <= 0) {
+      return dataQuery;
+    }
+    return Flux.defer(() -> {
+      long start = System.nanoTime();
+      return dataQuery.doFinally(signalType -> checkDuration(extendedRequest, false, signalType, start, thresholdMillis));
+    });
+  }
+
+  private void checkDuration(ExtendedRequest<?> extendedRequest, boolean countQuery, SignalType signalType, long startNanos,
+                             long thresholdMillis) {
+    long durationMillis = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    if (durationMillis < thresholdMillis) {
+      return;
+    }
+    String queryType = countQuery ? "count" : "data";
+    String modelName = extendedRequest.getModelClass().getSimpleName();
+    try {
+      log.warn("Slow {} query for model {} ({} ms, {}, shape: \"{}\"): {} -- bind values: [{}]", queryType, modelName,
+        durationMillis, signalType, extendedRequest.describeQueryShape(),
+        (countQuery ? extendedRequest.getCountQuery() : extendedRequest.getQuery()).toQuery(),
+        extendedRequest.describeBindings());
+    } catch (RuntimeException e) {
+      log.warn("Slow {} query for model {} ({} ms, {}); the query could not be described: {}", queryType, modelName,
+        durationMillis, signalType, e.getMessage());
+      return;
+    }
+    if (extendedRequest.isSlowQueryExplained()) {
+      // Runs on its own connection and does not delay the response
+      databaseClient.sql(extendedRequest.getExplainQuery(countQuery))
+        .map((row, metadata) -> row.get(0, String.class))
+        .first()
+        .subscribe(
+          plan -> log.warn("Plan of the slow {} query for model {}: {}", queryType, modelName, plan),
+          error -> log.warn("Could not explain the slow {} query for model {}: {}", queryType, modelName, error.getMessage())
+        );
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package org.dcsa.core.service;
 
 import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.ResultVersion;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 
 /**
@@ -18,4 +20,14 @@ public interface BaseQueryService<DM, TO, I> {
    */
   Class<DM> getModelClass();
   Flux<TO> findAllExtended(ExtendedRequest<DM> extendedRequest);
+
+  /**
+   * Public as an implementation detail.  Do not use this method.
+   *
+   * Used by the controller for conditional requests (see {@link ExtendedRequest#isConditionalGetSupported()}).
+   * An empty result means that the version is unknown (and the request is handled as usual).
+   */
+  default Mono<ResultVersion> findResultVersionExtended(ExtendedRequest<DM> extendedRequest) {
+    return Mono.empty();
+  }
 }
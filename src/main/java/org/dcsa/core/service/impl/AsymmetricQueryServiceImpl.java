@@ -3,27 +3,37 @@ package org.dcsa.core.service.impl;
 import org.dcsa.core.extendedrequest.ExtendedRequest;
 import org.dcsa.core.repository.ExtendedRepository;
 import org.dcsa.core.service.AsymmetricQueryService;
+import org.dcsa.core.util.MappingUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 public abstract class AsymmetricQueryServiceImpl<R extends ExtendedRepository<DM, I>, DM, TO, I> extends QueryServiceImplSupport<R, DM, I> implements AsymmetricQueryService<DM, TO, I> {
 
   public Flux<TO> findAllExtended(ExtendedRequest<DM> extendedRequest) {
-    return getRepository().countAllExtended(extendedRequest)
-      .doOnNext(extendedRequest::setQueryCount)
-      .thenMany(bulkMapDM2TO(getRepository().findAllExtended(extendedRequest))
-      );
+    return bulkMapDM2TO(findAllExtendedWithCount(extendedRequest));
   }
 
   /**
    * Method to bulk map DM instances into TO instances
    *
-   * By default, this delegates all logic to {@link #mapDM2TO(Object)}.
+   * By default, this delegates all logic to {@link #mapDM2TO(Object)} or, if there is a
+   * {@link #getSynchronousMapper()}, to that mapper (with a single map over the flux).
    *
    * You can provide a custom implementation if it is faster than mapping the
-   * objects one at the time (e.g., by bulking calls to the database).
+   * objects one at the time (e.g., by bulking calls to the database).  See
+   * {@link #bulkMapDM2TOInBatches(Flux, Function)} and
+   * {@link #bulkMapDM2TOWithLookup(Flux, Function, Function, Function, BiFunction)}
+   * for helpers to do that.
    */
   protected Flux<TO> bulkMapDM2TO(Flux<DM> dmFlux) {
+    Function<DM, TO> synchronousMapper = getSynchronousMapper();
+    if (synchronousMapper != null) {
+      return dmFlux.map(synchronousMapper);
+    }
     return dmFlux.concatMap(this::mapDM2TO);
   }
 
@@ -32,5 +42,105 @@ public abstract class AsymmetricQueryServiceImpl<R extends ExtendedRepository<DM
    */
   protected abstract Mono<TO> mapDM2TO(DM dm);
 
+  /**
+   * A mapper that maps a single DM instance into a TO instance without any I/O
+   *
+   * Return a mapper when the mapping is a pure conversion (e.g., a MapStruct mapper call like
+   * {@code bookingMapper::toTO}).  The {@link #bulkMapDM2TO(Flux)} then maps the rows directly instead of
+   * creating (and subscribing to) a Mono per row via {@link #mapDM2TO(Object)}.  The mapper must not
+   * return null.
+   *
+   * @return The mapper or null (the default) to use {@link #mapDM2TO(Object)}
+   */
+  protected Function<DM, TO> getSynchronousMapper() {
+    return null;
+  }
+
+  /**
+   * Maps the DM instances in batches of {@link MappingUtils#SQL_LIST_BUFFER_SIZE}
+   *
+   * See {@link #bulkMapDM2TOInBatches(Flux, int, Function)}.
+   */
+  protected Flux<TO> bulkMapDM2TOInBatches(Flux<DM> dmFlux, Function<List<DM>, Flux<TO>> batchMapper) {
+    return bulkMapDM2TOInBatches(dmFlux, MappingUtils.SQL_LIST_BUFFER_SIZE, batchMapper);
+  }
+
+  /**
+   * Maps the DM instances in batches (e.g., to look up related data for a batch with a single query)
+   *
+   * The batches are mapped one at the time, so the TO instances are emitted in the order of the DM
+   * instances (provided the batchMapper emits them in the order of the batch) and at most one batch
+   * is held in memory while waiting for the subscriber.
+   *
+   * Example usage:
+   * <pre>{@code
+   *   protected Flux<BookingTO> bulkMapDM2TO(Flux<Booking> dmFlux) {
+   *     return bulkMapDM2TOInBatches(dmFlux, bookings -> ...);
+   *   }
+   * }</pre>
+   *
+   * @param dmFlux The DM instances to map
+   * @param batchSize The max number of DM instances per batch
+   * @param batchMapper Maps a batch of DM instances into TO instances (in the same order)
+   * @return The TO instances
+   */
+  protected Flux<TO> bulkMapDM2TOInBatches(Flux<DM> dmFlux, int batchSize, Function<List<DM>, Flux<TO>> batchMapper) {
+    return dmFlux.buffer(batchSize).concatMap(batchMapper);
+  }
 
+  /**
+   * Maps the DM instances by looking up related data in bulk (e.g., one "WHERE id IN (LIST)" query per batch)
+   *
+   * The DM instances are mapped in batches of {@link MappingUtils#SQL_LIST_BUFFER_SIZE}.  For each batch,
+   * the distinct (non-null) keys are passed to the bulkLoader and each DM instance is combined with the
+   * loaded value that has its key.  The TO instances are emitted in the order of the DM instances.
+   *
+   * Example usage:
+   * <pre>{@code
+   *   protected Flux<BookingTO> bulkMapDM2TO(Flux<Booking> dmFlux) {
+   *     return bulkMapDM2TOWithLookup(dmFlux,
+   *       Booking::getVesselId,
+   *       vesselRepository::findAllById,
+   *       Vessel::getId,
+   *       (booking, vessel) -> bookingMapper.toTO(booking, vessel)
+   *     );
+   *   }
+   * }</pre>
+   *
+   * @param dmFlux The DM instances to map
+   * @param keyExtractor Provides the key of the related value for a DM instance (can return null)
+   * @param bulkLoader Loads the related values for a set of keys
+   * @param valueKeyExtractor Provides the key of a loaded value
+   * @param combiner Creates the TO instance from a DM instance and its related value (null if the key was null
+   *                 or no value was loaded for it)
+   * @param <K> The key type
+   * @param <V> The type of the related value
+   * @return The TO instances
+   */
+  protected <K, V> Flux<TO> bulkMapDM2TOWithLookup(Flux<DM> dmFlux,
+                                                   Function<DM, K> keyExtractor,
+                                                   Function<Collection<K>, Flux<V>> bulkLoader,
+                                                   Function<V, K> valueKeyExtractor,
+                                                   BiFunction<DM, V, TO> combiner) {
+    return bulkMapDM2TOInBatches(dmFlux, batch -> {
+      Set<K> keys = new LinkedHashSet<>();
+      for (DM dm : batch) {
+        K key = keyExtractor.apply(dm);
+        if (key != null) {
+          keys.add(key);
+        }
+      }
+      Mono<Map<K, V>> values = keys.isEmpty()
+        ? Mono.just(Collections.emptyMap())
+        : bulkLoader.apply(keys).collectMap(valueKeyExtractor);
+      return values.flatMapIterable(valuesByKey -> {
+        List<TO> result = new ArrayList<>(batch.size());
+        for (DM dm : batch) {
+          K key = keyExtractor.apply(dm);
+          result.add(combiner.apply(dm, key != null ? valuesByKey.get(key) : null));
+        }
+        return result;
+      });
+    });
+  }
 }
@@ -9,9 +9,6 @@ public abstract class QueryServiceImpl<R extends ExtendedRepository<T, I>, T, I>
 
   @Override
   public Flux<T> findAllExtended(ExtendedRequest<T> extendedRequest) {
-    return getRepository().countAllExtended(extendedRequest)
-      .doOnNext(extendedRequest::setQueryCount)
-      .thenMany(getRepository().findAllExtended(extendedRequest)
-      );
+    return findAllExtendedWithCount(extendedRequest);
   }
 }
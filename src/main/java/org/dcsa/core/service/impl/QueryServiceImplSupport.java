@@ -1,7 +1,11 @@
 package org.dcsa.core.service.impl;
 
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.ResultVersion;
 import org.dcsa.core.repository.ExtendedRepository;
 import org.dcsa.core.util.ReflectUtility;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 // Implementation detail of the (Asymmetric)QueryService
 abstract class QueryServiceImplSupport<R extends ExtendedRepository<DM, I>, DM, I> {
@@ -22,5 +26,50 @@ abstract class QueryServiceImplSupport<R extends ExtendedRepository<DM, I>, DM,
     return modelClass;
   }
 
+  // Documented via the interfaces (that subclasses implement)
+  public Mono<ResultVersion> findResultVersionExtended(ExtendedRequest<DM> extendedRequest) {
+    return getRepository().findResultVersionExtended(extendedRequest);
+  }
+
+  /**
+   * Runs the data query of the request preceded by the count query (if the request needs it)
+   *
+   * The count query is skipped when the request does not need the total number of rows
+   * (see {@link ExtendedRequest#isCountNeeded()}) or when the data query provides it
+   * (see {@link ExtendedRequest#isWindowCount()}) and replaced by an estimate when possible (see
+   * {@link ExtendedRequest#isCountEstimable()}).  If {@link ExtendedRequest#isCountConcurrent()},
+   * both queries run at the same time (each on its own connection).  In either case, the returned
+   * flux only completes once the count has been set, so the pagination headers (added on completion)
+   * see the total.  If the total is already known from the {@link ExtendedRequest#getResultVersion()} (see
+   * {@link ExtendedRequest#isQueryCountFromResultVersion()}), only the data query runs.
+   */
+  protected Flux<DM> findAllExtendedWithCount(ExtendedRequest<DM> extendedRequest) {
+    Flux<DM> result = getRepository().findAllExtended(extendedRequest);
+    if (extendedRequest.isWindowCount()) {
+      // The total is read from the first row.  Pages past the end have no rows, so count them separately.
+      return result.concatWith(Mono.defer(() -> extendedRequest.getQueryCount() < 0
+        ? getRepository().countAllExtended(extendedRequest).doOnNext(extendedRequest::setQueryCount).then(Mono.empty())
+        : Mono.empty()
+      ));
+    }
+    if (!extendedRequest.isCountNeeded() || extendedRequest.isQueryCountFromResultVersion()) {
+      return result;
+    }
+    Mono<Integer> exactCount = getRepository().countAllExtended(extendedRequest)
+      .doOnNext(extendedRequest::setQueryCount);
+    Mono<Integer> count = exactCount;
+    if (extendedRequest.isCountEstimable()) {
+      // Small estimates are replaced by the exact count (which is cheap in that case)
+      int threshold = extendedRequest.getExtendedParameters().getEstimatedCountThreshold();
+      count = getRepository().estimateCountAllExtended(extendedRequest)
+        .flatMap(estimate -> estimate >= threshold
+          ? Mono.just(estimate).doOnNext(extendedRequest::setEstimatedQueryCount)
+          : exactCount);
+    }
+    if (extendedRequest.isCountConcurrent()) {
+      return Flux.merge(count.then(Mono.<DM>empty()), result);
+    }
+    return count.thenMany(result);
+  }
 
 }
@@ -45,7 +45,7 @@ public class MappingUtils {
     Class<?> currentClass = clazz;
     Set<String> seenFields = new HashSet<>();
     while (currentClass != Object.class) {
-      for (Field field : currentClass.getDeclaredFields()) {
+      for (Field field : ReflectUtility.getDeclaredFields(currentClass)) {
         if (field.isSynthetic()) {
           continue;
         }
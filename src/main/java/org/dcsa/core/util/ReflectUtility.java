@@ -19,11 +19,48 @@ import java.util.function.Predicate;
 
 /**
  * A helper class with a lot of Reflection utilities
+ *
+ * <b>Note</b>: The {@link Field} instances returned by (or passed to the consumers of) this class are looked up
+ * once per class and shared by all callers.  Callers must not change them (e.g. via {@link Field#setAccessible(boolean)}).
+ * Use {@link #copyOf(Field)} to get a private copy that can be made accessible.
  */
 public class ReflectUtility {
 
+  // The declared fields of a class never change once it has been loaded.  Class.getDeclaredFields() copies
+  // the Field objects on every call, so we look them up once per class and reuse them.
+  private static final ClassValue<List<Field>> DECLARED_FIELDS = new ClassValue<>() {
+    @Override
+    protected List<Field> computeValue(Class<?> type) {
+      return List.of(type.getDeclaredFields());
+    }
+  };
+
+  private static final ClassValue<Map<String, Field>> DECLARED_FIELDS_BY_NAME = new ClassValue<>() {
+    @Override
+    protected Map<String, Field> computeValue(Class<?> type) {
+      Map<String, Field> fields = new HashMap<>();
+      for (Field field : DECLARED_FIELDS.get(type)) {
+        fields.put(field.getName(), field);
+      }
+      return Collections.unmodifiableMap(fields);
+    }
+  };
+
   private ReflectUtility() { }
 
+  /**
+   * Returns the fields declared directly on the class (like {@link Class#getDeclaredFields()})
+   *
+   * The result is computed once per class and shared, so the returned list is immutable and the fields must
+   * not be changed (see {@link #copyOf(Field)}).
+   *
+   * @param clazz the class to investigate
+   * @return the declared fields of clazz
+   */
+  public static List<Field> getDeclaredFields(Class<?> clazz) {
+    return DECLARED_FIELDS.get(clazz);
+  }
+
   /**
    * Tries to set a value on an object. First it tries to use the Column annotation on the field. If there are no
    * matches, then it tries to use the field name directly. If the field is not public it tries to find a setter
@@ -211,7 +248,7 @@ public class ReflectUtility {
    */
   public static String transformFromJsonNameToFieldName(Class<?> clazz, String jsonName) throws NoSuchFieldException {
     String fieldName = null;
-    for (Field field: clazz.getDeclaredFields()) {
+    for (Field field: getDeclaredFields(clazz)) {
       if (field.isSynthetic()) {
         continue;
       }
@@ -257,7 +294,7 @@ public class ReflectUtility {
    * @param fieldNames the list of fieldNames with type *type* on class clazz
    */
   private static void getFieldNamesOfType(Class<?> clazz, Class<?> type, List<String> fieldNames) {
-    for (Field field: clazz.getDeclaredFields()) {
+    for (Field field: getDeclaredFields(clazz)) {
       if (!field.isSynthetic() && field.getType() == type) {
         fieldNames.add(field.getName());
       }
@@ -301,24 +338,45 @@ public class ReflectUtility {
    *
    * @param clazz the class to investigate
    * @param fieldName the name of the field to find
+   * The field is shared with other callers and must not be changed (see {@link #copyOf(Field)}).
+   *
    * @return the field with the name fieldName on the class clazz
    * @throws NoSuchFieldException if no field of the name fieldName exists on the class clazz
    */
   public static Field getDeclaredField(Class<?> clazz, String fieldName) throws NoSuchFieldException {
     Objects.requireNonNull(clazz);
     Objects.requireNonNull(fieldName);
+    Field field = DECLARED_FIELDS_BY_NAME.get(clazz).get(fieldName);
+    if (field != null) {
+      return field;
+    }
+    // Try the super class
+    clazz = clazz.getSuperclass();
+    if (clazz != null && clazz != Object.class) {
+      return getDeclaredField(clazz, fieldName);
+    }
+    throw new NoSuchFieldException(fieldName);
+  }
+
+  /**
+   * Returns a private copy of a (shared) field, which the caller can change (e.g. make accessible)
+   *
+   * @param field the field as returned by this class
+   * @return a new Field instance for the same field
+   */
+  public static Field copyOf(Field field) {
     try {
-      return clazz.getDeclaredField(fieldName);
-    } catch (NoSuchFieldException noSuchFieldException) {
-      // Try the super class
-      clazz = clazz.getSuperclass();
-      if (clazz != Object.class) {
-        return getDeclaredField(clazz, fieldName);
-      }
-      throw noSuchFieldException;
+      return field.getDeclaringClass().getDeclaredField(field.getName());
+    } catch (NoSuchFieldException e) {
+      throw new IllegalStateException("The field " + field.getName() + " disappeared from " + field.getDeclaringClass(), e);
     }
   }
 
+  /**
+   * Visits the fields of the class and its super classes (a field hidden by a subclass is only visited once)
+   *
+   * The fields are shared with other callers and must not be changed (see {@link #copyOf(Field)}).
+   */
   public static void visitAllFields(Class<?> clazz, Predicate<Field> matching, Consumer<Field> fieldConsumer) {
     visitAllFields(clazz, matching, fieldConsumer, new HashSet<>());
   }
@@ -328,8 +386,8 @@ public class ReflectUtility {
     if (matching == null) {
       matching = (f) -> true;
     }
-    while (currentClass != Object.class) {
-      for (Field f : currentClass.getDeclaredFields()) {
+    while (currentClass != null && currentClass != Object.class) {
+      for (Field f : getDeclaredFields(currentClass)) {
         if (!f.isSynthetic() && !seenFields.contains(f.getName()) && matching.test(f)) {
           seenFields.add(f.getName());
           fieldConsumer.accept(f);
@@ -1,17 +1,51 @@
 package org.dcsa.core;
 
+import io.r2dbc.spi.ConnectionFactory;
+import org.dcsa.core.exception.ConcreteRequestErrorMessageException;
+import org.dcsa.core.extendedrequest.CountStrategy;
 import org.dcsa.core.extendedrequest.ExtendedParameters;
 import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.Pagination;
+import org.dcsa.core.extendedrequest.PlanCacheMode;
+import org.dcsa.core.extendedrequest.ResultCache;
+import org.dcsa.core.extendedrequest.ResultVersion;
+import org.dcsa.core.extendedrequest.SqlTemplateCache;
+import org.dcsa.core.extendedrequest.StatementStatistics;
+import org.dcsa.core.extendedrequest.testsupport.MockR2dbcDialect;
+import org.dcsa.core.extendedrequest.testsupport.ModelVerifier;
+import org.dcsa.core.extendedrequest.testsupport.QueryBudget;
 import org.dcsa.core.models.A;
+import org.dcsa.core.models.AuditedCustomer;
+import org.dcsa.core.models.City;
+import org.dcsa.core.models.Customer;
 import org.dcsa.core.models.CitySpecificExtendedRequest;
 import org.dcsa.core.models.combined.*;
+import org.dcsa.core.stub.StubRow;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import static org.dcsa.core.extendedrequest.testsupport.ExtendedRequestVerifier.verifierFor;
 
@@ -49,6 +83,50 @@ public class ExtendedRequestTest {
         verifierFor(extendedParameters, CustomerWithForeignKeyAddresses.class).verify(baseQuery);
     }
 
+    @Test
+    public void testSparseFieldsets() {
+        // The INNER JOINs can remove rows, so they stay even if none of their fields are selected
+        String addressJoins = " FROM customer_table"
+                + " JOIN address_table delivery_address ON customer_table.delivery_address_id = delivery_address.address_id"
+                + " JOIN address_table payment_address ON customer_table.payment_address_id = payment_address.address_id";
+        verifierFor(extendedParameters, CustomerWithForeignKeyAddresses.class)
+                .withParam("fields", "name")
+                .verify("SELECT customer_table.customer_id AS \"id\", customer_table.customer_name AS \"name\"" + addressJoins);
+        // The @Id of the address is needed to map it
+        verifierFor(extendedParameters, CustomerWithForeignKeyAddresses.class)
+                .withParam("fields", "name,deliveryAddress.address")
+                .verify("SELECT customer_table.customer_id AS \"id\", customer_table.customer_name AS \"name\","
+                        + " delivery_address.address_id AS \"deliveryAddress.addressId\", delivery_address.street_name AS \"deliveryAddress.address\""
+                        + addressJoins);
+
+        // A LEFT OUTER JOIN to at most one row does not change the rows
+        verifierFor(extendedParameters, CustomerWithOptionalAddress.class)
+                .withParam("fields", "name")
+                .verify("SELECT customer_table.customer_id AS \"id\", customer_table.customer_name AS \"name\" FROM customer_table");
+
+        ExtendedRequest<CustomerWithForeignKeyAddresses> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), CustomerWithForeignKeyAddresses.class);
+        Assertions.assertThrows(ConcreteRequestErrorMessageException.class,
+                () -> request.parseParameter(Map.of("fields", List.of("name,unknown"))));
+    }
+
+    @Test
+    public void testSparseFieldsetsOfNestedEntities() {
+        // "b.d.c.eId" is mapped into c, which is nested in d and b.  Each of them needs its @Id.
+        verifierFor(extendedParameters, A.class)
+                .withParam("fields", "b.d.c.eId")
+                .verify("SELECT A_table.id AS \"id\", B_table.id AS \"b.id\", B_table__D_table.id AS \"b.d.id\","
+                        + " B_table__D_table__C_table.id AS \"b.d.c.id\", B_table__D_table__C_table.eId AS \"b.d.c.eId\""
+                        + " FROM A_table"
+                        + " JOIN B_table ON A_table.bId = B_table.id"
+                        + " JOIN C_table B_table__c1 ON B_table.cId = B_table__c1.id"
+                        + " JOIN E_table B_table__c1__e1 ON B_table__c1.eId = B_table__c1__e1.id"
+                        + " JOIN C_table B_table__c2 ON B_table.cId = B_table__c2.id"
+                        + " JOIN E_table B_table__c2__e2 ON B_table__c2.eId = B_table__c2__e2.id"
+                        + " JOIN D_table B_table__D_table ON B_table.dId = B_table__D_table.id"
+                        + " JOIN C_table B_table__D_table__C_table ON B_table__D_table.cId = B_table__D_table__C_table.id"
+                        + " JOIN F_table B_table__F_table ON B_table.fId_column = B_table__F_table.id");
+    }
+
     @Test
     public void testCustomerBook() {
         String baseQuery = "SELECT customer_book_table.customer_book_id AS \"id\", customer_book_table.customer_book_name AS \"name\", customer_book_table.customer_id AS \"customerId\","
@@ -201,4 +279,519 @@ public class ExtendedRequestTest {
                 .verify(baseQueryNoExtraJoins + extraJoins + " WHERE c.country_name IN (:cn, :cn, :cn)");
     }
 
+    @Test
+    public void testMultiValueArrayBinding() {
+        String cityQuery = "SELECT city_table.id AS \"id\", city_table.city_name AS \"name\", city_table.country_id AS \"countryId\""
+                + " FROM city_table"
+                + " JOIN country_table c ON city_table.country_id = c.id";
+        verifierFor(r2dbcDialect -> new CitySpecificExtendedRequest(extendedParameters, r2dbcDialect) {
+            @Override
+            protected boolean isMultiValueArrayBinding() {
+                return true;
+            }
+        })
+                .withParam("cn", "dk,en,de")
+                .verify(cityQuery + " WHERE c.country_name = ANY(:cn)");
+
+        String customerQuery = "SELECT customer_table.customer_id AS \"id\","
+                + "    customer_table.customer_name AS \"name\","
+                + "    customer_table.address_id AS \"addressId\","
+                + "    customer_table.customer_status AS \"customerStatus\""
+                + " FROM customer_table";
+        Function<R2dbcDialect, ExtendedRequest<Customer>> customerRequest = r2dbcDialect -> new ExtendedRequest<>(extendedParameters, r2dbcDialect, Customer.class) {
+            @Override
+            protected boolean isMultiValueArrayBinding() {
+                return true;
+            }
+        };
+        verifierFor(customerRequest)
+                .withParam("customerStatus:neq", "ACTIVE,INACTIVE")
+                .verify(customerQuery + " WHERE customer_table.customer_status != ALL(:customerStatus)");
+        verifierFor(customerRequest)
+                .withParam("customerStatus", "ACTIVE")
+                .verify(customerQuery + " WHERE customer_table.customer_status = :customerStatus");
+
+        // The number of values does not change the SQL, so it is not part of the shape
+        ExtendedRequest<Customer> twoValues = customerRequest.apply(new MockR2dbcDialect());
+        twoValues.parseParameter(Map.of("customerStatus:neq", List.of("ACTIVE,INACTIVE")));
+        ExtendedRequest<Customer> oneValue = customerRequest.apply(new MockR2dbcDialect());
+        oneValue.parseParameter(Map.of("customerStatus:neq", List.of("ACTIVE")));
+        ExtendedRequest<Customer> threeValues = customerRequest.apply(new MockR2dbcDialect());
+        threeValues.parseParameter(Map.of("customerStatus:neq", List.of("ACTIVE,INACTIVE,ACTIVE")));
+        Assertions.assertEquals(twoValues.describeQueryShape(), threeValues.describeQueryShape());
+        Assertions.assertNotEquals(twoValues.describeQueryShape(), oneValue.describeQueryShape());
+    }
+
+    @Test
+    public void testFilterJoinsAsExists() {
+        String cityQuery = "SELECT city_table.id AS \"id\", city_table.city_name AS \"name\", city_table.country_id AS \"countryId\""
+                + " FROM city_table";
+        String existsCondition = "EXISTS (SELECT 1 FROM country_table c WHERE city_table.country_id = c.id AND c.country_name = :cn)";
+        Function<R2dbcDialect, CitySpecificExtendedRequest> requestConstructor = r2dbcDialect -> new CitySpecificExtendedRequest(extendedParameters, r2dbcDialect) {
+            @Override
+            protected boolean isFilterJoinsAsExists() {
+                return true;
+            }
+        };
+        verifierFor(requestConstructor).verify(cityQuery);
+        verifierFor(requestConstructor)
+                .withParam("cn", "dk")
+                .verify(cityQuery + " WHERE " + existsCondition);
+        verifierFor(requestConstructor)
+                .withParam("cn", "dk")
+                .withParam("name", "Copenhagen")
+                .verify(cityQuery + " WHERE " + existsCondition + " AND city_table.city_name = :name");
+
+        CitySpecificExtendedRequest request = requestConstructor.apply(new MockR2dbcDialect());
+        request.parseParameter(Map.of("cn", List.of("dk")));
+        String countQuery = request.getCountQuery().toQuery();
+        Assertions.assertTrue(countQuery.contains(existsCondition), countQuery);
+        Assertions.assertFalse(countQuery.contains(" JOIN "), countQuery);
+    }
+
+    @Test
+    public void testCountQueryPrunesToOneLeftJoins() {
+        // Pruning is opt-in
+        ExtendedRequest<CustomerWithOptionalAddress> defaultRequest = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), CustomerWithOptionalAddress.class);
+        defaultRequest.parseParameter(Map.of());
+        String countQuery = defaultRequest.getCountQuery().toQuery();
+        Assertions.assertTrue(countQuery.contains(" LEFT OUTER JOIN address_table"), countQuery);
+
+        ExtendedRequest<CustomerWithOptionalAddress> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), CustomerWithOptionalAddress.class) {
+            @Override
+            protected boolean isCountJoinPruning() {
+                return true;
+            }
+        };
+        request.parseParameter(Map.of());
+        Assertions.assertTrue(request.getQuery().toQuery().contains(" LEFT OUTER JOIN address_table"));
+        countQuery = request.getCountQuery().toQuery();
+        Assertions.assertFalse(countQuery.contains(" JOIN "), countQuery);
+
+        request.parseParameter(Map.of("address.address", List.of("Main Street")));
+        request.getQuery();
+        countQuery = request.getCountQuery().toQuery();
+        Assertions.assertTrue(countQuery.contains(" LEFT OUTER JOIN address_table"), countQuery);
+    }
+
+    @Test
+    public void testCountQueryDoesNotDependOnRenderOrder() {
+        ExtendedRequest<CustomerWithAddress> countFirst = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), CustomerWithAddress.class);
+        countFirst.parseParameter(Map.of("name", List.of("Jane")));
+        String countQuery = countFirst.getCountQuery().toQuery();
+        // The INNER JOIN of the selected address can remove rows
+        Assertions.assertTrue(countQuery.contains(" JOIN address_table"), countQuery);
+
+        ExtendedRequest<CustomerWithAddress> dataFirst = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), CustomerWithAddress.class);
+        dataFirst.parseParameter(Map.of("name", List.of("Jane")));
+        dataFirst.getQuery();
+        Assertions.assertEquals(countQuery, dataFirst.getCountQuery().toQuery());
+
+        ExtendedRequest<CustomerWithOptionalAddress> optional = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), CustomerWithOptionalAddress.class);
+        optional.parseParameter(Map.of());
+        countQuery = optional.getCountQuery().toQuery();
+        optional.getQuery();
+        Assertions.assertEquals(countQuery, optional.getCountQuery().toQuery());
+    }
+
+    @Test
+    public void testLastModifiedQuery() {
+        ExtendedRequest<AuditedCustomer> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), AuditedCustomer.class);
+        request.parseParameter(Map.of("name", List.of("Jane")));
+        String query = request.getLastModifiedQuery().toQuery();
+        Assertions.assertTrue(query.startsWith("SELECT MAX(customer_table.modified_date) AS dcsa_last_modified, COUNT(*) AS count FROM customer_table WHERE "), query);
+        Assertions.assertTrue(query.contains("customer_table.customer_name = "), query);
+
+        ResultVersion resultVersion = ResultVersion.of(Instant.parse("2021-03-01T12:00:00.5Z"), 42);
+        MockServerHttpRequest ifNoneMatch = MockServerHttpRequest.get("/customers").ifNoneMatch(resultVersion.getETag()).build();
+        Assertions.assertTrue(checkNotModified(request, resultVersion, ifNoneMatch));
+        Assertions.assertFalse(checkNotModified(request, ResultVersion.of(resultVersion.getLastModified(), 41), ifNoneMatch));
+        MockServerHttpRequest ifModifiedSince = MockServerHttpRequest.get("/customers")
+                .ifModifiedSince(Instant.parse("2021-03-01T12:00:00Z").toEpochMilli()).build();
+        Assertions.assertTrue(checkNotModified(request, resultVersion, ifModifiedSince));
+        Assertions.assertFalse(checkNotModified(request, ResultVersion.of(Instant.parse("2021-03-01T12:00:01Z"), 42), ifModifiedSince));
+
+        // The probe counts the same rows as the count query, so its count is used as the total
+        request.setResultVersion(resultVersion);
+        Assertions.assertTrue(request.isQueryCountFromResultVersion());
+        Assertions.assertEquals(42, request.getQueryCount());
+        String countQuery = request.getCountQuery().toQuery();
+        Assertions.assertEquals(countQuery.substring(countQuery.indexOf(" FROM ")), query.substring(query.indexOf(" FROM ")));
+
+        // A request that builds its own count query does not reuse the count of the probe
+        ExtendedRequest<AuditedCustomer> customCountRequest = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), AuditedCustomer.class) {
+            @Override
+            public Select getSelectCountQuery() {
+                return super.getSelectCountQuery();
+            }
+        };
+        customCountRequest.parseParameter(Map.of("name", List.of("Jane")));
+        customCountRequest.setResultVersion(resultVersion);
+        Assertions.assertFalse(customCountRequest.isQueryCountFromResultVersion());
+
+        // Models without a @LastModifiedDate opt out
+        ExtendedRequest<Customer> customerRequest = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class);
+        customerRequest.parseParameter(Map.of());
+        Assertions.assertFalse(customerRequest.isConditionalGetSupported());
+    }
+
+    private static boolean checkNotModified(ExtendedRequest<?> request, ResultVersion resultVersion, MockServerHttpRequest httpRequest) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(httpRequest);
+        request.setResultVersion(resultVersion);
+        boolean notModified = request.checkNotModified(exchange);
+        Assertions.assertEquals(resultVersion.getETag(), exchange.getResponse().getHeaders().getETag());
+        Assertions.assertEquals(notModified ? HttpStatus.NOT_MODIFIED : null, exchange.getResponse().getStatusCode());
+        return notModified;
+    }
+
+    @Test
+    public void testResultCache() {
+        ResultCache resultCache = new ResultCache(1, 2);
+        ExtendedRequest<City> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), City.class) {
+            @Override
+            public boolean isResultCacheable() {
+                return true;
+            }
+        };
+        request.parseParameter(Map.of("name", List.of("Copenhagen")));
+        City city = new City();
+        city.setName("Copenhagen");
+        AtomicInteger queries = new AtomicInteger();
+        Supplier<Flux<City>> query = () -> {
+            queries.incrementAndGet();
+            return Flux.just(city);
+        };
+        UnaryOperator<City> copier = row -> {
+            City copy = new City();
+            copy.setName(row.getName());
+            return copy;
+        };
+        Assertions.assertEquals(List.of(city), resultCache.getOrFetchRows(request, query, copier).collectList().block());
+        // Changing a returned row does not change the cached row
+        city.setName("Changed");
+        List<City> cachedRows = resultCache.getOrFetchRows(request, query, copier).collectList().block();
+        Assertions.assertNotNull(cachedRows);
+        Assertions.assertEquals("Copenhagen", cachedRows.get(0).getName());
+        cachedRows.get(0).setName("Changed");
+        Assertions.assertEquals("Copenhagen", resultCache.getOrFetchRows(request, query, copier).blockFirst().getName());
+        Assertions.assertEquals(1, queries.get());
+        Assertions.assertEquals(2, resultCache.getHitCount());
+        resultCache.invalidateAll();
+
+        // Results with more than 2 rows are not cached
+        Supplier<Flux<City>> largeQuery = () -> {
+            queries.incrementAndGet();
+            return Flux.just(new City(), new City(), new City());
+        };
+        Assertions.assertEquals(3, resultCache.getOrFetchRows(request, largeQuery, copier).collectList().block().size());
+        Assertions.assertEquals(0, resultCache.size());
+        Assertions.assertEquals(3, resultCache.getOrFetchRows(request, largeQuery, copier).collectList().block().size());
+        Assertions.assertEquals(3, queries.get());
+        resultCache.invalidateAll();
+        queries.set(0);
+        Assertions.assertEquals(List.of(city), resultCache.getOrFetchRows(request, query, copier).collectList().block());
+        Assertions.assertEquals(List.of(city), resultCache.getOrFetchRows(request, query, copier).collectList().block());
+        Assertions.assertEquals(1, queries.get());
+        Assertions.assertEquals(3, resultCache.getHitCount());
+        Assertions.assertEquals(3.0 / 7, resultCache.getHitRatio());
+
+        // The cache holds one result, so caching the count evicts the rows
+        Assertions.assertEquals(Integer.valueOf(7), resultCache.getOrFetchCount(request, () -> Mono.just(7)).block());
+        Assertions.assertEquals(1, resultCache.getEvictionCount());
+        Assertions.assertEquals(Integer.valueOf(7), resultCache.getOrFetchCount(request, () -> Mono.just(8)).block());
+
+        resultCache.invalidate(City.class);
+        Assertions.assertEquals(0, resultCache.size());
+    }
+
+    @Test
+    public void testQueryBudget() {
+        QueryBudget budget = QueryBudget.unlimited()
+                .withMaxJoins(3)
+                .withMaxBindMarkers(2)
+                .withDistinctAllowed(false)
+                .withCastOnColumnsAllowed(false);
+        verifierFor(extendedParameters, OrderWithCustomerAndAddresses.class)
+                .withParam("warehouse.address", "a")
+                .withParam("customer.name", "b")
+                .withBudget(budget)
+                .verifyBudget();
+
+        Assertions.assertThrows(AssertionError.class, () -> verifierFor(extendedParameters, OrderWithCustomerAndAddresses.class)
+                .withBudget(budget.withMaxJoins(2))
+                .verifyBudget());
+        Assertions.assertThrows(AssertionError.class, () -> verifierFor(extendedParameters, OrderWithCustomerAndAddresses.class)
+                .withBudget(budget.withLimitRequired(true))
+                .verifyBudget());
+        Assertions.assertThrows(AssertionError.class, () -> verifierFor(extendedParameters, Customer.class)
+                .withParam("id:ieq", "1")
+                .withBudget(budget)
+                .verifyBudget());
+    }
+
+    @Test
+    public void testDBEntityAnalysisIsSharedBetweenRequests() {
+        MockR2dbcDialect dialect = new MockR2dbcDialect();
+        ExtendedRequest<City> first = new ExtendedRequest<>(extendedParameters, dialect, City.class);
+        ExtendedRequest<City> second = new ExtendedRequest<>(extendedParameters, dialect, City.class);
+        CitySpecificExtendedRequest citySpecific = new CitySpecificExtendedRequest(extendedParameters, dialect);
+        first.resetParameters();
+        second.resetParameters();
+        citySpecific.resetParameters();
+
+        Assertions.assertSame(first.getDbEntityAnalysis(), second.getDbEntityAnalysis());
+        // The subclass registers an extra join and query field, so it must not share the analysis with the base class
+        Assertions.assertNotSame(first.getDbEntityAnalysis(), citySpecific.getDbEntityAnalysis());
+    }
+
+    @Test
+    public void testModelsAreValid() {
+        ModelVerifier.verifyModels(CustomerWithAddress.class, CustomerWithForeignKeyAddresses.class, CustomerBook.class,
+                CityCustomerBook.class, A.class, OrderWithCustomerAndAddresses.class);
+    }
+
+    @Test
+    public void testSqlTemplateCacheReusesRenderedQuery() {
+        SqlTemplateCache sqlTemplateCache = extendedParameters.getSqlTemplateCache();
+        MockR2dbcDialect dialect = new MockR2dbcDialect();
+        ExtendedRequest<A> first = new ExtendedRequest<>(extendedParameters, dialect, A.class);
+        ExtendedRequest<A> second = new ExtendedRequest<>(extendedParameters, dialect, A.class);
+        ExtendedRequest<A> third = new ExtendedRequest<>(extendedParameters, dialect, A.class);
+        first.parseParameter(Map.of("b.e1.name", List.of("a")));
+        second.parseParameter(Map.of("b.e1.name", List.of("b")));
+        third.parseParameter(Map.of("b.e1.name", List.of("c"), "limit", List.of("20")));
+
+        String firstQuery = first.getQuery().toQuery();
+        long hits = sqlTemplateCache.getHitCount();
+        // Same shape (only the value differs)
+        Assertions.assertEquals(firstQuery, second.getQuery().toQuery());
+        Assertions.assertEquals(hits + 1, sqlTemplateCache.getHitCount());
+        // Same shape with a LIMIT, which is appended to the cached SQL
+        Assertions.assertEquals(firstQuery + " LIMIT 20", third.getQuery().toQuery());
+        Assertions.assertEquals(hits + 2, sqlTemplateCache.getHitCount());
+
+        // Subclasses have to opt in
+        CitySpecificExtendedRequest citySpecific = new CitySpecificExtendedRequest(extendedParameters, dialect);
+        citySpecific.parseParameter(Map.of());
+        citySpecific.getQuery();
+        citySpecific.getQuery();
+        Assertions.assertEquals(hits + 2, sqlTemplateCache.getHitCount());
+    }
+
+    @Test
+    public void testKeysetPagination() {
+        String baseQuery = "SELECT customer_table.customer_id AS \"id\","
+                + "    customer_table.customer_name AS \"name\","
+                + "    customer_table.address_id AS \"addressId\","
+                + "    customer_table.customer_status AS \"customerStatus\""
+                + " FROM customer_table";
+        verifierFor(this::keysetRequest)
+                .withParam("sort", "name:DESC")
+                .withParam("limit", "10")
+                .verify(baseQuery + " ORDER BY \"name\" DESC, \"id\" ASC LIMIT 11");
+
+        verifierFor(this::keysetRequest)
+                .withParam("cursor", encodeCursor("sort=name:DESC&limit=10&|After|=Bob,5"))
+                .verify(baseQuery
+                        + " WHERE (customer_table.customer_name < :name OR customer_table.customer_name = :name AND customer_table.customer_id > :id)"
+                        + " ORDER BY \"name\" DESC, \"id\" ASC LIMIT 11");
+
+        // Previous pages are fetched backwards (in the reverse order)
+        verifierFor(this::keysetRequest)
+                .withParam("cursor", encodeCursor("sort=name:DESC&limit=10&|Before|=~,5"))
+                .verify(baseQuery
+                        + " WHERE (customer_table.customer_name IS NULL AND customer_table.customer_id < :id)"
+                        + " ORDER BY \"name\" ASC, \"id\" DESC LIMIT 11");
+    }
+
+    @Test
+    public void testKeysetPaginationLinks() {
+        ExtendedRequest<Customer> request = keysetRequest(new MockR2dbcDialect());
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        params.put("sort", List.of("name:DESC"));
+        params.put("limit", List.of("2"));
+        request.parseParameter(params);
+        request.registerFetchedRow(StubRow.of(Map.of("id", 5L, "name", "Bob")));
+        request.registerFetchedRow(StubRow.of(Map.of("id", 7L, "name", "Alice Smith")));
+        // The look-ahead row
+        request.registerFetchedRow(StubRow.of(Map.of("id", 3L, "name", "Alice")));
+
+        Assertions.assertEquals("|After|=Alice+Smith,7&sort=name:DESC&limit=2", decodeCursor(request.getHeaderPageCursor(Pagination.PageRequest.NEXT, 0)));
+        Assertions.assertEquals("|Before|=&sort=name:DESC&limit=2", decodeCursor(request.getHeaderPageCursor(Pagination.PageRequest.LAST, 0)));
+        Assertions.assertNull(request.getHeaderPageCursor(Pagination.PageRequest.PREVIOUS, 0));
+        Assertions.assertNull(request.getHeaderPageCursor(Pagination.PageRequest.FIRST, 0));
+
+        // A full page without a look-ahead row is the last page
+        request = keysetRequest(new MockR2dbcDialect());
+        request.parseParameter(params);
+        request.registerFetchedRow(StubRow.of(Map.of("id", 5L, "name", "Bob")));
+        request.registerFetchedRow(StubRow.of(Map.of("id", 7L, "name", "Alice Smith")));
+        Assertions.assertNull(request.getHeaderPageCursor(Pagination.PageRequest.NEXT, 0));
+        Assertions.assertNull(request.getHeaderPageCursor(Pagination.PageRequest.LAST, 0));
+    }
+
+    @Test
+    public void testOnDemandCount() {
+        String baseQuery = "SELECT customer_table.customer_id AS \"id\","
+                + "    customer_table.customer_name AS \"name\","
+                + "    customer_table.address_id AS \"addressId\","
+                + "    customer_table.customer_status AS \"customerStatus\""
+                + " FROM customer_table";
+        // Without a total, one extra row is fetched to tell whether there is a next page
+        verifierFor(this::onDemandCountRequest)
+                .withParam("limit", "10")
+                .verify(baseQuery + " LIMIT 11", request -> Assertions.assertFalse(request.isCountNeeded()));
+        verifierFor(this::onDemandCountRequest)
+                .withParam("limit", "10")
+                .withParam("totalCount", "true")
+                .verify(baseQuery + " LIMIT 10", request -> Assertions.assertTrue(request.isCountNeeded()));
+
+        ExtendedRequest<Customer> request = onDemandCountRequest(new MockR2dbcDialect());
+        request.parseParameter(Map.of("limit", List.of("2")));
+        for (int i = 0; i < 3; i++) {
+            request.registerFetchedRow(StubRow.of(Map.of()));
+        }
+        Assertions.assertEquals("|Offset|=2&limit=2", decodeCursor(request.getHeaderPageCursor(Pagination.PageRequest.NEXT, 0)));
+        Assertions.assertNull(request.getHeaderPageCursor(Pagination.PageRequest.LAST, 0));
+    }
+
+    @Test
+    public void testWindowCount() {
+        String baseQuery = "SELECT customer_table.customer_id AS \"id\","
+                + "    customer_table.customer_name AS \"name\","
+                + "    customer_table.address_id AS \"addressId\","
+                + "    customer_table.customer_status AS \"customerStatus\","
+                + "    COUNT(*) OVER() AS dcsa_window_count"
+                + " FROM customer_table";
+        verifierFor(this::windowCountRequest)
+                .withParam("limit", "10")
+                .verify(baseQuery + " LIMIT 10", request -> Assertions.assertFalse(request.isCountNeeded()));
+
+        ExtendedRequest<Customer> request = windowCountRequest(new MockR2dbcDialect());
+        request.parseParameter(Map.of("limit", List.of("2")));
+        request.registerFetchedRow(StubRow.of(Map.of(ExtendedRequest.WINDOW_COUNT_COLUMN_NAME, 5L)));
+        request.registerFetchedRow(StubRow.of(Map.of(ExtendedRequest.WINDOW_COUNT_COLUMN_NAME, 5L)));
+        Assertions.assertEquals(5, request.getQueryCount());
+        Assertions.assertEquals("|Offset|=4&limit=2", decodeCursor(request.getHeaderPageCursor(Pagination.PageRequest.LAST, 0)));
+
+        // COUNT(*) OVER() would count the duplicates removed by DISTINCT
+        request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class) {
+            @Override
+            protected CountStrategy getCountStrategy() {
+                return CountStrategy.WINDOW;
+            }
+
+            @Override
+            protected void finishedParsingParameters() {
+                selectDistinct = true;
+                super.finishedParsingParameters();
+            }
+        };
+        request.parseParameter(Map.of("limit", List.of("10")));
+        Assertions.assertFalse(request.isWindowCount());
+        Assertions.assertTrue(request.isCountNeeded());
+        String query = request.getQuery().toQuery();
+        Assertions.assertTrue(query.startsWith("SELECT DISTINCT "), query);
+        Assertions.assertFalse(query.contains(ExtendedRequest.WINDOW_COUNT_COLUMN_NAME), query);
+    }
+
+    private ExtendedRequest<Customer> windowCountRequest(R2dbcDialect r2dbcDialect) {
+        return new ExtendedRequest<>(extendedParameters, r2dbcDialect, Customer.class) {
+            @Override
+            protected CountStrategy getCountStrategy() {
+                return CountStrategy.WINDOW;
+            }
+        };
+    }
+
+    @Test
+    public void testEstimatedCount() {
+        ExtendedRequest<Customer> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class) {
+            @Override
+            protected CountStrategy getCountStrategy() {
+                return CountStrategy.ESTIMATED;
+            }
+        };
+        request.parseParameter(Map.of("name", List.of("Bob"), "limit", List.of("10")));
+        Assertions.assertTrue(request.isCountEstimable());
+        Assertions.assertEquals("EXPLAIN (FORMAT JSON) SELECT 1 FROM customer_table WHERE customer_table.customer_name = :name",
+                request.getEstimatedCountQuery().toQuery());
+        Assertions.assertEquals(1234, ExtendedRequest.parseEstimatedCount(
+                "[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Plan Rows\": 1234, \"Plans\": [{\"Plan Rows\": 5}]}}]"));
+
+        request.parseParameter(Map.of("name", List.of("Bob"), "limit", List.of("10"), "totalCount", List.of("true")));
+        Assertions.assertFalse(request.isCountEstimable());
+    }
+
+    @Test
+    public void testStatementStatisticsIgnoreLimitOffset() {
+        // The statements are only rendered (the connection factory is never used)
+        DatabaseClient databaseClient = DatabaseClient.create((ConnectionFactory) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{ConnectionFactory.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+        StatementStatistics statementStatistics = StatementStatistics.forModel(City.class);
+        long prepares = statementStatistics.getPrepareCount();
+        long reuses = statementStatistics.getReuseCount();
+        for (String offset : List.of("10", "20", "30")) {
+            ExtendedRequest<City> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), City.class);
+            request.parseParameter(Map.of("cursor", List.of(encodeCursor("|Offset|=" + offset + "&limit=10"))));
+            request.getFindAll(databaseClient);
+        }
+        // The pages only differ in the OFFSET, so they share the statement
+        Assertions.assertEquals(prepares + 1, statementStatistics.getPrepareCount());
+        Assertions.assertEquals(reuses + 2, statementStatistics.getReuseCount());
+    }
+
+    @Test
+    public void testSlowQueryDescription() {
+        ExtendedRequest<Customer> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class);
+        request.parseParameter(Map.of("name", List.of("Bob"), "addressId", List.of("2")));
+        Assertions.assertTrue(request.describeBindings().contains(":name=String(3)"));
+        Assertions.assertTrue(request.describeBindings().contains(":addressId=Long"));
+        Assertions.assertFalse(request.describeBindings().contains("Bob"));
+        Assertions.assertEquals("EXPLAIN (FORMAT JSON) " + request.getCountQuery().toQuery(),
+                request.getExplainQuery(true).toQuery());
+    }
+
+    @Test
+    public void testPlanCacheMode() {
+        ExtendedRequest<Customer> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class);
+        Assertions.assertNull(request.getPlanCacheModeSetting());
+
+        request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class) {
+            @Override
+            protected PlanCacheMode getPlanCacheMode() {
+                return PlanCacheMode.FORCE_CUSTOM_PLAN;
+            }
+        };
+        Assertions.assertEquals("force_custom_plan", request.getPlanCacheModeSetting());
+    }
+
+    private ExtendedRequest<Customer> onDemandCountRequest(R2dbcDialect r2dbcDialect) {
+        return new ExtendedRequest<>(extendedParameters, r2dbcDialect, Customer.class) {
+            @Override
+            protected CountStrategy getCountStrategy() {
+                return CountStrategy.ON_DEMAND;
+            }
+        };
+    }
+
+    private ExtendedRequest<Customer> keysetRequest(R2dbcDialect r2dbcDialect) {
+        return new ExtendedRequest<>(extendedParameters, r2dbcDialect, Customer.class) {
+            @Override
+            protected boolean isKeysetPagination() {
+                return true;
+            }
+        };
+    }
+
+    private static String encodeCursor(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursorParameter) {
+        String cursor = cursorParameter.substring(cursorParameter.indexOf('=') + 1);
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,115 @@
+package org.dcsa.core.controller;
+
+import org.dcsa.core.extendedrequest.ExtendedParameters;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.testsupport.MockR2dbcDialect;
+import org.dcsa.core.models.City;
+import org.dcsa.core.models.Customer;
+import org.dcsa.core.service.QueryService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+@ContextConfiguration(classes = ExtendedParameters.class)
+@ExtendWith(OutputCaptureExtension.class)
+public class QueryWarmUpTest {
+
+    @Autowired
+    private ExtendedParameters extendedParameters;
+
+    @Test
+    public void testWarmUpFailsOnBrokenModels() {
+        MockR2dbcDialect dialect = new MockR2dbcDialect();
+        RecordingExtendedRequest<Customer> brokenRequest = new RecordingExtendedRequest<>(extendedParameters, dialect, Customer.class, true);
+        QueryWarmUp queryWarmUp = newQueryWarmUp(dialect, Map.of("brokenController", brokenRequest));
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, queryWarmUp::warmUp);
+        Assertions.assertTrue(exception.getMessage().contains("Could not prepare the queries for model Customer (used by bean brokenController)"),
+                exception.getMessage());
+    }
+
+    @Test
+    public void testLenientWarmUpRendersQueriesAndLogsFailures(CapturedOutput output) {
+        MockR2dbcDialect dialect = new MockR2dbcDialect();
+        RecordingExtendedRequest<City> cityRequest = new RecordingExtendedRequest<>(extendedParameters, dialect, City.class, false);
+        RecordingExtendedRequest<Customer> brokenRequest = new RecordingExtendedRequest<>(extendedParameters, dialect, Customer.class, true);
+        QueryWarmUp queryWarmUp = newQueryWarmUp(dialect, Map.of("brokenController", brokenRequest, "cityController", cityRequest));
+        ReflectionTestUtils.setField(queryWarmUp, "lenient", true);
+        Assertions.assertDoesNotThrow(queryWarmUp::warmUp);
+
+        Assertions.assertEquals(List.of("count", "data"), cityRequest.renderedQueries);
+        Assertions.assertTrue(output.getOut().contains("Could not prepare the queries for model Customer (used by bean brokenController)"),
+                output.getOut());
+        Assertions.assertTrue(output.getOut().contains("Prepared queries for model City (bean cityController)"), output.getOut());
+    }
+
+    private QueryWarmUp newQueryWarmUp(MockR2dbcDialect dialect, Map<String, ExtendedRequest<?>> requestsByControllerName) {
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        requestsByControllerName.forEach((name, request) ->
+                applicationContext.getBeanFactory().registerSingleton(name, new TestController<>(request)));
+        applicationContext.refresh();
+
+        QueryWarmUp queryWarmUp = new QueryWarmUp(applicationContext, extendedParameters, dialect, null);
+        ReflectionTestUtils.setField(queryWarmUp, "enabled", true);
+        return queryWarmUp;
+    }
+
+    private static class RecordingExtendedRequest<T> extends ExtendedRequest<T> {
+
+        private final boolean broken;
+        private final List<String> renderedQueries = new ArrayList<>();
+
+        RecordingExtendedRequest(ExtendedParameters extendedParameters, MockR2dbcDialect dialect, Class<T> modelClass, boolean broken) {
+            super(extendedParameters, dialect, modelClass);
+            this.broken = broken;
+        }
+
+        @Override
+        public PreparedOperation<Select> getCountQuery() {
+            renderedQueries.add("count");
+            return super.getCountQuery();
+        }
+
+        @Override
+        public PreparedOperation<Select> getQuery() {
+            if (broken) {
+                throw new IllegalStateException("Broken model");
+            }
+            renderedQueries.add("data");
+            return super.getQuery();
+        }
+    }
+
+    private static class TestController<T> extends QueryController<QueryService<T, String>, T, String> {
+
+        private final ExtendedRequest<T> extendedRequest;
+
+        TestController(ExtendedRequest<T> extendedRequest) {
+            this.extendedRequest = extendedRequest;
+        }
+
+        @Override
+        protected QueryService<T, String> getService() {
+            return null;
+        }
+
+        @Override
+        protected ExtendedRequest<T> newExtendedRequest() {
+            return extendedRequest;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.dcsa.core.extendedrequest;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.dcsa.core.extendedrequest.testsupport.MockR2dbcDialect;
+import org.dcsa.core.models.Customer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+@ContextConfiguration(classes = ExtendedParameters.class)
+public class ExtendedRequestMetricsTest {
+
+    @Autowired
+    private ExtendedParameters extendedParameters;
+
+    @Test
+    public void testMetersAreTaggedWithModelAndController() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExtendedRequestMetrics metrics = ExtendedRequestMetrics.of(registry);
+        ExtendedRequest<Customer> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class) {
+            @Override
+            public ExtendedRequestMetrics getMetrics() {
+                return metrics;
+            }
+        };
+        request.setControllerName("CustomerController");
+        request.parseParameter(Map.of("limit", List.of("10")));
+
+        // Rendering does not need a connection
+        DatabaseClient databaseClient = DatabaseClient.create((ConnectionFactory) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{ConnectionFactory.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+        request.getCount(databaseClient);
+        request.getFindAll(databaseClient);
+
+        Assertions.assertEquals(Integer.valueOf(3), metrics.timeCountQuery(request, Mono.just(3)).block());
+        Flux<String> rows = metrics.countRows(request, metrics.timeDataQuery(request, Flux.just("a", "b", "c")));
+        Assertions.assertEquals(List.of("a", "b", "c"), rows.collectList().block());
+
+        List<Tag> tags = List.of(Tag.of("model", "Customer"), Tag.of("controller", "CustomerController"));
+        for (String timerName : List.of(ExtendedRequestMetrics.PARSE, ExtendedRequestMetrics.RENDER,
+                ExtendedRequestMetrics.COUNT_QUERY, ExtendedRequestMetrics.DATA_QUERY)) {
+            Timer timer = registry.find(timerName).tags(tags).timer();
+            Assertions.assertNotNull(timer, timerName);
+            Assertions.assertTrue(timer.count() > 0, timerName);
+        }
+        // Rendering the count and the data query
+        Assertions.assertEquals(2, registry.get(ExtendedRequestMetrics.RENDER).tags(tags).timer().count());
+        Assertions.assertEquals(3, registry.get(ExtendedRequestMetrics.ROWS).tags(tags).summary().totalAmount());
+        Assertions.assertEquals(1, registry.get(ExtendedRequestMetrics.ROWS).tags(tags).summary().count());
+    }
+}
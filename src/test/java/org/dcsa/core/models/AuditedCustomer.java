@@ -0,0 +1,21 @@
+package org.dcsa.core.models;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.dcsa.core.model.AuditBase;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Table("customer_table")
+public class AuditedCustomer extends AuditBase {
+
+    @Id
+    @Column("customer_id")
+    private Long id;
+
+    @Column("customer_name")
+    private String name;
+}
@@ -0,0 +1,29 @@
+package org.dcsa.core.models.combined;
+
+import lombok.Data;
+import org.dcsa.core.model.ForeignKey;
+import org.dcsa.core.models.Address;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.data.relational.core.sql.Join;
+
+@Data
+@Table("customer_table")
+public class CustomerWithOptionalAddress {
+
+    @Id
+    @Column("customer_id")
+    private Long id;
+
+    @Column("customer_name")
+    private String name;
+
+    @Column("address_id")
+    @ForeignKey(into="address", foreignFieldName="addressId", joinType = Join.JoinType.LEFT_OUTER_JOIN)
+    private Long addressId;
+
+    @Transient
+    private Address address;
+}
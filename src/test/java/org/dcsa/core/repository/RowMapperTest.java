@@ -1,8 +1,10 @@
 package org.dcsa.core.repository;
 
+import com.fasterxml.jackson.annotation.JsonSetter;
 import io.r2dbc.spi.ColumnMetadata;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.dcsa.core.extendedrequest.ExtendedParameters;
 import org.dcsa.core.extendedrequest.ExtendedRequest;
@@ -19,12 +21,17 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 @SpringBootTest(properties = {
@@ -306,11 +313,142 @@ public class RowMapperTest {
         rowMap(row, rowMetadata, ExtendedOrder.class, extendedParameters).verify(extendedOrder);
     }
 
+    @Test
+    public void testCustomerWithValueConversion() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setName("customerName");
+        customer.setAddressId(2L);
+        customer.setCustomerStatus(CustomerStatus.ACTIVE);
+
+        // The database returned an Integer for a Long field, so the row cannot be mapped directly
+        StubRow row = StubRow.of(Map.of(
+                "id", 1,
+                "name", customer.getName(),
+                "addressId", customer.getAddressId(),
+                "customerStatus", customer.getCustomerStatus().name()
+        ), Map.of(
+                "customerStatus", CustomerStatus.class
+        ));
+        List<ColumnMetadata> columnMetadatas = row.getStubColumnMetadatas();
+        RowMetadata rowMetadata = StubRowMetadata.of(columnMetadatas);
+
+        rowMap(row, rowMetadata, Customer.class, extendedParameters).verify(customer);
+    }
+
+    @Test
+    public void testResultSetRowMapper() {
+        ExtendedRequest<Customer> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class);
+        request.resetParameters();
+        List<ColumnMetadata> columnMetadatas = List.of(
+                StubColumnMetadata.of("id", Long.class),
+                StubColumnMetadata.of("name", String.class)
+        );
+        RowMetadata rowMetadata = StubRowMetadata.of(columnMetadatas);
+        BiFunction<Row, RowMetadata, Customer> resultSetRowMapper = new RowMapper()
+                .forResultSet(request.getDbEntityAnalysis(), Customer.class, request.ignoreUnknownProperties());
+
+        for (long id = 1; id <= 2; id++) {
+            Customer expected = new Customer();
+            expected.setId(id);
+            expected.setName("customer" + id);
+            Row row = StubRow.of(Map.of("id", id, "name", expected.getName()), columnMetadatas);
+            Assertions.assertEquals(expected, resultSetRowMapper.apply(row, rowMetadata));
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        CustomerWithAddress customer = new CustomerWithAddress();
+        customer.setId(1L);
+        customer.setName("Jane");
+        customer.setCustomerStatus(CustomerStatus.ACTIVE);
+        Address address = new Address();
+        address.setAddressId(2L);
+        address.setAddress("Main Street");
+        customer.setAddress(address);
+
+        CustomerWithAddress copy = new RowMapper().copy(customer, CustomerWithAddress.class);
+        Assertions.assertEquals(customer, copy);
+        Assertions.assertNotSame(customer, copy);
+        // The copy is deep
+        Assertions.assertNotSame(customer.getAddress(), copy.getAddress());
+    }
+
+    @Test
+    public void testCompiledRowMapperIsUsedForPlainModels() {
+        ExtendedRequest<CustomerWithAddress> request = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), CustomerWithAddress.class);
+        request.resetParameters();
+        StubRow row = StubRow.of(Map.of(
+                "id", 1L,
+                "name", "customerName",
+                "addressId", 2L,
+                "customerStatus", CustomerStatus.ACTIVE.name(),
+                "address.addressId", 2L,
+                "address.address", "customerAddress",
+                "address.cityId", 3L
+        ), Map.of(
+                "customerStatus", CustomerStatus.class
+        ));
+        RowMetadata rowMetadata = StubRowMetadata.of(row.getStubColumnMetadatas());
+        RowMapper rowMapper = new RowMapper();
+        Assertions.assertTrue(rowMapper.isCompiled(rowMetadata, request.getDbEntityAnalysis(), CustomerWithAddress.class,
+                request.ignoreUnknownProperties()));
+
+        CompiledRowMapper<CustomerWithAddress> compiledRowMapper = CompiledRowMapper.compile(getColumns(rowMetadata),
+                request.getDbEntityAnalysis(), CustomerWithAddress.class, request.ignoreUnknownProperties());
+        Assertions.assertNotNull(compiledRowMapper);
+        CustomerWithAddress compiled = compiledRowMapper.mapRow(row);
+        Assertions.assertNotNull(compiled);
+        Assertions.assertEquals(rowMapper.mapRowGeneric(row, rowMetadata, request.getDbEntityAnalysis(), CustomerWithAddress.class,
+                request.ignoreUnknownProperties()), compiled);
+        Assertions.assertEquals(compiled, rowMapper.mapRow(row, rowMetadata, request.getDbEntityAnalysis(), CustomerWithAddress.class,
+                request.ignoreUnknownProperties()));
+
+        // Models that customize their deserialization are left to the generic mapping
+        ExtendedRequest<TrimmedCustomer> trimmedRequest = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), TrimmedCustomer.class);
+        trimmedRequest.resetParameters();
+        List<ColumnMetadata> trimmedColumns = List.of(
+                StubColumnMetadata.of("id", Long.class),
+                StubColumnMetadata.of("name", String.class)
+        );
+        RowMetadata trimmedMetadata = StubRowMetadata.of(trimmedColumns);
+        Assertions.assertFalse(rowMapper.isCompiled(trimmedMetadata, trimmedRequest.getDbEntityAnalysis(), TrimmedCustomer.class,
+                trimmedRequest.ignoreUnknownProperties()));
+        TrimmedCustomer trimmedCustomer = rowMapper.mapRow(StubRow.of(Map.of("id", 1L, "name", " customerName "), trimmedColumns), trimmedMetadata,
+                trimmedRequest.getDbEntityAnalysis(), TrimmedCustomer.class, trimmedRequest.ignoreUnknownProperties());
+        Assertions.assertEquals("customerName", trimmedCustomer.getName());
+    }
+
+    private static List<ColumnMetadata> getColumns(RowMetadata rowMetadata) {
+        List<ColumnMetadata> columns = new ArrayList<>();
+        for (ColumnMetadata columnMetadata : rowMetadata.getColumnMetadatas()) {
+            columns.add(columnMetadata);
+        }
+        return columns;
+    }
+
     private static <T> RowMapperTest.RowMapVerifier<T> rowMap(Row row, RowMetadata rowMetadata, Class<T> clazz, ExtendedParameters extendedParameters) {
         ExtendedRequest<T> extendedRequest = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), clazz);
         return new RowMapVerifier<>(row, rowMetadata, extendedRequest);
     }
 
+    @Data
+    @Table("customer_table")
+    public static class TrimmedCustomer {
+        @Id
+        @Column("customer_id")
+        private Long id;
+
+        @Column("customer_name")
+        private String name;
+
+        @JsonSetter("name")
+        public void setName(String name) {
+            this.name = name != null ? name.trim() : null;
+        }
+    }
+
     @RequiredArgsConstructor
     private static class RowMapVerifier<T> {
         private final Row row;
@@ -331,6 +469,17 @@ public class RowMapperTest {
             actual = rowMapper.mapRow(row, rowMetadata, request.getDbEntityAnalysis(), request.getModelClass(),
                     request.ignoreUnknownProperties());
             Assertions.assertEquals(expected, actual);
+
+            // Both mappings must agree on every row
+            T generic = rowMapper.mapRowGeneric(row, rowMetadata, request.getDbEntityAnalysis(), request.getModelClass(),
+                    request.ignoreUnknownProperties());
+            Assertions.assertEquals(expected, generic);
+            CompiledRowMapper<T> compiledRowMapper = CompiledRowMapper.compile(getColumns(rowMetadata),
+                    request.getDbEntityAnalysis(), request.getModelClass(), request.ignoreUnknownProperties());
+            T compiled = compiledRowMapper != null ? compiledRowMapper.mapRow(row) : null;
+            if (compiled != null) {
+                Assertions.assertEquals(expected, compiled);
+            }
         }
 
         public void verify(T expected) {
@@ -0,0 +1,107 @@
+package org.dcsa.core.service.impl;
+
+import org.dcsa.core.repository.ExtendedRepository;
+import org.dcsa.core.util.MappingUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class AsymmetricQueryServiceImplTest {
+
+    @Test
+    public void testBulkMapDM2TOPerElement() {
+        AtomicInteger calls = new AtomicInteger();
+        NumberService service = new NumberService() {
+            @Override
+            protected Mono<String> mapDM2TO(Integer dm) {
+                calls.incrementAndGet();
+                return Mono.just("#" + dm);
+            }
+        };
+        Assertions.assertEquals(List.of("#1", "#2", "#3"), service.bulkMapDM2TO(Flux.just(1, 2, 3)).collectList().block());
+        Assertions.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testBulkMapDM2TOSynchronous() {
+        NumberService service = new NumberService() {
+            @Override
+            protected Mono<String> mapDM2TO(Integer dm) {
+                throw new AssertionError("The synchronous mapping must be used");
+            }
+
+            @Override
+            protected Function<Integer, String> getSynchronousMapper() {
+                return dm -> "#" + dm;
+            }
+        };
+        Assertions.assertEquals(List.of("#1", "#2", "#3"), service.bulkMapDM2TO(Flux.just(1, 2, 3)).collectList().block());
+    }
+
+    @Test
+    public void testBulkMapDM2TOInBatches() {
+        NumberService service = new SimpleNumberService();
+        List<List<Integer>> batches = new ArrayList<>();
+        Flux<String> result = service.bulkMapDM2TOInBatches(Flux.range(1, 5), 2, batch -> {
+            batches.add(batch);
+            // Earlier batches take longer, which must not change the order
+            return Flux.fromIterable(batch).map(dm -> "#" + dm).delayElements(Duration.ofMillis(30L / batch.get(0)));
+        });
+        Assertions.assertEquals(List.of("#1", "#2", "#3", "#4", "#5"), result.collectList().block());
+        Assertions.assertEquals(List.of(List.of(1, 2), List.of(3, 4), List.of(5)), batches);
+    }
+
+    @Test
+    public void testBulkMapDM2TOWithLookup() {
+        NumberService service = new SimpleNumberService();
+        int count = MappingUtils.SQL_LIST_BUFFER_SIZE * 2 + 1;
+        List<Collection<Integer>> loadedKeys = new ArrayList<>();
+        List<String> result = service.bulkMapDM2TOWithLookup(Flux.range(1, count),
+                // Duplicate keys within a batch and no key for multiples of 10
+                dm -> dm % 10 == 0 ? null : dm % 10,
+                keys -> {
+                    loadedKeys.add(keys);
+                    // Nothing is found for key 7
+                    return Flux.fromIterable(keys).filter(key -> key != 7).map(key -> "v" + key);
+                },
+                value -> Integer.valueOf(value.substring(1)),
+                (dm, value) -> dm + "=" + value
+        ).collectList().block();
+
+        Assertions.assertNotNull(result);
+        Assertions.assertEquals(count, result.size());
+        for (int dm = 1; dm <= count; dm++) {
+            int key = dm % 10;
+            String expectedValue = key == 0 || key == 7 ? null : "v" + key;
+            Assertions.assertEquals(dm + "=" + expectedValue, result.get(dm - 1));
+        }
+        // The loader is called once per batch with the distinct (non-null) keys of the batch
+        Assertions.assertEquals(3, loadedKeys.size());
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), List.copyOf(loadedKeys.get(0)));
+        Assertions.assertEquals(List.of(1), List.copyOf(loadedKeys.get(2)));
+    }
+
+    private static class SimpleNumberService extends NumberService {
+        @Override
+        protected Mono<String> mapDM2TO(Integer dm) {
+            return Mono.just("#" + dm);
+        }
+    }
+
+    // Maps numbers to strings (the repository is not used)
+    private abstract static class NumberService extends AsymmetricQueryServiceImpl<ExtendedRepository<Integer, Integer>, Integer, String, Integer> {
+
+        @Override
+        protected ExtendedRepository<Integer, Integer> getRepository() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.dcsa.core.service.impl;
+
+import org.dcsa.core.extendedrequest.CountStrategy;
+import org.dcsa.core.extendedrequest.ExtendedParameters;
+import org.dcsa.core.extendedrequest.ExtendedRequest;
+import org.dcsa.core.extendedrequest.testsupport.MockR2dbcDialect;
+import org.dcsa.core.models.Customer;
+import org.dcsa.core.repository.ExtendedRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+@ContextConfiguration(classes = ExtendedParameters.class)
+public class QueryServiceImplTest {
+
+    @Autowired
+    private ExtendedParameters extendedParameters;
+
+    @Test
+    public void testNoCountForKeysetPages() {
+        RecordingRepository repository = new RecordingRepository();
+        CustomerService service = new CustomerService(repository.proxy());
+
+        ExtendedRequest<Customer> request = keysetRequest();
+        request.parseParameter(Map.of("limit", List.of("10")));
+        Assertions.assertFalse(request.isCountNeeded());
+        Assertions.assertEquals(1, service.findAllExtended(request).collectList().block().size());
+        Assertions.assertEquals(List.of("findAllExtended"), repository.calls);
+
+        // A page after the first one
+        repository.calls.clear();
+        request = keysetRequest();
+        request.parseParameter(Map.of("cursor", List.of(encodeCursor("sort=name:DESC&limit=10&|After|=Bob,5"))));
+        Assertions.assertFalse(request.isCountNeeded());
+        Assertions.assertFalse(request.isCountEstimable());
+        service.findAllExtended(request).collectList().block();
+        Assertions.assertEquals(List.of("findAllExtended"), repository.calls);
+
+        // Offset based pages are still counted
+        repository.calls.clear();
+        ExtendedRequest<Customer> offsetRequest = new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class) {
+            @Override
+            protected CountStrategy getCountStrategy() {
+                return CountStrategy.EXACT;
+            }
+        };
+        offsetRequest.parseParameter(Map.of("limit", List.of("10")));
+        service.findAllExtended(offsetRequest).collectList().block();
+        Assertions.assertEquals(List.of("findAllExtended", "countAllExtended"), repository.calls);
+    }
+
+    private ExtendedRequest<Customer> keysetRequest() {
+        return new ExtendedRequest<>(extendedParameters, new MockR2dbcDialect(), Customer.class) {
+            @Override
+            protected boolean isKeysetPagination() {
+                return true;
+            }
+
+            @Override
+            protected CountStrategy getCountStrategy() {
+                return CountStrategy.EXACT;
+            }
+        };
+    }
+
+    private static String encodeCursor(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Records which repository methods the service calls
+    private static class RecordingRepository {
+
+        private final List<String> calls = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        ExtendedRepository<Customer, Long> proxy() {
+            return (ExtendedRepository<Customer, Long>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ExtendedRepository.class}, (proxy, method, args) -> {
+                        calls.add(method.getName());
+                        switch (method.getName()) {
+                            case "findAllExtended":
+                                return Flux.just(new Customer());
+                            case "countAllExtended":
+                            case "estimateCountAllExtended":
+                                return Mono.just(1);
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    private static class CustomerService extends QueryServiceImpl<ExtendedRepository<Customer, Long>, Customer, Long> {
+
+        private final ExtendedRepository<Customer, Long> repository;
+
+        CustomerService(ExtendedRepository<Customer, Long> repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        protected ExtendedRepository<Customer, Long> getRepository() {
+            return repository;
+        }
+    }
+}
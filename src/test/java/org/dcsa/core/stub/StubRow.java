@@ -16,7 +16,8 @@ public class StubRow implements Row {
 
     @Override
     public <T> T get(int i, Class<T> clazz) {
-        throw new UnsupportedOperationException("stub; not implemented");
+        // The index follows the order of the column metadata (as given to the StubRowMetadata)
+        return get(getStubColumnMetadatas().get(i).getName(), clazz);
     }
 
     @Override
@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Getter
@@ -15,7 +16,7 @@ public class StubRowMetadata implements RowMetadata {
 
     @Override
     public ColumnMetadata getColumnMetadata(int i) {
-        throw new UnsupportedOperationException("stub; not implemented");
+        return List.copyOf(columnMetadatas).get(i);
     }
 
     @Override
@@ -26,6 +27,6 @@ public class StubRowMetadata implements RowMetadata {
 
     @Override
     public Collection<String> getColumnNames() {
-        return columnMetadatas.stream().map(ColumnMetadata::getName).collect(Collectors.toSet());
+        return columnMetadatas.stream().map(ColumnMetadata::getName).collect(Collectors.toList());
     }
 }